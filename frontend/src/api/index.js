@@ -75,8 +75,9 @@ export const addCluster = (data) => api.post('/clusters', data)
 export const updateCluster = (data) => api.put('/clusters', data)
 export const deleteCluster = (id) => api.delete(`/clusters/${id}`)
 
-export const getTopics = (clusterId, page = 1, pageSize = 10, keyword = '') => 
-  api.get(`/clusters/${clusterId}/topics`, { params: { page, pageSize, keyword } })
+// query: optional match (contains, prefix, glob, regex), sortField/sortOrder and min/max range filters (minMessages, maxGroups, ...)
+export const getTopics = (clusterId, page = 1, pageSize = 10, keyword = '', query = {}) => 
+  api.get(`/clusters/${clusterId}/topics`, { params: { page, pageSize, keyword, ...query } })
 export const createTopic = (clusterId, data) => api.post(`/clusters/${clusterId}/topics`, data)
 export const deleteTopic = (clusterId, topicName) => api.delete(`/clusters/${clusterId}/topics/${topicName}`)
 export const getTopicPartitions = (clusterId, topicName, page = 1, pageSize = 10) => 
@@ -91,13 +92,104 @@ export const getTopicMessages = (clusterId, topicName, params) =>
       indexes: null // Use brackets for arrays: partitions[]=1&partitions[]=2
     }
   })
+// One record with its full key, value and headers
+export const getTopicMessage = (clusterId, topicName, partition, offset) =>
+  api.get(`/clusters/${clusterId}/topics/${topicName}/messages/${partition}/${offset}`)
+// One search over several topics (topics list or topicPattern regex); results are labelled by topic
+export const searchTopicsMessages = (clusterId, params) =>
+  api.get(`/clusters/${clusterId}/topics/messages`, {
+    params,
+    paramsSerializer: {
+      indexes: null
+    }
+  })
+
+// Estimated match count of a range from sampled windows, plus the hits in the sample
+export const sampleTopicMessages = (clusterId, topicName, params) =>
+  api.get(`/clusters/${clusterId}/topics/${topicName}/messages/sample`, {
+    params,
+    paramsSerializer: {
+      indexes: null
+    }
+  })
+const toQueryString = (params) => {
+  const query = new URLSearchParams()
+  Object.entries(params || {}).forEach(([k, v]) => {
+    if (v === undefined || v === null || v === '') return
+    if (Array.isArray(v)) v.forEach(item => query.append(k, item))
+    else query.append(k, v)
+  })
+  return query
+}
+
+// Live tail over SSE; onBatch receives { messages, dropped }. Call close() on the result to stop.
+export const tailTopicMessages = (clusterId, topicName, params, handlers = {}) => {
+  const source = new EventSource(`/api/clusters/${clusterId}/topics/${encodeURIComponent(topicName)}/messages/tail?${toQueryString(params)}`)
+  source.addEventListener('messages', e => handlers.onBatch && handlers.onBatch(JSON.parse(e.data)))
+  source.addEventListener('error', e => {
+    source.close()
+    handlers.onError && handlers.onError(e.data || 'Tail closed')
+  })
+  return source
+}
+
+// Download URL of a gzip-compressed JSONL/CSV export; the browser streams it straight to disk
+export const topicMessagesExportUrl = (clusterId, topicName, params) =>
+  `/api/clusters/${clusterId}/topics/${encodeURIComponent(topicName)}/messages/export?${toQueryString(params)}`
+
+// Per-topic payload decoding: { keyFormat, valueFormat, schemaRegistryUrl }
+export const getTopicFormat = (clusterId, topicName) => api.get(`/clusters/${clusterId}/topics/${topicName}/format`)
+export const updateTopicFormat = (clusterId, topicName, format) => api.put(`/clusters/${clusterId}/topics/${topicName}/format`, format)
+
+// Background key index: latest record for an exact key, and per-topic enable/disable
+export const getTopicMessageByKey = (clusterId, topicName, key) =>
+  api.get(`/clusters/${clusterId}/topics/${topicName}/messages/by-key`, { params: { key } })
+export const getTopicKeyIndex = (clusterId, topicName) => api.get(`/clusters/${clusterId}/topics/${topicName}/key-index`)
+export const enableTopicKeyIndex = (clusterId, topicName) => api.put(`/clusters/${clusterId}/topics/${topicName}/key-index`)
+export const disableTopicKeyIndex = (clusterId, topicName) => api.delete(`/clusters/${clusterId}/topics/${topicName}/key-index`)
+
+// Background key/size profile of a topic range (filters as in searches); GET returns progress or the result
+export const startTopicProfile = (clusterId, topicName, params) =>
+  api.post(`/clusters/${clusterId}/topics/${topicName}/profile`, null, {
+    params,
+    paramsSerializer: {
+      indexes: null
+    }
+  })
+export const getTopicProfile = (clusterId, topicName) => api.get(`/clusters/${clusterId}/topics/${topicName}/profile`)
+export const cancelTopicProfile = (clusterId, topicName) => api.delete(`/clusters/${clusterId}/topics/${topicName}/profile`)
+
+// Stops a running search; resolves to false when it already finished
+export const cancelSearch = (clusterId, searchId) =>
+  api.delete(`/clusters/${clusterId}/searches/${encodeURIComponent(searchId)}`)
+
+// Streaming search over SSE. handlers: { onBounds, onMatch, onProgress, onDone, onError }.
+// Returns the EventSource; call close() on it to cancel the scan on the server.
+export const streamTopicMessages = (clusterId, topicName, params, handlers = {}) => {
+  const query = toQueryString(params)
+  const source = new EventSource(`/api/clusters/${clusterId}/topics/${encodeURIComponent(topicName)}/messages/stream?${query}`)
+  const on = (event, handler) => handler && source.addEventListener(event, e => handler(JSON.parse(e.data)))
+  on('bounds', handlers.onBounds)
+  on('match', handlers.onMatch)
+  on('progress', handlers.onProgress)
+  source.addEventListener('done', e => {
+    source.close()
+    handlers.onDone && handlers.onDone(JSON.parse(e.data))
+  })
+  source.addEventListener('error', e => {
+    source.close()
+    handlers.onError && handlers.onError(e.data || 'Stream closed')
+  })
+  return source
+}
 export const sendTopicMessage = (clusterId, topicName, data) => api.post(`/clusters/${clusterId}/topics/${topicName}/messages`, data)
 export const getMessageHistory = (clusterId, topicName, page = 1, pageSize = 10) => 
   api.get(`/clusters/${clusterId}/topics/${topicName}/messages/history`, { params: { page, pageSize } })
 export const updateTopicConfigs = (clusterId, topicName, configs) => api.put(`/clusters/${clusterId}/topics/${topicName}/configs`, configs)
 
-export const getConsumerGroups = (clusterId, page = 1, pageSize = 10, keyword = '', topic = '') =>
-  api.get(`/clusters/${clusterId}/consumer-groups`, { params: { page, pageSize, keyword, topic } })
+// match: how keyword is applied, contains (default), prefix, glob or regex
+export const getConsumerGroups = (clusterId, page = 1, pageSize = 10, keyword = '', topic = '', match = '') =>
+  api.get(`/clusters/${clusterId}/consumer-groups`, { params: { page, pageSize, keyword, topic, match } })
 
 // Get topic volume (message counts) for the last N days (frontend will request days=7)
 export const getTopicVolume = (clusterId, topicName, days = 7) =>
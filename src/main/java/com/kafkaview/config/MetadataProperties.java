@@ -0,0 +1,42 @@
+package com.kafkaview.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "kafka-view.metadata")
+public class MetadataProperties {
+
+    // Topic names are listed this often per cluster; only new and recreated topics are described
+    private long refreshIntervalMs = 30000;
+
+    // Every topic is described again within this period, a slice per refresh, so leaders and ISR stay current
+    private long fullRefreshMs = 300000;
+
+    // Clusters not read for this long stop refreshing; the next read reloads them first
+    private long idleTimeoutMs = 600000;
+
+    // Topics per DescribeTopics request
+    private int describeBatchSize = 500;
+
+    // Threads refreshing clusters in the background
+    private int refreshThreads = 2;
+
+    // Topic -> consumer group index: a sweep over all groups starts this long after the previous one ended
+    private long groupSweepIntervalMs = 60000;
+
+    // Groups described and listed per batch of a sweep, and the most groups a sweep covers per second
+    private int groupSweepBatchSize = 50;
+    private int groupSweepRate = 100;
+
+    // Topic stats table (message counts etc. of every topic) used to sort and filter the topic list
+    private long statsRefreshIntervalMs = 60000;
+
+    // Partitions per ListOffsets request of a stats refresh
+    private int statsOffsetsBatchSize = 5000;
+
+    // Identical admin requests share one in-flight call; a successful result is reused for this long after it
+    private long coalesceWindowMs = 1000;
+}
@@ -0,0 +1,135 @@
+package com.kafkaview.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "kafka-view.search")
+public class SearchProperties {
+
+    // Max number of partition groups scanned concurrently by a single search
+    private int parallelism = 4;
+
+    // Per-cluster override of parallelism, keyed by cluster id
+    private Map<Long, Integer> clusterParallelism = new HashMap<>();
+
+    // Size of the scan worker pool shared by all searches
+    private int workerThreads = 16;
+
+    // Max search consumers (leased + idle) kept per cluster
+    private int poolMaxSize = 16;
+
+    // Idle search consumers are closed after this long without a lease
+    private long poolIdleTimeoutMs = 300000;
+
+    // How long a search waits for a free consumer before failing
+    private long poolLeaseTimeoutMs = 30000;
+
+    // Admission control over all search consumers: memory reserved for their fetches, consumers leased at
+    // once, how many of those exports and profiles may hold, and callers waiting for one (how many,
+    // and for how long) before they are turned away
+    private long admissionBudgetBytes = 256L * 1024 * 1024;
+    private int admissionMaxConcurrent = 8;
+    private int admissionMaxBackground = 2;
+    private int admissionMaxQueued = 32;
+    private long admissionQueueTimeoutMs = 15000;
+
+    // Bounds of the per-consumer fetch size; consumers get the largest tier their share of the budget allows
+    private long fetchMinBytes = 1024 * 1024;
+    private long fetchMaxBytes = 50L * 1024 * 1024;
+
+    // Most topics a multi-topic search may resolve to
+    private int maxSearchTopics = 100;
+
+    // Max lifetime of a streaming (SSE) search response
+    private long streamTimeoutMs = 600000;
+
+    // Deadline of a paged search; the scan stops there and returns what it found so far.
+    // spring.mvc.async.request-timeout has to be longer.
+    private long maxDurationMs = 120000;
+
+    // Deadline of a streaming export; an export cut off there ends with a truncated gzip stream
+    private long exportMaxDurationMs = 3600000;
+
+    // Memory-mapped key -> offset tables of key-indexed topics, kept across restarts
+    private String keyIndexDir = "cache/key-index";
+    // How often an indexer syncs its table to disk and records its positions
+    private long keyIndexFlushIntervalMs = 10000;
+
+    // Live tail: max lifetime of a tail response, records buffered per subscriber before the
+    // oldest are dropped, how often buffers are sent, and threads sending them
+    private long tailTimeoutMs = 1800000;
+    private int tailBufferSize = 1000;
+    private long tailFlushIntervalMs = 250;
+    private int tailSenderThreads = 4;
+
+    // Payload decoding: default schema registry for avro topics without their own, the only other
+    // registries a topic may point at, compiled schemas kept by id, and the registry request timeout
+    private String schemaRegistryUrl;
+    private List<String> schemaRegistryAllowedUrls = new ArrayList<>();
+    private int schemaCacheSize = 256;
+    private long schemaRegistryTimeoutMs = 5000;
+
+    // Keys and values in search, stream and tail results are cut to this many characters; 0 disables the cap
+    private int previewMaxChars = 1024;
+
+    // Sampling estimates: offsets read when the request gives no budget, the largest budget a request
+    // may ask for, and the length of each evenly spaced window
+    private int sampleBudget = 10000;
+    private int sampleMaxBudget = 200000;
+    private int sampleWindowSize = 100;
+
+    // Topic profiles: concurrent jobs (more wait), deadline and record cap of a job, counters tracking
+    // candidate hot keys, and hot keys reported
+    private int profileThreads = 2;
+    private long profileMaxDurationMs = 1800000;
+    private long profileMaxRecords = 10000000;
+    private int profileKeyCounters = 1000;
+    private int profileTopKeys = 20;
+
+    // Paged search results are kept for this long after their last access
+    private long sessionTtlMs = 300000;
+
+    // Max search sessions kept in memory, least recently used are dropped first
+    private int maxSessions = 100;
+
+    // On-disk cache of fetched record ranges, cleared on startup
+    private boolean cacheEnabled = true;
+    private String cacheDir = "cache/records";
+
+    // Total size of the cache files, least recently used ranges are dropped first
+    private long cacheMaxBytes = 512L * 1024 * 1024;
+
+    // A single cached range stops growing at this size
+    private long cacheSegmentMaxBytes = 64L * 1024 * 1024;
+
+    // Cached ranges are not served after this age, so retention and compaction catch up
+    private long cacheTtlMs = 3600000;
+
+    // Timestamp -> offset points kept per partition
+    private int timeIndexMaxPoints = 1024;
+
+    // Recently used topics get an index point at every multiple of the interval within the window
+    private long timeIndexSampleIntervalMs = 3600000;
+    private long timeIndexSampleWindowMs = 86400000;
+
+    // Bounds of the per-partition chunk length of reverse (newest first) scans
+    private int reverseChunkMin = 100;
+    private int reverseChunkMax = 200000;
+
+    // Max bytes a single reverse scan round may read per worker, split across its partitions
+    private long reverseChunkMemoryBytes = 32L * 1024 * 1024;
+
+    public int parallelismFor(Long clusterId) {
+        Integer p = clusterId == null ? null : clusterParallelism.get(clusterId);
+        int value = (p != null && p > 0) ? p : parallelism;
+        return Math.max(1, value);
+    }
+}
@@ -43,8 +43,7 @@ public class ClusterController {
             // Test connection and refresh version info
             kafkaAdminService.testConnection(clusterInfo);
             clusterService.updateCluster(clusterInfo);
-            // Invalidate cache
-            kafkaAdminService.closeClient(clusterInfo.getId());
+            // Per-cluster state is dropped by the ClusterChangedEvent listeners
             return Result.success();
         } catch (Exception e) {
             log.error("Update cluster failed", e);
@@ -55,7 +54,6 @@ public class ClusterController {
     @DeleteMapping("/{id}")
     public Result<Void> delete(@PathVariable Long id) {
         clusterService.deleteCluster(id);
-        kafkaAdminService.closeClient(id);
         return Result.success();
     }
 }
@@ -20,7 +20,8 @@ public class ConsumerGroupController {
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int pageSize,
             @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String match,
             @RequestParam(required = false) String topic) throws Exception {
-        return Result.success(consumerGroupService.listConsumerGroups(clusterId, page, pageSize, keyword, topic));
+        return Result.success(consumerGroupService.listConsumerGroups(clusterId, page, pageSize, keyword, match, topic));
     }
 }
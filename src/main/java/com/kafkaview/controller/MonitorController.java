@@ -1,8 +1,12 @@
 package com.kafkaview.controller;
 
+import com.kafkaview.model.AdminCallStats;
+import com.kafkaview.model.AdmissionStats;
 import com.kafkaview.model.ClusterMetrics;
 import com.kafkaview.model.Result;
+import com.kafkaview.service.AdminCallCoalescer;
 import com.kafkaview.service.MonitorService;
+import com.kafkaview.service.SearchAdmission;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,9 +19,23 @@ import org.springframework.web.bind.annotation.RestController;
 public class MonitorController {
 
     private final MonitorService monitorService;
+    private final SearchAdmission searchAdmission;
+    private final AdminCallCoalescer adminCallCoalescer;
 
     @GetMapping("/{clusterId}")
     public Result<ClusterMetrics> getMetrics(@PathVariable Long clusterId) {
         return Result.success(monitorService.getMetrics(clusterId));
     }
+
+    // Search admission control: leased and queued consumers, reserved fetch memory, rejections
+    @GetMapping("/search-admission")
+    public Result<AdmissionStats> getSearchAdmission() {
+        return Result.success(searchAdmission.stats());
+    }
+
+    // Admin request coalescing: requests sent vs. answered by an identical in-flight or just completed one
+    @GetMapping("/admin-calls")
+    public Result<AdminCallStats> getAdminCalls() {
+        return Result.success(adminCallCoalescer.stats());
+    }
 }
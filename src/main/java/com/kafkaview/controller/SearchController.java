@@ -0,0 +1,28 @@
+package com.kafkaview.controller;
+
+import com.kafkaview.model.Result;
+import com.kafkaview.model.SearchInfo;
+import com.kafkaview.service.SearchRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/clusters/{clusterId}/searches")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchRegistry searchRegistry;
+
+    @GetMapping
+    public Result<List<SearchInfo>> list(@PathVariable Long clusterId) {
+        return Result.success(searchRegistry.list(clusterId));
+    }
+
+    // Returns false when the search already finished
+    @DeleteMapping("/{searchId}")
+    public Result<Boolean> cancel(@PathVariable Long clusterId, @PathVariable String searchId) {
+        return Result.success(searchRegistry.cancel(clusterId, searchId));
+    }
+}
@@ -2,11 +2,20 @@ package com.kafkaview.controller;
 
 import com.kafkaview.model.*;
 import com.kafkaview.service.TopicService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/clusters/{clusterId}/topics")
@@ -39,7 +48,7 @@ public class TopicController {
     }
 
     @GetMapping("/{topicName}/messages")
-    public Result<MessageSearchResult> getMessages(
+    public DeferredResult<Result<MessageSearchResult>> getMessages(
             @PathVariable Long clusterId,
             @PathVariable String topicName,
             @RequestParam(required = false) List<Integer> partitions,
@@ -49,6 +58,7 @@ public class TopicController {
             @RequestParam(required = false) Long endOffset,
             @RequestParam(required = false) String key,
             @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String q,
             @RequestParam(defaultValue = "100") int limit,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "20") int pageSize,
@@ -56,8 +66,101 @@ public class TopicController {
             @RequestParam(defaultValue = "desc") String sortOrder,
             @RequestParam(defaultValue = "desc") String scanDirection,
             @RequestParam(defaultValue = "1000") int timeout,
-            @RequestParam(defaultValue = "10") int retryCount) throws Exception {
-        return Result.success(topicService.searchMessages(clusterId, topicName, partitions, startTime, endTime, startOffset, endOffset, key, keyword, limit, page, pageSize, sortField, sortOrder, scanDirection, timeout, retryCount));
+            @RequestParam(defaultValue = "10") int retryCount,
+            @RequestParam(required = false) String cursorId,
+            @RequestParam(defaultValue = "false") boolean resume,
+            @RequestParam(required = false) String searchId,
+            @RequestParam(required = false) Long deadlineMs) {
+        String id = StringUtils.hasText(searchId) ? searchId : UUID.randomUUID().toString();
+        return deferred(clusterId, id, topicService.searchMessages(clusterId, topicName, partitions, startTime, endTime, startOffset, endOffset, key, keyword, q, limit, page, pageSize, sortField, sortOrder, scanDirection, timeout, retryCount, cursorId, resume, id, deadlineMs));
+    }
+
+    // One search over several topics: the listed ones or those matching topicPattern (a regex).
+    // Matches come back as one timestamp-ordered list labelled by topic, without a cursor.
+    @GetMapping("/messages")
+    public DeferredResult<Result<MessageSearchResult>> searchTopics(
+            @PathVariable Long clusterId,
+            @RequestParam(required = false) List<String> topics,
+            @RequestParam(required = false) String topicPattern,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(required = false) Long startOffset,
+            @RequestParam(required = false) Long endOffset,
+            @RequestParam(required = false) String key,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "desc") String scanDirection,
+            @RequestParam(defaultValue = "1000") int timeout,
+            @RequestParam(defaultValue = "10") int retryCount,
+            @RequestParam(required = false) String searchId,
+            @RequestParam(required = false) Long deadlineMs) {
+        String id = StringUtils.hasText(searchId) ? searchId : UUID.randomUUID().toString();
+        return deferred(clusterId, id, topicService.searchTopics(clusterId, topics, topicPattern, startTime, endTime, startOffset, endOffset, key, keyword, q, limit, scanDirection, timeout, retryCount, id, deadlineMs));
+    }
+
+    // Estimated number of matches in the range from evenly spaced sample windows, with a 95% interval
+    // and the matches found in the sample. budget caps the offsets read, windowSize sets the window length.
+    @GetMapping("/{topicName}/messages/sample")
+    public DeferredResult<Result<MatchEstimate>> sampleMessages(
+            @PathVariable Long clusterId,
+            @PathVariable String topicName,
+            @RequestParam(required = false) List<Integer> partitions,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(required = false) Long startOffset,
+            @RequestParam(required = false) Long endOffset,
+            @RequestParam(required = false) String key,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer budget,
+            @RequestParam(required = false) Integer windowSize,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "1000") int timeout,
+            @RequestParam(defaultValue = "3") int retryCount,
+            @RequestParam(required = false) String searchId,
+            @RequestParam(required = false) Long deadlineMs) {
+        String id = StringUtils.hasText(searchId) ? searchId : UUID.randomUUID().toString();
+        return deferred(clusterId, id, topicService.estimateMatches(clusterId, topicName, partitions, startTime, endTime, startOffset, endOffset, key, keyword, q, budget, windowSize, limit, timeout, retryCount, id, deadlineMs));
+    }
+
+    // A request that times out or whose client goes away stops its scan
+    private <T> DeferredResult<Result<T>> deferred(Long clusterId, String searchId, CompletableFuture<T> future) {
+        DeferredResult<Result<T>> result = new DeferredResult<>();
+        result.onTimeout(() -> {
+            topicService.cancelSearch(clusterId, searchId);
+            result.setErrorResult(new IllegalStateException("Search timed out"));
+        });
+        result.onError(e -> topicService.cancelSearch(clusterId, searchId));
+        result.onCompletion(() -> topicService.cancelSearch(clusterId, searchId));
+        future.whenComplete((r, e) -> {
+            if (e == null) {
+                result.setResult(Result.success(r));
+            } else {
+                result.setErrorResult(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+        return result;
+    }
+
+    @GetMapping(value = "/{topicName}/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessages(
+            @PathVariable Long clusterId,
+            @PathVariable String topicName,
+            @RequestParam(required = false) List<Integer> partitions,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(required = false) Long startOffset,
+            @RequestParam(required = false) Long endOffset,
+            @RequestParam(required = false) String key,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "desc") String scanDirection,
+            @RequestParam(defaultValue = "1000") int timeout,
+            @RequestParam(defaultValue = "10") int retryCount,
+            @RequestParam(required = false) String searchId) {
+        return topicService.streamMessages(clusterId, topicName, partitions, startTime, endTime, startOffset, endOffset, key, keyword, q, limit, scanDirection, timeout, retryCount, searchId);
     }
 
     @PutMapping("/{topicName}/configs")
@@ -71,8 +174,14 @@ public class TopicController {
             @PathVariable Long clusterId,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int pageSize,
-            @RequestParam(required = false) String keyword) throws Exception {
-        return Result.success(topicService.listTopics(clusterId, page, pageSize, keyword));
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String match,
+            @RequestParam(required = false) String sortField,
+            @RequestParam(required = false) String sortOrder,
+            TopicFilter filter) throws Exception {
+        // filter binds minMessages/maxMessages, minPartitions/maxPartitions, minReplicationFactor/maxReplicationFactor,
+        // minUnderReplicated/maxUnderReplicated and minGroups/maxGroups
+        return Result.success(topicService.listTopics(clusterId, page, pageSize, keyword, match, filter, sortField, sortOrder));
     }
 
     @PostMapping
@@ -96,6 +205,117 @@ public class TopicController {
         return Result.success();
     }
 
+    // Live tail from the log end; new records arrive as "messages" events in batches
+    @GetMapping(value = "/{topicName}/messages/tail", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter tailMessages(
+            @PathVariable Long clusterId,
+            @PathVariable String topicName,
+            @RequestParam(required = false) List<Integer> partitions,
+            @RequestParam(required = false) String key,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String q) {
+        return topicService.tailMessages(clusterId, topicName, partitions, key, keyword, q);
+    }
+
+    // Streams the whole range as a gzip-compressed JSONL or CSV download
+    @GetMapping("/{topicName}/messages/export")
+    public WebAsyncTask<Void> exportMessages(
+            @PathVariable Long clusterId,
+            @PathVariable String topicName,
+            @RequestParam(required = false) List<Integer> partitions,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(required = false) Long startOffset,
+            @RequestParam(required = false) Long endOffset,
+            @RequestParam(required = false) String key,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "jsonl") String format,
+            @RequestParam(defaultValue = "1000") int timeout,
+            @RequestParam(required = false) String searchId,
+            HttpServletResponse response) {
+        return topicService.exportMessages(clusterId, topicName, partitions, startTime, endTime, startOffset, endOffset, key, keyword, q, format, timeout, searchId, response);
+    }
+
+    // One record with its full key, value and headers; search results only carry previews
+    @GetMapping("/{topicName}/messages/{partition}/{offset}")
+    public Result<TopicMessage> getMessage(@PathVariable Long clusterId, @PathVariable String topicName, @PathVariable int partition, @PathVariable long offset) {
+        TopicMessage message = topicService.getMessage(clusterId, topicName, partition, offset);
+        if (message == null) {
+            throw new IllegalArgumentException("No record at offset " + offset + " of partition " + partition);
+        }
+        return Result.success(message);
+    }
+
+    // Latest record with the key, from the topic's key index; null when there is none
+    @GetMapping("/{topicName}/messages/by-key")
+    public Result<TopicMessage> getMessageByKey(@PathVariable Long clusterId, @PathVariable String topicName, @RequestParam String key) {
+        return Result.success(topicService.getMessageByKey(clusterId, topicName, key));
+    }
+
+    @GetMapping("/key-indexes")
+    public Result<List<KeyIndexStatus>> listKeyIndexes(@PathVariable Long clusterId) {
+        return Result.success(topicService.listKeyIndexes(clusterId));
+    }
+
+    // Starts profiling the keys and sizes of the range in the background; poll GET for progress and result
+    @PostMapping("/{topicName}/profile")
+    public Result<TopicProfile> startProfile(
+            @PathVariable Long clusterId,
+            @PathVariable String topicName,
+            @RequestParam(required = false) List<Integer> partitions,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(required = false) Long startOffset,
+            @RequestParam(required = false) Long endOffset,
+            @RequestParam(required = false) String key,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "1000") int timeout,
+            @RequestParam(required = false) String searchId) {
+        return Result.success(topicService.startProfile(clusterId, topicName, partitions, startTime, endTime, startOffset, endOffset, key, keyword, q, timeout, searchId));
+    }
+
+    // The running or latest profile of the topic; null when it was never profiled
+    @GetMapping("/{topicName}/profile")
+    public Result<TopicProfile> getProfile(@PathVariable Long clusterId, @PathVariable String topicName) {
+        return Result.success(topicService.getProfile(clusterId, topicName));
+    }
+
+    @DeleteMapping("/{topicName}/profile")
+    public Result<Boolean> cancelProfile(@PathVariable Long clusterId, @PathVariable String topicName) {
+        return Result.success(topicService.cancelProfile(clusterId, topicName));
+    }
+
+    // How keys and values of the topic are decoded: string, json, hex, avro or protobuf
+    @GetMapping("/{topicName}/format")
+    public Result<TopicFormat> getFormat(@PathVariable Long clusterId, @PathVariable String topicName) {
+        return Result.success(topicService.getTopicFormat(clusterId, topicName));
+    }
+
+    @PutMapping("/{topicName}/format")
+    public Result<Void> updateFormat(@PathVariable Long clusterId, @PathVariable String topicName, @RequestBody TopicFormat format) {
+        topicService.updateTopicFormat(clusterId, topicName, format);
+        return Result.success();
+    }
+
+    @GetMapping("/{topicName}/key-index")
+    public Result<KeyIndexStatus> getKeyIndex(@PathVariable Long clusterId, @PathVariable String topicName) {
+        return Result.success(topicService.getKeyIndex(clusterId, topicName));
+    }
+
+    @PutMapping("/{topicName}/key-index")
+    public Result<Void> enableKeyIndex(@PathVariable Long clusterId, @PathVariable String topicName) throws Exception {
+        topicService.enableKeyIndex(clusterId, topicName);
+        return Result.success();
+    }
+
+    @DeleteMapping("/{topicName}/key-index")
+    public Result<Void> disableKeyIndex(@PathVariable Long clusterId, @PathVariable String topicName) {
+        topicService.disableKeyIndex(clusterId, topicName);
+        return Result.success();
+    }
+
     @GetMapping("/{topicName}/messages/history")
     public Result<PageResult<MessageHistory>> getMessageHistory(
             @PathVariable Long clusterId,
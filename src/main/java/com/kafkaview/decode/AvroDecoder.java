@@ -0,0 +1,30 @@
+package com.kafkaview.decode;
+
+// Avro in the schema registry wire format: magic byte 0, a 4-byte big-endian schema id, then the
+// binary datum. Schemas are looked up through the resolver, which caches them by id.
+public final class AvroDecoder implements PayloadDecoder {
+
+    public interface SchemaResolver {
+        AvroSchema resolve(int schemaId) throws Exception;
+    }
+
+    private final SchemaResolver resolver;
+
+    public AvroDecoder(SchemaResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    @Override
+    public String format() {
+        return "avro";
+    }
+
+    @Override
+    public String decode(byte[] data) throws Exception {
+        if (data.length < 5 || data[0] != 0) {
+            throw new IllegalArgumentException("Not in schema registry wire format");
+        }
+        int schemaId = ((data[1] & 0xff) << 24) | ((data[2] & 0xff) << 16) | ((data[3] & 0xff) << 8) | (data[4] & 0xff);
+        return resolver.resolve(schemaId).toJson(data, 5);
+    }
+}
@@ -0,0 +1,263 @@
+package com.kafkaview.decode;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// An Avro schema compiled into a tree of readers that render binary-encoded data as JSON.
+// Compiling once per schema id keeps per-record decoding to a walk over the bytes.
+// Unions are rendered as their branch value and logical types as their underlying type.
+public final class AvroSchema {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Reader root;
+
+    private AvroSchema(Reader root) {
+        this.root = root;
+    }
+
+    public static AvroSchema parse(String schemaJson) throws IOException {
+        return new AvroSchema(new Compiler().compile(MAPPER.readTree(schemaJson), null));
+    }
+
+    public String toJson(byte[] data, int offset) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator gen = JSON.createGenerator(out)) {
+            root.read(new Input(data, offset), gen);
+        }
+        return out.toString();
+    }
+
+    private interface Reader {
+        void read(Input in, JsonGenerator out) throws IOException;
+    }
+
+    // Stands in for a named type while it is being compiled, so that recursive types resolve
+    private static final class Ref implements Reader {
+        Reader target;
+
+        @Override
+        public void read(Input in, JsonGenerator out) throws IOException {
+            target.read(in, out);
+        }
+    }
+
+    private static final class Compiler {
+        private final Map<String, Ref> named = new HashMap<>();
+
+        Reader compile(JsonNode schema, String namespace) throws IOException {
+            if (schema.isTextual()) {
+                return compileName(schema.asText(), namespace);
+            }
+            if (schema.isArray()) {
+                Reader[] branches = new Reader[schema.size()];
+                for (int i = 0; i < branches.length; i++) {
+                    branches[i] = compile(schema.get(i), namespace);
+                }
+                return (in, out) -> {
+                    long branch = in.readLong();
+                    if (branch < 0 || branch >= branches.length) throw new IOException("Bad union branch " + branch);
+                    branches[(int) branch].read(in, out);
+                };
+            }
+            JsonNode type = schema.get("type");
+            if (type == null) throw new IOException("Schema without type: " + schema);
+            if (!type.isTextual()) return compile(type, namespace);
+
+            switch (type.asText()) {
+                case "record":
+                case "error":
+                    return compileRecord(schema, namespace);
+                case "enum": {
+                    Ref ref = define(schema, namespace);
+                    List<String> symbols = new ArrayList<>();
+                    schema.get("symbols").forEach(s -> symbols.add(s.asText()));
+                    ref.target = (in, out) -> {
+                        long index = in.readLong();
+                        if (index < 0 || index >= symbols.size()) throw new IOException("Bad enum index " + index);
+                        out.writeString(symbols.get((int) index));
+                    };
+                    return ref;
+                }
+                case "fixed": {
+                    Ref ref = define(schema, namespace);
+                    int size = schema.get("size").asInt();
+                    ref.target = (in, out) -> out.writeBinary(in.readBytes(size));
+                    return ref;
+                }
+                case "array": {
+                    Reader items = compile(schema.get("items"), namespace);
+                    return (in, out) -> {
+                        out.writeStartArray();
+                        for (long count = in.readBlockCount(); count != 0; count = in.readBlockCount()) {
+                            for (long i = 0; i < count; i++) items.read(in, out);
+                        }
+                        out.writeEndArray();
+                    };
+                }
+                case "map": {
+                    Reader values = compile(schema.get("values"), namespace);
+                    return (in, out) -> {
+                        out.writeStartObject();
+                        for (long count = in.readBlockCount(); count != 0; count = in.readBlockCount()) {
+                            for (long i = 0; i < count; i++) {
+                                out.writeFieldName(in.readString());
+                                values.read(in, out);
+                            }
+                        }
+                        out.writeEndObject();
+                    };
+                }
+                default:
+                    // A primitive, possibly with a logical type
+                    return compileName(type.asText(), namespace);
+            }
+        }
+
+        private Reader compileRecord(JsonNode schema, String namespace) throws IOException {
+            Ref ref = define(schema, namespace);
+            String ns = namespaceOf(schema, namespace);
+            List<String> names = new ArrayList<>();
+            List<Reader> readers = new ArrayList<>();
+            for (JsonNode field : schema.get("fields")) {
+                names.add(field.get("name").asText());
+                readers.add(compile(field.get("type"), ns));
+            }
+            ref.target = (in, out) -> {
+                out.writeStartObject();
+                for (int i = 0; i < readers.size(); i++) {
+                    out.writeFieldName(names.get(i));
+                    readers.get(i).read(in, out);
+                }
+                out.writeEndObject();
+            };
+            return ref;
+        }
+
+        private Reader compileName(String name, String namespace) throws IOException {
+            switch (name) {
+                case "null":
+                    return (in, out) -> out.writeNull();
+                case "boolean":
+                    return (in, out) -> out.writeBoolean(in.readByte() != 0);
+                case "int":
+                case "long":
+                    return (in, out) -> out.writeNumber(in.readLong());
+                case "float":
+                    return (in, out) -> out.writeNumber(Float.intBitsToFloat(in.readFixedInt()));
+                case "double":
+                    return (in, out) -> out.writeNumber(Double.longBitsToDouble(in.readFixedLong()));
+                case "bytes":
+                    return (in, out) -> out.writeBinary(in.readBytes(in.readLength()));
+                case "string":
+                    return (in, out) -> out.writeString(in.readString());
+                default:
+                    Ref ref = named.get(fullName(name, namespace));
+                    if (ref == null) ref = named.get(name);
+                    if (ref == null) throw new IOException("Unknown Avro type " + name);
+                    return ref;
+            }
+        }
+
+        private Ref define(JsonNode schema, String namespace) {
+            Ref ref = new Ref();
+            String name = schema.get("name").asText();
+            String fullName = fullName(name, namespaceOf(schema, namespace));
+            named.put(fullName, ref);
+            named.putIfAbsent(name.substring(name.lastIndexOf('.') + 1), ref);
+            return ref;
+        }
+
+        private static String namespaceOf(JsonNode schema, String namespace) {
+            String name = schema.path("name").asText("");
+            if (name.contains(".")) return name.substring(0, name.lastIndexOf('.'));
+            JsonNode ns = schema.get("namespace");
+            return ns != null ? ns.asText() : namespace;
+        }
+
+        private static String fullName(String name, String namespace) {
+            return name.contains(".") || namespace == null || namespace.isEmpty() ? name : namespace + "." + name;
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int pos;
+
+        Input(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        byte readByte() throws IOException {
+            if (pos >= data.length) throw new EOFException("Avro datum ends early");
+            return data[pos++];
+        }
+
+        // Zig-zag varint, used for int and long alike
+        long readLong() throws IOException {
+            long raw = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                raw |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) return (raw >>> 1) ^ -(raw & 1);
+            }
+            throw new IOException("Malformed Avro varint");
+        }
+
+        int readFixedInt() throws IOException {
+            int v = 0;
+            for (int i = 0; i < 4; i++) v |= (readByte() & 0xff) << (8 * i);
+            return v;
+        }
+
+        long readFixedLong() throws IOException {
+            long v = 0;
+            for (int i = 0; i < 8; i++) v |= (long) (readByte() & 0xff) << (8 * i);
+            return v;
+        }
+
+        int readLength() throws IOException {
+            long length = readLong();
+            if (length < 0 || length > data.length - pos) throw new IOException("Bad Avro length " + length);
+            return (int) length;
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            if (length > data.length - pos) throw new EOFException("Avro datum ends early");
+            byte[] bytes = new byte[length];
+            System.arraycopy(data, pos, bytes, 0, length);
+            pos += length;
+            return bytes;
+        }
+
+        String readString() throws IOException {
+            int length = readLength();
+            String s = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        // Array and map blocks: a negative count is followed by the block size in bytes
+        long readBlockCount() throws IOException {
+            long count = readLong();
+            if (count < 0) {
+                readLong();
+                count = -count;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.kafkaview.decode;
+
+public final class HexDecoder implements PayloadDecoder {
+
+    public static final HexDecoder INSTANCE = new HexDecoder();
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    @Override
+    public String format() {
+        return "hex";
+    }
+
+    @Override
+    public String decode(byte[] data) {
+        return hex(data, data.length);
+    }
+
+    @Override
+    public String decodePreview(byte[] data, int maxChars) {
+        String text = hex(data, (int) Math.min(data.length, (maxChars + 1L) / 2));
+        return text.length() > maxChars ? text.substring(0, maxChars) : text;
+    }
+
+    private static String hex(byte[] data, int length) {
+        char[] out = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            out[i * 2] = DIGITS[(data[i] >> 4) & 0xf];
+            out[i * 2 + 1] = DIGITS[data[i] & 0xf];
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,18 @@
+package com.kafkaview.decode;
+
+// Turns a raw key or value into display text. Implementations are chosen per topic and must be
+// thread-safe; they are only called for records that are returned, never for every scanned record.
+public interface PayloadDecoder {
+
+    // Format name as configured per topic, e.g. "avro"
+    String format();
+
+    // Never called with null. Throws on payloads it cannot read; callers fall back to hex.
+    String decode(byte[] data) throws Exception;
+
+    // At most maxChars characters of the text. Decoders that can stop early read only a prefix of the payload.
+    default String decodePreview(byte[] data, int maxChars) throws Exception {
+        String text = decode(data);
+        return text.length() > maxChars ? text.substring(0, maxChars) : text;
+    }
+}
@@ -0,0 +1,152 @@
+package com.kafkaview.decode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+// Protobuf without descriptors, like `protoc --decode_raw`: fields are keyed by number, varints and
+// fixed-width values are shown as numbers, and length-delimited values as text when they are printable
+// UTF-8, else as a nested message when they parse as one, else as base64. Payloads in the schema
+// registry wire format (magic byte 0, schema id, message indexes) are unwrapped first; a plain
+// protobuf message never starts with 0, so both can be read.
+public final class ProtobufDecoder implements PayloadDecoder {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_DEPTH = 16;
+
+    @Override
+    public String format() {
+        return "protobuf";
+    }
+
+    @Override
+    public String decode(byte[] data) throws IOException {
+        int start = 0;
+        if (data.length >= 5 && data[0] == 0) {
+            int[] pos = {5};
+            long count = zigZag(readVarint(data, pos, data.length));
+            // A single 0 stands for the first message type; otherwise count indexes follow
+            for (long i = 0; i < count; i++) {
+                readVarint(data, pos, data.length);
+            }
+            start = pos[0];
+        }
+        ObjectNode message = parseMessage(data, start, data.length, 0);
+        if (message == null) throw new IOException("Not a protobuf message");
+        return MAPPER.writeValueAsString(message);
+    }
+
+    // Null when the bytes are not a well-formed message
+    private static ObjectNode parseMessage(byte[] data, int from, int to, int depth) {
+        ObjectNode message = JsonNodeFactory.instance.objectNode();
+        int[] pos = {from};
+        try {
+            while (pos[0] < to) {
+                long tag = readVarint(data, pos, to);
+                int field = (int) (tag >>> 3);
+                if (field <= 0) return null;
+                JsonNode value;
+                switch ((int) (tag & 7)) {
+                    case 0:
+                        value = JsonNodeFactory.instance.numberNode(readVarint(data, pos, to));
+                        break;
+                    case 1:
+                        value = JsonNodeFactory.instance.numberNode(readFixed(data, pos, to, 8));
+                        break;
+                    case 5:
+                        value = JsonNodeFactory.instance.numberNode(readFixed(data, pos, to, 4));
+                        break;
+                    case 2: {
+                        long length = readVarint(data, pos, to);
+                        if (length < 0 || length > to - pos[0]) return null;
+                        value = lengthDelimited(data, pos[0], pos[0] + (int) length, depth);
+                        pos[0] += (int) length;
+                        break;
+                    }
+                    default:
+                        // Groups (3, 4) are deprecated and not supported
+                        return null;
+                }
+                add(message, Integer.toString(field), value);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return message;
+    }
+
+    private static JsonNode lengthDelimited(byte[] data, int from, int to, int depth) {
+        String text = printable(data, from, to);
+        if (text != null) return JsonNodeFactory.instance.textNode(text);
+        if (depth < MAX_DEPTH) {
+            ObjectNode nested = parseMessage(data, from, to, depth + 1);
+            if (nested != null) return nested;
+        }
+        return JsonNodeFactory.instance.textNode(Base64.getEncoder().encodeToString(Arrays.copyOfRange(data, from, to)));
+    }
+
+    // Repeated fields become arrays
+    private static void add(ObjectNode message, String field, JsonNode value) {
+        JsonNode existing = message.get(field);
+        if (existing == null) {
+            message.set(field, value);
+        } else if (existing.isArray()) {
+            ((ArrayNode) existing).add(value);
+        } else {
+            ArrayNode values = message.putArray(field);
+            values.add(existing);
+            values.add(value);
+        }
+    }
+
+    private static String printable(byte[] data, int from, int to) {
+        try {
+            String s = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(data, from, to - from))
+                    .toString();
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x20 && c != '\n' && c != '\r' && c != '\t') return null;
+            }
+            return s;
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    private static long readVarint(byte[] data, int[] pos, int to) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= to) throw new IOException("Truncated varint");
+            byte b = data[pos[0]++];
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long readFixed(byte[] data, int[] pos, int to, int size) throws IOException {
+        if (to - pos[0] < size) throw new IOException("Truncated fixed value");
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            value |= (long) (data[pos[0]++] & 0xff) << (8 * i);
+        }
+        return value;
+    }
+
+    private static long zigZag(long raw) {
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
@@ -0,0 +1,42 @@
+package com.kafkaview.decode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// Minimal client of the schema registry REST API: only fetches schemas by id. Callers cache the results.
+public final class SchemaRegistryClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient http;
+    private final Duration timeout;
+
+    public SchemaRegistryClient(Duration timeout) {
+        this.timeout = timeout;
+        this.http = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    public String fetchSchema(String baseUrl, int schemaId) throws IOException, InterruptedException {
+        String url = baseUrl.replaceAll("/+$", "") + "/schemas/ids/" + schemaId;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Accept", "application/vnd.schemaregistry.v1+json, application/json")
+                .GET()
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Schema registry returned " + response.statusCode() + " for schema " + schemaId);
+        }
+        JsonNode body = MAPPER.readTree(response.body());
+        JsonNode schema = body.get("schema");
+        if (schema == null) throw new IOException("Schema registry response without schema for id " + schemaId);
+        return schema.asText();
+    }
+}
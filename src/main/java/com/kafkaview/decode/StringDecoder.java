@@ -0,0 +1,31 @@
+package com.kafkaview.decode;
+
+import java.nio.charset.StandardCharsets;
+
+// UTF-8 text; also used for "json", whose text is passed through for the client to render
+public final class StringDecoder implements PayloadDecoder {
+
+    private final String format;
+
+    public StringDecoder(String format) {
+        this.format = format;
+    }
+
+    @Override
+    public String format() {
+        return format;
+    }
+
+    @Override
+    public String decode(byte[] data) {
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    // A character takes at most 4 bytes, so a large payload is only decoded up to that prefix
+    @Override
+    public String decodePreview(byte[] data, int maxChars) {
+        int length = (int) Math.min(data.length, (long) maxChars * 4);
+        String text = new String(data, 0, length, StandardCharsets.UTF_8);
+        return text.length() > maxChars ? text.substring(0, maxChars) : text;
+    }
+}
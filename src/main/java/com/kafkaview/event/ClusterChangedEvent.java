@@ -0,0 +1,14 @@
+package com.kafkaview.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+// Published by ClusterService after a cluster's connection settings were updated or the cluster was
+// deleted. Every service holding per-cluster state (clients, consumers, caches, indexes, jobs) listens
+// for it, so new state never has to be added to a hand-maintained list of evictions.
+@Getter
+@RequiredArgsConstructor
+public class ClusterChangedEvent {
+    private final Long clusterId;
+    private final boolean removed;      // Deleted; otherwise updated and still in use
+}
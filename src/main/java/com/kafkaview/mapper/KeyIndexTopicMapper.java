@@ -0,0 +1,28 @@
+package com.kafkaview.mapper;
+
+import com.kafkaview.model.KeyIndexTopic;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+@Mapper
+public interface KeyIndexTopicMapper {
+
+    @Insert("INSERT OR IGNORE INTO key_index_topic (cluster_id, topic_name, created_at) VALUES (#{clusterId}, #{topicName}, CURRENT_TIMESTAMP)")
+    void insert(@Param("clusterId") Long clusterId, @Param("topicName") String topicName);
+
+    @Select("SELECT * FROM key_index_topic ORDER BY id")
+    @Results({
+        @Result(property = "id", column = "id"),
+        @Result(property = "clusterId", column = "cluster_id"),
+        @Result(property = "topicName", column = "topic_name"),
+        @Result(property = "createdAt", column = "created_at")
+    })
+    List<KeyIndexTopic> selectAll();
+
+    @Delete("DELETE FROM key_index_topic WHERE cluster_id = #{clusterId} AND topic_name = #{topicName}")
+    int delete(@Param("clusterId") Long clusterId, @Param("topicName") String topicName);
+
+    @Delete("DELETE FROM key_index_topic WHERE cluster_id = #{clusterId}")
+    void deleteByCluster(@Param("clusterId") Long clusterId);
+}
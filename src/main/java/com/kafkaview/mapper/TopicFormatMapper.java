@@ -0,0 +1,31 @@
+package com.kafkaview.mapper;
+
+import com.kafkaview.model.TopicFormat;
+import org.apache.ibatis.annotations.*;
+
+@Mapper
+public interface TopicFormatMapper {
+
+    @Insert("INSERT OR REPLACE INTO topic_format (cluster_id, topic_name, key_format, value_format, schema_registry_url, updated_at) " +
+            "VALUES (#{clusterId}, #{topicName}, #{keyFormat}, #{valueFormat}, #{schemaRegistryUrl}, CURRENT_TIMESTAMP)")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    void upsert(TopicFormat format);
+
+    @Select("SELECT * FROM topic_format WHERE cluster_id = #{clusterId} AND topic_name = #{topicName}")
+    @Results({
+        @Result(property = "id", column = "id"),
+        @Result(property = "clusterId", column = "cluster_id"),
+        @Result(property = "topicName", column = "topic_name"),
+        @Result(property = "keyFormat", column = "key_format"),
+        @Result(property = "valueFormat", column = "value_format"),
+        @Result(property = "schemaRegistryUrl", column = "schema_registry_url"),
+        @Result(property = "updatedAt", column = "updated_at")
+    })
+    TopicFormat select(@Param("clusterId") Long clusterId, @Param("topicName") String topicName);
+
+    @Delete("DELETE FROM topic_format WHERE cluster_id = #{clusterId} AND topic_name = #{topicName}")
+    void delete(@Param("clusterId") Long clusterId, @Param("topicName") String topicName);
+
+    @Delete("DELETE FROM topic_format WHERE cluster_id = #{clusterId}")
+    void deleteByCluster(@Param("clusterId") Long clusterId);
+}
@@ -0,0 +1,19 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Admin request coalescing; counters are totals since startup
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminCallStats {
+    private long windowMs;
+    private long issued;            // Requests actually sent to the cluster
+    private long shared;            // Requests answered by an in-flight or just completed identical one
+    private int inFlight;
+    private int reusable;           // Completed results still inside the reuse window
+}
@@ -0,0 +1,30 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Load of the search admission control; counters are totals since startup
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdmissionStats {
+    private long budgetBytes;
+    private long reservedBytes;     // Fetch sizes of the consumers leased right now
+    private int maxConcurrent;
+    private int running;            // Leased search consumers
+    private int maxBackground;
+    private int backgroundRunning;  // Of running, leased by exports and profiles
+    private int queued;             // Waiting for a permit
+    private int maxQueued;
+    private long admitted;
+    private long rejectedQueueFull;
+    private long rejectedTimeout;   // Gave up after the queue timeout
+    private long rejectedBusy;      // Search pool saturated
+    private long avgWaitMs;
+    private List<Long> fetchTiers;
+}
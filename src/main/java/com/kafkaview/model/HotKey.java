@@ -0,0 +1,18 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A frequent key of a profiled topic; the true count lies within [count - error, count]
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotKey {
+    private String key;
+    private long count;
+    private long error;
+    private double share;  // count / profiled records
+}
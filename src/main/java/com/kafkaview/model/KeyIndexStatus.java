@@ -0,0 +1,22 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// State of the background key index of a topic
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeyIndexStatus {
+    private Long clusterId;
+    private String topicName;
+    private long keys;       // Distinct key hashes indexed
+    private long capacity;   // Slots of the current table
+    private long fileBytes;
+    private long lag;        // Records not indexed yet, as of the last flush
+    private boolean running;
+    private String error;    // Why the indexer stopped; it is restarted periodically
+}
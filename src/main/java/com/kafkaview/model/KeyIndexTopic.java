@@ -0,0 +1,19 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeyIndexTopic {
+    private Long id;
+    private Long clusterId;
+    private String topicName;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,29 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Estimated match count of a range, from evenly spaced sample windows
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchEstimate {
+    private String searchId;
+    private long rangeOffsets;     // Offsets in the requested range, over all partitions
+    private long sampledOffsets;   // Offsets covered by the windows that were read
+    private long sampledRecords;   // Records found there; fewer than offsets on compacted topics
+    private int sampledWindows;
+    private long sampleMatches;
+    private long estimatedMatches;
+    private long lowerBound;       // Interval at the given confidence
+    private long upperBound;
+    private double confidence;
+    private boolean exact;         // The whole range fit the budget, so the count is exact
+    private List<TopicMessage> hits; // Matches found in the sample, up to the requested limit
+    private ScanStats stats;
+}
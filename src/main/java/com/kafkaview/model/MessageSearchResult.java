@@ -18,4 +18,10 @@ public class MessageSearchResult {
     private int page;
     private int pageSize;
     private Map<Integer, PartitionOffsetRange> partitionOffsets;
+    private String cursorId;                  // Pass back to page through the buffered results
+    private Map<Integer, Long> resumeOffsets; // Where each partition's scan stopped
+    private boolean hasMore;                  // Some partitions were not scanned to the end of the range
+    private ScanStats stats;                  // What the scan behind this result read
+    private String searchId;                  // Registry id of the scan, absent when served from the cursor buffer
+    private List<String> topics;              // Topics a multi-topic search resolved to
 }
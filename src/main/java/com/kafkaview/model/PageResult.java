@@ -14,4 +14,10 @@ public class PageResult<T> {
     private long total;
     private int page;
     private int pageSize;
+    // The listing may miss entries, e.g. while the index it is filtered by is still being built
+    private boolean partial;
+
+    public PageResult(List<T> list, long total, int page, int pageSize) {
+        this(list, total, page, pageSize, false);
+    }
 }
@@ -0,0 +1,17 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Records and bytes a profile read from one partition
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionLoad {
+    private int partition;
+    private long records;
+    private long bytes;
+}
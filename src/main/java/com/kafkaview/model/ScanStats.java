@@ -0,0 +1,21 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// What a message scan read, for tuning
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanStats {
+    private long scannedRecords;
+    private long scannedBytes;       // Serialized key + value bytes
+    private List<Integer> chunkSizes; // Per-partition chunk length of each reverse scan round, in order
+    private boolean cancelled;        // Stopped by a cancel request or a disconnected client
+    private boolean deadlineExceeded; // Stopped at the search deadline; the result is partial
+}
@@ -0,0 +1,24 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A running message search as listed by the search registry
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchInfo {
+    private String searchId;
+    private Long clusterId;
+    private String topicName;
+    private long startTime;
+    private long deadline;
+    private long elapsedMs;
+    private long scannedRecords;
+    private long scannedBytes;
+    private long matched;
+    private boolean cancelled;
+}
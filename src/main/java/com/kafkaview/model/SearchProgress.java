@@ -0,0 +1,17 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchProgress {
+    private int partition;
+    private long startOffset;   // Lower bound of the scanned range
+    private long endOffset;     // Upper bound (exclusive) of the scanned range
+    private long currentOffset; // Forward scans move up towards endOffset, reverse scans move down towards startOffset
+}
@@ -0,0 +1,42 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// Server-side state of a paged message search, referenced by its cursor id
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchSession {
+    private String id;
+    private Long clusterId;
+    private String topicName;
+    // Normalized inputs that decide the result set; a cursor is only reused for the same ones
+    private List<Object> params;
+
+    // Search inputs, kept so that the scan can be resumed without re-resolving the time bounds
+    private String key;
+    private String keyword;
+    private String query;
+    private boolean desc;
+    private int limit;
+    private int timeout;
+    private int retryCount;
+    private Map<Integer, Long> startOffsets;
+    private Map<Integer, Long> endOffsets;
+    private Map<Integer, PartitionOffsetRange> partitionOffsets;
+
+    // Matches of the last scan (at most limit) and where each partition's scan stopped
+    private List<TopicMessage> results;
+    private long total;
+    private Map<Integer, Long> resumeOffsets;
+    private ScanStats stats;
+
+    private volatile long lastAccessTime;
+}
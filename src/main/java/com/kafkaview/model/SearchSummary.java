@@ -0,0 +1,17 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchSummary {
+    private long matched;
+    private long scanned;
+    private boolean cancelled;
+    private ScanStats stats;
+}
@@ -0,0 +1,17 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Records whose key + value size falls within [fromBytes, toBytes)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SizeBucket {
+    private long fromBytes;
+    private long toBytes;
+    private long count;
+}
@@ -0,0 +1,18 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Records sent to a live-tail subscriber in one event
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TailBatch {
+    private List<TopicMessage> messages;
+    private long dropped; // Records skipped since the previous batch because the client fell behind
+}
@@ -0,0 +1,44 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Inclusive ranges over the topic stats table; null bounds are open
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopicFilter {
+    private Long minMessages;
+    private Long maxMessages;
+    private Integer minPartitions;
+    private Integer maxPartitions;
+    private Integer minReplicationFactor;
+    private Integer maxReplicationFactor;
+    private Integer minUnderReplicated;
+    private Integer maxUnderReplicated;
+    private Integer minGroups;
+    private Integer maxGroups;
+
+    public boolean isEmpty() {
+        return minMessages == null && maxMessages == null
+                && minPartitions == null && maxPartitions == null
+                && minReplicationFactor == null && maxReplicationFactor == null
+                && minUnderReplicated == null && maxUnderReplicated == null
+                && minGroups == null && maxGroups == null;
+    }
+
+    public boolean accepts(TopicStats stats) {
+        return within(stats.getMessageCount(), minMessages, maxMessages)
+                && within(stats.getPartitionCount(), minPartitions, maxPartitions)
+                && within(stats.getReplicationFactor(), minReplicationFactor, maxReplicationFactor)
+                && within(stats.getUnderReplicatedPartitions(), minUnderReplicated, maxUnderReplicated)
+                && within(stats.getConsumerGroupCount(), minGroups, maxGroups);
+    }
+
+    private static boolean within(long value, Number min, Number max) {
+        return (min == null || value >= min.longValue()) && (max == null || value <= max.longValue());
+    }
+}
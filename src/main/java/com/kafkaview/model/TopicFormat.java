@@ -0,0 +1,22 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopicFormat {
+    private Long id;
+    private Long clusterId;
+    private String topicName;
+    private String keyFormat;          // string, json, hex, avro or protobuf
+    private String valueFormat;
+    private String schemaRegistryUrl;  // Needed for avro; falls back to kafka-view.search.schema-registry-url, other URLs must be allow-listed
+    private LocalDateTime updatedAt;
+}
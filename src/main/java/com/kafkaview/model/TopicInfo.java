@@ -9,6 +9,7 @@ public class TopicInfo {
     private String name;
     private int partitionCount;
     private int replicationFactor;
+    private int underReplicatedPartitions;
     
     // 增强信息
     private long messageCount;      // 总消息数
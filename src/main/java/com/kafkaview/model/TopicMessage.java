@@ -3,13 +3,21 @@ package com.kafkaview.model;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.Map;
+
 @Data
 @Builder
 public class TopicMessage {
+    private String topic;
     private int partition;
     private long offset;
     private long timestamp;
     private String key;
     private String value;
     private String timestampType;
+    private String valueFormat; // Decoder that produced value; json, avro and protobuf values are JSON text
+    private int keySize;        // Serialized sizes in bytes, -1 for null
+    private int valueSize;
+    private boolean truncated;  // key or value is a preview; fetch the record by offset for the full text
+    private Map<String, String> headers; // Only on full records
 }
@@ -0,0 +1,40 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Key and size profile of a topic range; partial while the job is running
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopicProfile {
+    private String searchId;        // Cancels the job through the searches API as well
+    private String topicName;
+    private String status;          // RUNNING, DONE, CANCELLED or FAILED
+    private String error;
+    private long startedAt;
+    private Long finishedAt;
+    private boolean limitReached;   // Stopped at the record cap; the profile covers the oldest records of the range
+    private boolean deadlineExceeded;
+
+    private long records;
+    private long bytes;             // Key + value bytes
+    private long nullKeys;
+    private long distinctKeys;      // HyperLogLog estimate
+    private double distinctKeysError; // Relative standard error of distinctKeys
+
+    private long minSize;
+    private long maxSize;
+    private long avgSize;
+    private long p50Size;
+    private long p99Size;
+    private List<SizeBucket> sizeHistogram; // Non-empty buckets only
+
+    private List<HotKey> hotKeys;
+    private List<PartitionLoad> partitions;
+}
@@ -0,0 +1,20 @@
+package com.kafkaview.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row of a cluster's precomputed topic stats table, used to sort and filter the whole topic list
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopicStats {
+    private String name;
+    private int partitionCount;
+    private int replicationFactor;
+    private int underReplicatedPartitions;
+    private long messageCount;      // Sum over partitions of log end - log start
+    private int consumerGroupCount;
+}
@@ -0,0 +1,55 @@
+package com.kafkaview.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Boyer-Moore-Horspool matcher over raw UTF-8 bytes.
+// UTF-8 is self-synchronizing, so a byte-level hit is the same as String.contains on the decoded text
+// for well-formed input, and records that do not match never need to be decoded.
+public final class BytePattern {
+
+    private final byte[] needle;
+    private final int[] shift;
+
+    private BytePattern(byte[] needle) {
+        this.needle = needle;
+        this.shift = new int[256];
+        Arrays.fill(shift, needle.length);
+        for (int i = 0; i < needle.length - 1; i++) {
+            shift[needle[i] & 0xFF] = needle.length - 1 - i;
+        }
+    }
+
+    public static BytePattern compile(String text) {
+        return new BytePattern(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean matches(byte[] haystack) {
+        return haystack != null && indexOf(haystack, 0, haystack.length) >= 0;
+    }
+
+    // Index of the first occurrence in haystack[from, to), or -1
+    public int indexOf(byte[] haystack, int from, int to) {
+        int n = needle.length;
+        if (n == 0) return from;
+        int last = n - 1;
+        byte lastByte = needle[last];
+        int i = from;
+        while (i <= to - n) {
+            byte b = haystack[i + last];
+            if (b == lastByte) {
+                int j = last - 1;
+                while (j >= 0 && haystack[i + j] == needle[j]) {
+                    j--;
+                }
+                if (j < 0) return i;
+            }
+            i += shift[b & 0xFF];
+        }
+        return -1;
+    }
+
+    public int length() {
+        return needle.length;
+    }
+}
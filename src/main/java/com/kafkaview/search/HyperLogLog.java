@@ -0,0 +1,44 @@
+package com.kafkaview.search;
+
+// Distinct count estimate in 2^precision bytes (16 KB at the default 14, about 0.8% standard error).
+// Takes 64-bit hashes with good avalanche such as KeyOffsetTable.hash, so no large-range correction is
+// needed; small counts fall back to linear counting. Not thread-safe.
+public final class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) throw new IllegalArgumentException("precision must be within 4..18");
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Leading zeros of the remaining bits plus one; the sentinel bit bounds the rank
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) registers[index] = (byte) rank;
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) zeros++;
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    // Relative standard error of estimate()
+    public double standardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+}
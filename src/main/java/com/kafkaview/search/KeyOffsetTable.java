@@ -0,0 +1,179 @@
+package com.kafkaview.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Open-addressing hash table of 64-bit key hash -> (partition, offset) in a memory-mapped file, so the
+// entries live off-heap and survive restarts. Slots are (hash, offset, partition) with hash 0 meaning empty,
+// probed linearly. Once 70% full the table is rebuilt at twice the size. Not thread-safe.
+public final class KeyOffsetTable implements Closeable {
+
+    private static final int MAGIC = 0x4B494458; // "KIDX"
+    private static final int HEADER = 16;        // magic, slot count, size, reserved
+    private static final int SLOT = 20;
+    private static final int MAX_SLOTS = 1 << 26; // Largest power of two that fits one mapping
+    private static final double MAX_LOAD = 0.7;
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slots;
+    private int size;
+
+    private KeyOffsetTable(Path file) {
+        this.file = file;
+    }
+
+    // Opens the table in file, or creates it with initialSlots (rounded up to a power of two)
+    public static KeyOffsetTable open(Path file, int initialSlots) throws IOException {
+        KeyOffsetTable table = new KeyOffsetTable(file);
+        if (Files.exists(file) && Files.size(file) >= HEADER) {
+            table.map();
+            if (table.buffer.getInt(0) == MAGIC && table.buffer.getInt(4) > 0 && Files.size(file) == HEADER + (long) table.buffer.getInt(4) * SLOT) {
+                table.slots = table.buffer.getInt(4);
+                table.size = table.buffer.getInt(8);
+                return table;
+            }
+            // Not a table we wrote, start over
+            table.close();
+        }
+        create(file, Integer.highestOneBit(Math.max(16, Math.min(MAX_SLOTS, initialSlots) - 1) << 1));
+        table.map();
+        table.slots = table.buffer.getInt(4);
+        return table;
+    }
+
+    // 64-bit FNV-1a with a final avalanche; never 0, which marks an empty slot
+    public static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    public void put(long hash, int partition, long offset) throws IOException {
+        if (size + 1 > slots * MAX_LOAD) grow();
+        int mask = slots - 1;
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            int pos = HEADER + i * SLOT;
+            long h = buffer.getLong(pos);
+            if (h == 0) {
+                buffer.putLong(pos, hash);
+                buffer.putLong(pos + 8, offset);
+                buffer.putInt(pos + 16, partition);
+                buffer.putInt(8, ++size);
+                return;
+            }
+            if (h == hash) {
+                buffer.putLong(pos + 8, offset);
+                buffer.putInt(pos + 16, partition);
+                return;
+            }
+        }
+    }
+
+    // Null when the hash is unknown
+    public Location get(long hash) {
+        int mask = slots - 1;
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            int pos = HEADER + i * SLOT;
+            long h = buffer.getLong(pos);
+            if (h == 0) return null;
+            if (h == hash) return new Location(buffer.getInt(pos + 16), buffer.getLong(pos + 8));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int slots() {
+        return slots;
+    }
+
+    public long fileBytes() {
+        return HEADER + (long) slots * SLOT;
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer != null) buffer.force();
+        if (channel != null) channel.close();
+        buffer = null;
+        channel = null;
+    }
+
+    // Rehashes into a file twice the size and swaps it in
+    private void grow() throws IOException {
+        if (slots >= MAX_SLOTS) {
+            throw new IllegalStateException("Key index " + file.getFileName() + " is full");
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        create(tmp, slots * 2);
+        KeyOffsetTable bigger = new KeyOffsetTable(tmp);
+        bigger.map();
+        bigger.slots = slots * 2;
+        for (int i = 0; i < slots; i++) {
+            int pos = HEADER + i * SLOT;
+            long h = buffer.getLong(pos);
+            if (h != 0) bigger.put(h, buffer.getInt(pos + 16), buffer.getLong(pos + 8));
+        }
+        bigger.close();
+        close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map();
+        slots = buffer.getInt(4);
+        size = buffer.getInt(8);
+    }
+
+    private static void create(Path file, int slots) throws IOException {
+        Files.deleteIfExists(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) slots * SLOT);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, slots);
+            buffer.putInt(8, 0);
+            buffer.force();
+        }
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+
+    public static final class Location {
+        private final int partition;
+        private final long offset;
+
+        Location(int partition, long offset) {
+            this.partition = partition;
+            this.offset = offset;
+        }
+
+        public int partition() {
+            return partition;
+        }
+
+        public long offset() {
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.kafkaview.search;
+
+// Estimates the matches in an offset range from windows read at evenly spaced offsets. The share is
+// matches per offset, so offsets removed by compaction or taken by transaction markers count as
+// non-matching instead of inflating the estimate. Records in one window tend to be alike (same producer
+// batch, same time), so each window is one cluster of the sample: the interval is the wider of the
+// Wilson interval over single offsets and the normal interval from the spread between windows.
+// Both are narrowed by the share of the range that was read. Not thread-safe.
+public final class MatchEstimator {
+
+    private static final double Z = 1.96; // 95% confidence
+
+    private final long population;
+    private long offsets;
+    private long matches;
+    private int windows;
+    // Per-window sums for the between-window variance of the ratio estimate
+    private double sumOffsets2;
+    private double sumMatches2;
+    private double sumCross;
+
+    // population: offsets in the whole range
+    public MatchEstimator(long population) {
+        this.population = Math.max(0, population);
+    }
+
+    public void addWindow(long windowOffsets, long windowMatches) {
+        if (windowOffsets <= 0) return;
+        offsets += windowOffsets;
+        matches += windowMatches;
+        windows++;
+        sumOffsets2 += (double) windowOffsets * windowOffsets;
+        sumMatches2 += (double) windowMatches * windowMatches;
+        sumCross += (double) windowOffsets * windowMatches;
+    }
+
+    public long offsets() {
+        return offsets;
+    }
+
+    public long matches() {
+        return matches;
+    }
+
+    public int windows() {
+        return windows;
+    }
+
+    // Every offset of the range was read
+    public boolean isExact() {
+        return offsets >= population;
+    }
+
+    public double share() {
+        return offsets == 0 ? 0 : (double) matches / offsets;
+    }
+
+    public long estimate() {
+        return isExact() ? matches : Math.round(share() * population);
+    }
+
+    public long lowerBound() {
+        if (isExact()) return matches;
+        return Math.max(matches, (long) Math.floor(interval()[0] * population));
+    }
+
+    public long upperBound() {
+        if (isExact()) return matches;
+        // Offsets that were read and did not match cannot match
+        return Math.min(population - (offsets - matches), (long) Math.ceil(interval()[1] * population));
+    }
+
+    private double[] interval() {
+        if (offsets == 0) return new double[]{0, 1};
+        double n = offsets;
+        double p = share();
+        double fpc = Math.sqrt(Math.max(0, 1 - n / population));
+
+        double z2 = Z * Z;
+        double center = (p + z2 / (2 * n)) / (1 + z2 / n);
+        double half = Z * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)) / (1 + z2 / n) * fpc;
+        double lower = center - half;
+        double upper = center + half;
+
+        if (windows >= 2) {
+            // sum over windows of (m_i - p * n_i)^2, expanded
+            double residuals = sumMatches2 - 2 * p * sumCross + p * p * sumOffsets2;
+            double mean = n / windows;
+            double variance = residuals / (windows - 1) / (windows * mean * mean);
+            double clusterHalf = Z * Math.sqrt(Math.max(0, variance)) * fpc;
+            lower = Math.min(lower, p - clusterHalf);
+            upper = Math.max(upper, p + clusterHalf);
+        }
+        return new double[]{Math.max(0, lower), Math.min(1, upper)};
+    }
+}
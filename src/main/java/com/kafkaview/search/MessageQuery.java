@@ -0,0 +1,333 @@
+package com.kafkaview.search;
+
+import com.kafkaview.search.RecordPredicates.MetadataField;
+import com.kafkaview.search.RecordPredicates.Op;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// A message filter compiled once per search.
+//
+// Query syntax, keywords are case-insensitive:
+//   expr       := expr OR expr | expr AND expr | NOT expr | ( expr ) | comparison
+//   comparison := field [op literal]
+//   field      := key | value | header.<name> | ts | timestamp | offset | partition | $.json.path[0]
+//   op         := = | != | > | >= | < | <= | ~ (contains) | =~ (regex)
+//   literal    := "string" | 'string' | number | true | false | null
+// A bare field tests for presence, e.g. `header.traceId` or `$.order.id`.
+// Timestamps take epoch millis or ISO-8601 strings. Example:
+//   $.status = "FAILED" AND (header.source ~ "billing" OR key =~ "^ord-") AND ts >= "2024-05-01T00:00:00Z"
+//
+// Offset, timestamp and partition comparisons at the top level of the query also narrow the range
+// that is read from the brokers, see the *Bounds accessors.
+public final class MessageQuery {
+
+    private final RecordPredicate predicate;
+    private final long[] timestampBounds = {Long.MIN_VALUE, Long.MAX_VALUE}; // [lo, hi)
+    private final long[] offsetBounds = {Long.MIN_VALUE, Long.MAX_VALUE};
+    private final long[] partitionBounds = {Long.MIN_VALUE, Long.MAX_VALUE};
+
+    private MessageQuery(RecordPredicate predicate) {
+        this.predicate = predicate;
+        List<RecordPredicate> conjuncts = new ArrayList<>();
+        if (predicate instanceof RecordPredicates.And) {
+            conjuncts.addAll(List.of(((RecordPredicates.And) predicate).children));
+        } else {
+            conjuncts.add(predicate);
+        }
+        for (RecordPredicate conjunct : conjuncts) {
+            if (conjunct instanceof RecordPredicates.Metadata) {
+                RecordPredicates.Metadata m = (RecordPredicates.Metadata) conjunct;
+                switch (m.field) {
+                    case TIMESTAMP: narrow(timestampBounds, m.op, m.value); break;
+                    case OFFSET: narrow(offsetBounds, m.op, m.value); break;
+                    default: narrow(partitionBounds, m.op, m.value);
+                }
+            }
+        }
+    }
+
+    // Combines the legacy key/keyword substring filters with an optional query
+    public static MessageQuery compile(String query, String key, String keyword) {
+        List<RecordPredicate> parts = new ArrayList<>();
+        if (StringUtils.hasText(key)) parts.add(RecordPredicates.keyContains(key));
+        if (StringUtils.hasText(keyword)) parts.add(RecordPredicates.valueContains(keyword));
+        if (StringUtils.hasText(query)) parts.add(new Parser(query).parse());
+        return new MessageQuery(RecordPredicates.and(parts));
+    }
+
+    public boolean matches(RecordView record) {
+        return predicate.test(record);
+    }
+
+    public boolean isMatchAll() {
+        return predicate == RecordPredicate.ALWAYS;
+    }
+
+    // Inclusive lower and exclusive upper bound, null when unbounded
+    public Long minTimestamp() {
+        return lower(timestampBounds);
+    }
+
+    public Long maxTimestamp() {
+        return upper(timestampBounds);
+    }
+
+    public Long minOffset() {
+        return lower(offsetBounds);
+    }
+
+    public Long maxOffset() {
+        return upper(offsetBounds);
+    }
+
+    public boolean acceptsPartition(int partition) {
+        return partition >= partitionBounds[0] && partition < partitionBounds[1];
+    }
+
+    private static Long lower(long[] bounds) {
+        return bounds[0] == Long.MIN_VALUE ? null : bounds[0];
+    }
+
+    private static Long upper(long[] bounds) {
+        return bounds[1] == Long.MAX_VALUE ? null : bounds[1];
+    }
+
+    private static void narrow(long[] bounds, Op op, long value) {
+        switch (op) {
+            case EQ:
+                bounds[0] = Math.max(bounds[0], value);
+                bounds[1] = Math.min(bounds[1], value == Long.MAX_VALUE ? value : value + 1);
+                break;
+            case GT: bounds[0] = Math.max(bounds[0], value == Long.MAX_VALUE ? value : value + 1); break;
+            case GE: bounds[0] = Math.max(bounds[0], value); break;
+            case LT: bounds[1] = Math.min(bounds[1], value); break;
+            case LE: bounds[1] = Math.min(bounds[1], value == Long.MAX_VALUE ? value : value + 1); break;
+            default: // != cannot narrow a range
+        }
+    }
+
+    // Recursive descent parser; OR binds weaker than AND, NOT binds strongest
+    private static final class Parser {
+        private final String src;
+        private int pos;
+
+        Parser(String src) {
+            this.src = src;
+        }
+
+        RecordPredicate parse() {
+            RecordPredicate result = parseOr();
+            skipWhitespace();
+            if (pos < src.length()) throw error("Unexpected input");
+            return result;
+        }
+
+        private RecordPredicate parseOr() {
+            List<RecordPredicate> children = new ArrayList<>();
+            children.add(parseAnd());
+            while (acceptKeyword("OR") || accept("||")) {
+                children.add(parseAnd());
+            }
+            return children.size() == 1 ? children.get(0) : RecordPredicates.or(children);
+        }
+
+        private RecordPredicate parseAnd() {
+            List<RecordPredicate> children = new ArrayList<>();
+            children.add(parseUnary());
+            while (acceptKeyword("AND") || accept("&&")) {
+                children.add(parseUnary());
+            }
+            return children.size() == 1 ? children.get(0) : RecordPredicates.and(children);
+        }
+
+        private RecordPredicate parseUnary() {
+            if (acceptKeyword("NOT") || acceptNot()) {
+                return RecordPredicates.not(parseUnary());
+            }
+            if (accept("(")) {
+                RecordPredicate inner = parseOr();
+                if (!accept(")")) throw error("Expected )");
+                return inner;
+            }
+            return parseComparison();
+        }
+
+        private RecordPredicate parseComparison() {
+            int fieldPos = skipWhitespace();
+            String field = readField();
+            if (field.isEmpty()) throw error("Expected a field");
+            Op op = readOp();
+
+            if (field.startsWith("$")) {
+                RecordPredicates.JsonPath path = RecordPredicates.JsonPath.compile(field);
+                if (op == null) return RecordPredicates.jsonPresent(path);
+                return RecordPredicates.json(path, op, readLiteral());
+            }
+
+            String lower = field.toLowerCase();
+            String headerName = null;
+            if (lower.startsWith("header.") || lower.startsWith("headers.")) {
+                headerName = field.substring(field.indexOf('.') + 1);
+                if (headerName.isEmpty()) throw error("Expected a header name", fieldPos);
+            }
+            if (headerName != null || lower.equals("key") || lower.equals("value")) {
+                if (op == null) return RecordPredicates.present(lower, headerName);
+                Object literal = readLiteral();
+                if (literal == null) throw error("null is only supported for JSON fields");
+                return RecordPredicates.text(lower, headerName, op, literal instanceof BigDecimal ? ((BigDecimal) literal).toPlainString() : String.valueOf(literal));
+            }
+
+            MetadataField metadata;
+            switch (lower) {
+                case "ts":
+                case "timestamp": metadata = MetadataField.TIMESTAMP; break;
+                case "offset": metadata = MetadataField.OFFSET; break;
+                case "partition": metadata = MetadataField.PARTITION; break;
+                default: throw error("Unknown field '" + field + "'", fieldPos);
+            }
+            if (op == null) throw error("Expected an operator after " + field);
+            Object literal = readLiteral();
+            long value;
+            if (literal instanceof BigDecimal) {
+                value = ((BigDecimal) literal).longValue();
+            } else if (literal instanceof String && metadata == MetadataField.TIMESTAMP) {
+                value = parseTimestamp((String) literal);
+            } else {
+                throw error("Expected a number for " + field);
+            }
+            return RecordPredicates.metadata(metadata, op, value);
+        }
+
+        private long parseTimestamp(String text) {
+            try {
+                return Instant.parse(text).toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                // Fall through to local date formats
+            }
+            try {
+                return LocalDateTime.parse(text).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                // Fall through
+            }
+            try {
+                return LocalDate.parse(text).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                throw error("Invalid timestamp '" + text + "'");
+            }
+        }
+
+        private String readField() {
+            int start = pos;
+            while (pos < src.length()) {
+                char c = src.charAt(pos);
+                if (Character.isWhitespace(c) || "()=!<>~\"'&|".indexOf(c) >= 0) break;
+                pos++;
+            }
+            return src.substring(start, pos);
+        }
+
+        // null when no operator follows, i.e. a presence test
+        private Op readOp() {
+            skipWhitespace();
+            if (accept("=~")) return Op.REGEX;
+            if (accept("!=")) return Op.NE;
+            if (accept(">=")) return Op.GE;
+            if (accept("<=")) return Op.LE;
+            if (accept("==") || accept("=")) return Op.EQ;
+            if (accept(">")) return Op.GT;
+            if (accept("<")) return Op.LT;
+            if (accept("~")) return Op.CONTAINS;
+            return null;
+        }
+
+        // BigDecimal, String, Boolean or null
+        private Object readLiteral() {
+            skipWhitespace();
+            if (pos >= src.length()) throw error("Expected a value");
+            char c = src.charAt(pos);
+            if (c == '"' || c == '\'') {
+                return readString(c);
+            }
+            String word = readField();
+            if (word.isEmpty()) throw error("Expected a value");
+            switch (word.toLowerCase()) {
+                case "true": return Boolean.TRUE;
+                case "false": return Boolean.FALSE;
+                case "null": return null;
+                default:
+            }
+            try {
+                return new BigDecimal(word);
+            } catch (NumberFormatException e) {
+                throw error("Expected a quoted string or a number, got '" + word + "'");
+            }
+        }
+
+        private String readString(char quote) {
+            int start = pos++;
+            StringBuilder sb = new StringBuilder();
+            while (pos < src.length()) {
+                char c = src.charAt(pos++);
+                if (c == quote) return sb.toString();
+                if (c == '\\' && pos < src.length()) {
+                    char next = src.charAt(pos++);
+                    // Keep regex escapes such as \d intact, only unescape quotes and backslashes
+                    if (next != quote && next != '\\') sb.append('\\');
+                    sb.append(next);
+                } else {
+                    sb.append(c);
+                }
+            }
+            throw error("Unterminated string", start);
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            skipWhitespace();
+            int end = pos + keyword.length();
+            if (end > src.length() || !src.regionMatches(true, pos, keyword, 0, keyword.length())) return false;
+            if (end < src.length() && (Character.isLetterOrDigit(src.charAt(end)) || src.charAt(end) == '_')) return false;
+            pos = end;
+            return true;
+        }
+
+        // "!" as NOT, but not the start of "!="
+        private boolean acceptNot() {
+            skipWhitespace();
+            if (pos < src.length() && src.charAt(pos) == '!' && (pos + 1 >= src.length() || src.charAt(pos + 1) != '=')) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean accept(String token) {
+            skipWhitespace();
+            if (src.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private int skipWhitespace() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+            return pos;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return error(message, pos);
+        }
+
+        private IllegalArgumentException error(String message, int at) {
+            return new IllegalArgumentException("Invalid query at position " + (at + 1) + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.kafkaview.search;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+// Immutable index over a set of names (topics, consumer groups) for list filtering. Names are sorted in
+// natural order and identified by their position, so any ascending id array is already name-ordered
+// and a page is a slice of it. Contains, prefix and glob queries ignore case: prefixes are a binary
+// search over the case-folded order, substrings and glob fragments of 3+ characters intersect trigram
+// posting lists before the candidates are verified, and shorter ones scan. Regex queries scan every
+// name (find, case-sensitive). Safe to share between threads.
+public final class NameIndex {
+
+    public static final String CONTAINS = "contains";
+    public static final String PREFIX = "prefix";
+    public static final String GLOB = "glob";
+    public static final String REGEX = "regex";
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] names;
+    private final String[] folded;
+    private final int[] foldedOrder;            // Ids sorted by folded name
+    private final Map<Integer, int[]> trigrams; // Trigram hash -> ascending ids of the names containing it
+
+    private NameIndex(String[] names) {
+        this.names = names;
+        this.folded = new String[names.length];
+        // (trigram, id) pairs sorted once give every posting list in ascending id order
+        int pairs = 0;
+        for (int id = 0; id < names.length; id++) {
+            folded[id] = fold(names[id]);
+            pairs += Math.max(0, folded[id].length() - 2);
+        }
+        long[] entries = new long[pairs];
+        int n = 0;
+        for (int id = 0; id < names.length; id++) {
+            String f = folded[id];
+            for (int i = 0; i + 3 <= f.length(); i++) {
+                entries[n++] = ((long) trigram(f, i) << 32) | id;
+            }
+        }
+        Arrays.sort(entries);
+        this.trigrams = new HashMap<>();
+        IntBuffer ids = new IntBuffer();
+        for (int i = 0; i < n; i++) {
+            int id = (int) entries[i];
+            if (ids.size == 0 || ids.values[ids.size - 1] != id) ids.add(id);
+            if (i + 1 == n || (entries[i + 1] >>> 32) != (entries[i] >>> 32)) {
+                trigrams.put((int) (entries[i] >>> 32), ids.toArray());
+                ids.size = 0;
+            }
+        }
+        Integer[] order = new Integer[names.length];
+        for (int id = 0; id < order.length; id++) order[id] = id;
+        Arrays.sort(order, Comparator.comparing((Integer id) -> folded[id]));
+        this.foldedOrder = new int[order.length];
+        for (int i = 0; i < order.length; i++) foldedOrder[i] = order[i];
+    }
+
+    public static NameIndex of(Collection<String> names) {
+        String[] sorted = new TreeSet<>(names).toArray(new String[0]);
+        return new NameIndex(sorted);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    // Whether the index holds exactly these names, to reuse it instead of rebuilding
+    public boolean sameNames(Collection<String> other) {
+        if (other.size() != names.length) return false;
+        for (String name : other) {
+            if (Arrays.binarySearch(names, name) < 0) return false;
+        }
+        return true;
+    }
+
+    // Ascending ids of the names matching the query; an empty query matches all.
+    // mode is contains (default), prefix, glob (* and ?, whole name) or regex.
+    public int[] search(String mode, String query) {
+        if (query == null || query.isEmpty()) return all();
+        String m = mode == null || mode.isEmpty() ? CONTAINS : mode.toLowerCase();
+        return switch (m) {
+            case CONTAINS -> contains(fold(query));
+            case PREFIX -> prefix(fold(query));
+            case GLOB -> glob(fold(query));
+            case REGEX -> regex(query);
+            default -> throw new IllegalArgumentException("Unknown match mode " + mode + ", expected contains, prefix, glob or regex");
+        };
+    }
+
+    // The names of the ids, as a view
+    public List<String> list(int[] ids) {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return names[ids[index]];
+            }
+
+            @Override
+            public int size() {
+                return ids.length;
+            }
+        };
+    }
+
+    private int[] all() {
+        int[] ids = new int[names.length];
+        for (int id = 0; id < ids.length; id++) ids[id] = id;
+        return ids;
+    }
+
+    private int[] contains(String f) {
+        int[] candidates = candidates(List.of(f));
+        IntBuffer result = new IntBuffer();
+        for (int id : candidates) {
+            if (folded[id].contains(f)) result.add(id);
+        }
+        return result.toArray();
+    }
+
+    private int[] prefix(String f) {
+        int lo = 0;
+        int hi = foldedOrder.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (folded[foldedOrder[mid]].compareTo(f) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        int end = lo;
+        while (end < foldedOrder.length && folded[foldedOrder[end]].startsWith(f)) end++;
+        int[] ids = Arrays.copyOfRange(foldedOrder, lo, end);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private int[] glob(String f) {
+        StringBuilder regex = new StringBuilder();
+        List<String> fragments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < f.length(); i++) {
+            char c = f.charAt(i);
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    fragments.add(literal.toString());
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            fragments.add(literal.toString());
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        Pattern pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+        IntBuffer result = new IntBuffer();
+        for (int id : candidates(fragments)) {
+            if (pattern.matcher(folded[id]).matches()) result.add(id);
+        }
+        return result.toArray();
+    }
+
+    private int[] regex(String query) {
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(query);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid regex: " + e.getDescription());
+        }
+        IntBuffer result = new IntBuffer();
+        for (int id = 0; id < names.length; id++) {
+            if (pattern.matcher(names[id]).find()) result.add(id);
+        }
+        return result.toArray();
+    }
+
+    // Ids of the names containing every trigram of the fragments, shortest posting list first;
+    // all ids when no fragment is long enough to have one
+    private int[] candidates(List<String> fragments) {
+        List<int[]> lists = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (String fragment : fragments) {
+            for (int i = 0; i + 3 <= fragment.length(); i++) {
+                int trigram = trigram(fragment, i);
+                if (!seen.add(trigram)) continue;
+                int[] ids = trigrams.get(trigram);
+                if (ids == null) return NONE;
+                lists.add(ids);
+            }
+        }
+        if (lists.isEmpty()) return all();
+        lists.sort(Comparator.comparingInt(ids -> ids.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        IntBuffer result = new IntBuffer();
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result.add(a[i]);
+                i++;
+                j++;
+            }
+        }
+        return result.toArray();
+    }
+
+    private static String fold(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    // Exact for characters below 1024, hashed otherwise; collisions only add candidates that verification drops
+    private static int trigram(String s, int i) {
+        char a = s.charAt(i);
+        char b = s.charAt(i + 1);
+        char c = s.charAt(i + 2);
+        if ((a | b | c) < 1024) return (a << 20) | (b << 10) | c;
+        return 0x40000000 | ((a * 31 + b) * 31 + c) & 0x3fffffff;
+    }
+
+    private static final class IntBuffer {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
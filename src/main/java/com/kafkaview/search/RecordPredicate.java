@@ -0,0 +1,23 @@
+package com.kafkaview.search;
+
+// A compiled filter over raw records, see MessageQuery
+public interface RecordPredicate {
+
+    boolean test(RecordView record);
+
+    // Relative evaluation cost. AND/OR evaluate their cheapest children first so that
+    // metadata checks short-circuit before the payload is decoded or parsed.
+    int cost();
+
+    RecordPredicate ALWAYS = new RecordPredicate() {
+        @Override
+        public boolean test(RecordView record) {
+            return true;
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+    };
+}
@@ -0,0 +1,381 @@
+package com.kafkaview.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// Predicate implementations used by the query parser
+public final class RecordPredicates {
+
+    private static final int COST_METADATA = 1;
+    private static final int COST_HEADER = 2;
+    private static final int COST_KEY = 4;
+    private static final int COST_VALUE = 6;
+    private static final int COST_REGEX = 10;
+    private static final int COST_JSON = 20;
+
+    private RecordPredicates() {
+    }
+
+    public enum Op {
+        EQ("="), NE("!="), GT(">"), GE(">="), LT("<"), LE("<="), CONTAINS("~"), REGEX("=~");
+
+        final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean isComparison() {
+            return this != CONTAINS && this != REGEX;
+        }
+
+        boolean accept(int cmp) {
+            switch (this) {
+                case EQ: return cmp == 0;
+                case NE: return cmp != 0;
+                case GT: return cmp > 0;
+                case GE: return cmp >= 0;
+                case LT: return cmp < 0;
+                case LE: return cmp <= 0;
+                default: return false;
+            }
+        }
+    }
+
+    public enum MetadataField { TIMESTAMP, OFFSET, PARTITION }
+
+    // Flattens nested ANDs and orders the children by cost
+    public static RecordPredicate and(List<RecordPredicate> children) {
+        List<RecordPredicate> flat = new ArrayList<>();
+        for (RecordPredicate child : children) {
+            if (child == RecordPredicate.ALWAYS) continue;
+            if (child instanceof And) {
+                flat.addAll(Arrays.asList(((And) child).children));
+            } else {
+                flat.add(child);
+            }
+        }
+        if (flat.isEmpty()) return RecordPredicate.ALWAYS;
+        if (flat.size() == 1) return flat.get(0);
+        flat.sort(Comparator.comparingInt(RecordPredicate::cost));
+        return new And(flat.toArray(new RecordPredicate[0]));
+    }
+
+    public static RecordPredicate or(List<RecordPredicate> children) {
+        List<RecordPredicate> flat = new ArrayList<>();
+        for (RecordPredicate child : children) {
+            if (child == RecordPredicate.ALWAYS) return RecordPredicate.ALWAYS;
+            if (child instanceof Or) {
+                flat.addAll(Arrays.asList(((Or) child).children));
+            } else {
+                flat.add(child);
+            }
+        }
+        if (flat.size() == 1) return flat.get(0);
+        flat.sort(Comparator.comparingInt(RecordPredicate::cost));
+        return new Or(flat.toArray(new RecordPredicate[0]));
+    }
+
+    public static RecordPredicate not(RecordPredicate child) {
+        if (child instanceof Not) return ((Not) child).child;
+        return new Not(child);
+    }
+
+    public static RecordPredicate metadata(MetadataField field, Op op, long value) {
+        if (!op.isComparison()) {
+            throw new IllegalArgumentException("Operator " + op.symbol + " is not supported for " + field.name().toLowerCase());
+        }
+        return new Metadata(field, op, value);
+    }
+
+    public static RecordPredicate keyContains(String text) {
+        BytePattern pattern = BytePattern.compile(text);
+        return simple(COST_KEY, r -> pattern.matches(r.keyBytes()));
+    }
+
+    public static RecordPredicate valueContains(String text) {
+        BytePattern pattern = BytePattern.compile(text);
+        return simple(COST_VALUE, r -> pattern.matches(r.valueBytes()));
+    }
+
+    // Predicate on the key, the value or a header (headerName != null), compared as text
+    public static RecordPredicate text(String field, String headerName, Op op, String literal) {
+        boolean header = headerName != null;
+        boolean key = "key".equals(field);
+        int baseCost = header ? COST_HEADER : key ? COST_KEY : COST_VALUE;
+        switch (op) {
+            case CONTAINS: {
+                BytePattern pattern = BytePattern.compile(literal);
+                return simple(baseCost + 1, r -> pattern.matches(bytes(r, key, headerName)));
+            }
+            case REGEX: {
+                Pattern pattern = compileRegex(literal);
+                return simple(baseCost + COST_REGEX, r -> {
+                    String text = header ? decode(r.header(headerName)) : key ? r.keyText() : r.valueText();
+                    return text != null && pattern.matcher(text).find();
+                });
+            }
+            case EQ:
+            case NE: {
+                byte[] expected = literal.getBytes(StandardCharsets.UTF_8);
+                return simple(baseCost + 1, r -> {
+                    byte[] actual = bytes(r, key, headerName);
+                    return actual != null && Arrays.equals(actual, expected) == (op == Op.EQ);
+                });
+            }
+            default:
+                return simple(baseCost + 2, r -> {
+                    String text = header ? decode(r.header(headerName)) : key ? r.keyText() : r.valueText();
+                    return text != null && op.accept(text.compareTo(literal));
+                });
+        }
+    }
+
+    // Bare key/value tests for presence, a bare header for existence
+    public static RecordPredicate present(String field, String headerName) {
+        if (headerName != null) return simple(COST_HEADER, r -> r.hasHeader(headerName));
+        if ("key".equals(field)) return simple(COST_METADATA, r -> r.keyBytes() != null);
+        return simple(COST_METADATA, r -> r.valueBytes() != null);
+    }
+
+    // literal is a BigDecimal, String, Boolean or null
+    public static RecordPredicate json(JsonPath path, Op op, Object literal) {
+        switch (op) {
+            case CONTAINS: {
+                String needle = String.valueOf(literal);
+                return simple(COST_JSON + 1, r -> {
+                    JsonNode node = path.resolve(r.json());
+                    return isValue(node) && node.asText().contains(needle);
+                });
+            }
+            case REGEX: {
+                Pattern pattern = compileRegex(String.valueOf(literal));
+                return simple(COST_JSON + COST_REGEX, r -> {
+                    JsonNode node = path.resolve(r.json());
+                    return isValue(node) && pattern.matcher(node.asText()).find();
+                });
+            }
+            default:
+                return simple(COST_JSON, r -> {
+                    JsonNode node = path.resolve(r.json());
+                    if (node == null || node.isMissingNode()) return false;
+                    Integer cmp = compare(node, literal);
+                    if (cmp == null) return op == Op.NE;
+                    return op.accept(cmp);
+                });
+        }
+    }
+
+    public static RecordPredicate jsonPresent(JsonPath path) {
+        return simple(COST_JSON, r -> {
+            JsonNode node = path.resolve(r.json());
+            return node != null && !node.isMissingNode() && !node.isNull();
+        });
+    }
+
+    private static boolean isValue(JsonNode node) {
+        return node != null && node.isValueNode() && !node.isNull();
+    }
+
+    // null when the node and the literal have incomparable types
+    private static Integer compare(JsonNode node, Object literal) {
+        if (literal == null) {
+            return node.isNull() ? 0 : null;
+        }
+        if (literal instanceof BigDecimal) {
+            if (node.isNumber()) return node.decimalValue().compareTo((BigDecimal) literal);
+            if (node.isTextual()) {
+                try {
+                    return new BigDecimal(node.asText().trim()).compareTo((BigDecimal) literal);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+        if (literal instanceof Boolean) {
+            return node.isBoolean() ? Boolean.compare(node.booleanValue(), (Boolean) literal) : null;
+        }
+        if (!node.isValueNode() || node.isNull()) return null;
+        return node.asText().compareTo((String) literal);
+    }
+
+    private static byte[] bytes(RecordView r, boolean key, String headerName) {
+        if (headerName != null) return r.header(headerName);
+        return key ? r.keyBytes() : r.valueBytes();
+    }
+
+    private static String decode(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Pattern compileRegex(String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid regular expression: " + regex);
+        }
+    }
+
+    private static RecordPredicate simple(int cost, Predicate<RecordView> test) {
+        return new RecordPredicate() {
+            @Override
+            public boolean test(RecordView record) {
+                return test.test(record);
+            }
+
+            @Override
+            public int cost() {
+                return cost;
+            }
+        };
+    }
+
+    static final class And implements RecordPredicate {
+        final RecordPredicate[] children;
+        private final int cost;
+
+        And(RecordPredicate[] children) {
+            this.children = children;
+            this.cost = Arrays.stream(children).mapToInt(RecordPredicate::cost).sum();
+        }
+
+        @Override
+        public boolean test(RecordView record) {
+            for (RecordPredicate child : children) {
+                if (!child.test(record)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+    }
+
+    static final class Or implements RecordPredicate {
+        final RecordPredicate[] children;
+        private final int cost;
+
+        Or(RecordPredicate[] children) {
+            this.children = children;
+            this.cost = Arrays.stream(children).mapToInt(RecordPredicate::cost).sum();
+        }
+
+        @Override
+        public boolean test(RecordView record) {
+            for (RecordPredicate child : children) {
+                if (child.test(record)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+    }
+
+    static final class Not implements RecordPredicate {
+        final RecordPredicate child;
+
+        Not(RecordPredicate child) {
+            this.child = child;
+        }
+
+        @Override
+        public boolean test(RecordView record) {
+            return !child.test(record);
+        }
+
+        @Override
+        public int cost() {
+            return child.cost();
+        }
+    }
+
+    static final class Metadata implements RecordPredicate {
+        final MetadataField field;
+        final Op op;
+        final long value;
+
+        Metadata(MetadataField field, Op op, long value) {
+            this.field = field;
+            this.op = op;
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(RecordView record) {
+            long actual;
+            switch (field) {
+                case TIMESTAMP: actual = record.timestamp(); break;
+                case OFFSET: actual = record.offset(); break;
+                default: actual = record.partition();
+            }
+            return op.accept(Long.compare(actual, value));
+        }
+
+        @Override
+        public int cost() {
+            return COST_METADATA;
+        }
+    }
+
+    // Subset of JSONPath: $.field.nested[0].other
+    public static final class JsonPath {
+        private final Object[] segments; // String field names or Integer array indexes
+
+        private JsonPath(Object[] segments) {
+            this.segments = segments;
+        }
+
+        public static JsonPath compile(String path) {
+            if (!path.startsWith("$")) {
+                throw new IllegalArgumentException("JSON path must start with $: " + path);
+            }
+            List<Object> segments = new ArrayList<>();
+            int i = 1;
+            while (i < path.length()) {
+                char c = path.charAt(i);
+                if (c == '.') {
+                    int start = ++i;
+                    while (i < path.length() && path.charAt(i) != '.' && path.charAt(i) != '[') i++;
+                    if (i == start) throw new IllegalArgumentException("Empty field name in JSON path: " + path);
+                    segments.add(path.substring(start, i));
+                } else if (c == '[') {
+                    int close = path.indexOf(']', i);
+                    if (close < 0) throw new IllegalArgumentException("Unclosed [ in JSON path: " + path);
+                    String index = path.substring(i + 1, close).trim();
+                    try {
+                        segments.add(Integer.parseInt(index));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid array index in JSON path: " + path);
+                    }
+                    i = close + 1;
+                } else {
+                    throw new IllegalArgumentException("Unexpected '" + c + "' in JSON path: " + path);
+                }
+            }
+            return new JsonPath(segments.toArray());
+        }
+
+        JsonNode resolve(JsonNode root) {
+            JsonNode node = root;
+            for (Object segment : segments) {
+                if (node == null || node.isMissingNode()) return node;
+                node = segment instanceof Integer ? node.path((Integer) segment) : node.path((String) segment);
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.kafkaview.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// A raw record as seen by query predicates. Decoding and JSON parsing happen at most once per record
+// and only when a predicate asks for them.
+public final class RecordView {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ConsumerRecord<byte[], byte[]> record;
+    private String keyText;
+    private String valueText;
+    private JsonNode json;
+
+    public RecordView(ConsumerRecord<byte[], byte[]> record) {
+        this.record = record;
+    }
+
+    public int partition() {
+        return record.partition();
+    }
+
+    public long offset() {
+        return record.offset();
+    }
+
+    public long timestamp() {
+        return record.timestamp();
+    }
+
+    public byte[] keyBytes() {
+        return record.key();
+    }
+
+    public byte[] valueBytes() {
+        return record.value();
+    }
+
+    public String keyText() {
+        if (keyText == null && record.key() != null) {
+            keyText = new String(record.key(), StandardCharsets.UTF_8);
+        }
+        return keyText;
+    }
+
+    public String valueText() {
+        if (valueText == null && record.value() != null) {
+            valueText = new String(record.value(), StandardCharsets.UTF_8);
+        }
+        return valueText;
+    }
+
+    // The value parsed as JSON, or a missing node when it is not JSON
+    public JsonNode json() {
+        if (json == null) {
+            byte[] value = record.value();
+            try {
+                json = value == null ? MissingNode.getInstance() : MAPPER.readTree(value);
+            } catch (IOException e) {
+                json = MissingNode.getInstance();
+            }
+            if (json == null) json = MissingNode.getInstance();
+        }
+        return json;
+    }
+
+    // Value of the last header with this name, or null
+    public byte[] header(String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : header.value();
+    }
+
+    public boolean hasHeader(String name) {
+        return record.headers().lastHeader(name) != null;
+    }
+}
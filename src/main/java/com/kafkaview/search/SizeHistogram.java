@@ -0,0 +1,75 @@
+package com.kafkaview.search;
+
+// Streaming histogram of sizes in power-of-two buckets: bucket 0 holds 0, bucket i holds [2^(i-1), 2^i).
+// Fixed memory whatever the number of values; quantiles are interpolated within their bucket.
+// Not thread-safe.
+public final class SizeHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void add(long size) {
+        long value = Math.max(0, size);
+        counts[BUCKETS - Long.numberOfLeadingZeros(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long sum() {
+        return sum;
+    }
+
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public int buckets() {
+        return BUCKETS;
+    }
+
+    public long bucketCount(int bucket) {
+        return counts[bucket];
+    }
+
+    // Inclusive lower and exclusive upper bound of a bucket
+    public static long bucketFrom(int bucket) {
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+
+    public static long bucketTo(int bucket) {
+        return bucket == 0 ? 1 : bucket >= 63 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    // q within [0, 1]
+    public long quantile(double q) {
+        if (count == 0) return 0;
+        double rank = q * count;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] == 0) continue;
+            if (seen + counts[i] >= rank) {
+                long from = Math.max(bucketFrom(i), min);
+                long to = Math.min(bucketTo(i), max);
+                double within = (rank - seen) / counts[i];
+                return Math.min(max, Math.max(min, from + Math.round((to - from) * within)));
+            }
+            seen += counts[i];
+        }
+        return max;
+    }
+}
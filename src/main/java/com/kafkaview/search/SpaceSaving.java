@@ -0,0 +1,124 @@
+package com.kafkaview.search;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+// Heavy hitters of a key stream with a fixed number of counters (Space-Saving). A key that is not
+// tracked replaces the smallest counter and inherits its count as error, so every key seen more than
+// total / capacity times is tracked and no count is off by more than its error. The counters are kept
+// in a min-heap for O(log capacity) updates. Keys are held by reference. Not thread-safe.
+public final class SpaceSaving {
+
+    private final Map<ByteBuffer, Counter> counters;
+    private final Counter[] heap;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        this.heap = new Counter[capacity];
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(byte[] key) {
+        ByteBuffer id = ByteBuffer.wrap(key);
+        Counter counter = counters.get(id);
+        if (counter != null) {
+            counter.count++;
+            siftDown(counter.index);
+            return;
+        }
+        if (size < heap.length) {
+            counter = new Counter(key, 1, 0);
+            counter.index = size;
+            heap[size++] = counter;
+            counters.put(id, counter);
+            siftUp(counter.index);
+            return;
+        }
+        Counter min = heap[0];
+        counters.remove(ByteBuffer.wrap(min.key));
+        counter = new Counter(key, min.count + 1, min.count);
+        counter.index = 0;
+        heap[0] = counter;
+        counters.put(id, counter);
+        siftDown(0);
+    }
+
+    // The n largest counters, largest first
+    public List<Entry> top(int n) {
+        List<Counter> sorted = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) sorted.add(heap[i]);
+        sorted.sort((a, b) -> Long.compare(b.count, a.count));
+        List<Entry> entries = new ArrayList<>(Math.min(n, sorted.size()));
+        for (Counter c : sorted.subList(0, Math.min(n, sorted.size()))) {
+            entries.add(new Entry(c.key, c.count, c.error));
+        }
+        return entries;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= heap[i].count) return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) return;
+            int smallest = left + 1 < size && heap[left + 1].count < heap[left].count ? left + 1 : left;
+            if (heap[i].count <= heap[smallest].count) return;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Counter t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+        heap[a].index = a;
+        heap[b].index = b;
+    }
+
+    private static final class Counter {
+        final byte[] key;
+        long count;
+        final long error;
+        int index;
+
+        Counter(byte[] key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    public static final class Entry {
+        private final byte[] key;
+        private final long count;
+        private final long error;
+
+        Entry(byte[] key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public byte[] key() {
+            return key;
+        }
+
+        // Upper bound of the occurrences; at least count - error
+        public long count() {
+            return count;
+        }
+
+        public long error() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.kafkaview.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Keeps the first `capacity` items of a stream in `order`, using O(capacity) memory.
+// The heap is ordered worst-first so the item to evict is always at the head. Thread-safe.
+public final class TopKCollector<T> {
+
+    private final int capacity;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+    private long offered;
+
+    public TopKCollector(int capacity, Comparator<? super T> order) {
+        this.capacity = Math.max(0, capacity);
+        this.order = order;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(this.capacity, 1024)), order.reversed());
+    }
+
+    public synchronized void offer(T item) {
+        offered++;
+        if (capacity == 0) return;
+        if (heap.size() < capacity) {
+            heap.add(item);
+        } else if (order.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    // Number of items offered so far, including the ones that were dropped
+    public synchronized long offered() {
+        return offered;
+    }
+
+    public synchronized List<T> toSortedList() {
+        List<T> list = new ArrayList<>(heap);
+        list.sort(order);
+        return list;
+    }
+}
@@ -0,0 +1,141 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.MetadataProperties;
+import com.kafkaview.event.ClusterChangedEvent;
+import com.kafkaview.model.AdminCallStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Single-flight layer in front of the shared AdminClients: concurrent identical requests (same cluster,
+// operation and arguments) get the same in-flight future, and a successful result is handed out again
+// for a short window after it completes, so many viewers of the same page cost one broker round trip.
+// Failures are never reused. Results are shared between callers and must be treated as read-only.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AdminCallCoalescer {
+
+    private final KafkaAdminService kafkaAdminService;
+    private final MetadataProperties metadataProperties;
+
+    // (clusterId, operation, args) -> in-flight or recently completed call
+    private final Map<List<Object>, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+
+    // args must compare by value (strings, sets of partitions, ...) and identify the request completely
+    @SuppressWarnings("unchecked")
+    public <T> KafkaFuture<T> share(Long clusterId, String operation, Object args, Function<AdminClient, KafkaFuture<T>> call) {
+        List<Object> key = Arrays.asList(clusterId, operation, args);
+        Flight existing = flights.get(key);
+        long now = System.currentTimeMillis();
+        if (existing != null && existing.reusable(now, window())) {
+            shared.incrementAndGet();
+            return (KafkaFuture<T>) existing.future;
+        }
+        AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
+        Flight[] started = new Flight[1];
+        Flight flight = flights.compute(key, (k, current) -> {
+            if (current != null && current.reusable(now, window())) return current;
+            started[0] = new Flight(call.apply(admin));
+            return started[0];
+        });
+        if (started[0] == null) {
+            shared.incrementAndGet();
+            return (KafkaFuture<T>) flight.future;
+        }
+        issued.incrementAndGet();
+        // Registered outside compute: an already completed future runs the callback right here
+        flight.future.whenComplete((value, error) -> {
+            if (error != null || window() <= 0) {
+                flights.remove(key, flight);
+            } else {
+                flight.completedAt = System.currentTimeMillis();
+            }
+        });
+        return (KafkaFuture<T>) flight.future;
+    }
+
+    public KafkaFuture<Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo>> earliestOffsets(Long clusterId, Collection<TopicPartition> tps) {
+        return listOffsets(clusterId, tps, "earliest", OffsetSpec::earliest);
+    }
+
+    public KafkaFuture<Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo>> latestOffsets(Long clusterId, Collection<TopicPartition> tps) {
+        return listOffsets(clusterId, tps, "latest", OffsetSpec::latest);
+    }
+
+    public AdminCallStats stats() {
+        long now = System.currentTimeMillis();
+        int inFlight = 0;
+        for (Flight flight : flights.values()) {
+            if (!flight.future.isDone()) inFlight++;
+        }
+        return AdminCallStats.builder()
+                .windowMs(window())
+                .issued(issued.get())
+                .shared(shared.get())
+                .inFlight(inFlight)
+                .reusable((int) flights.values().stream().filter(f -> f.future.isDone() && f.reusable(now, window())).count())
+                .build();
+    }
+
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        evictCluster(event.getClusterId());
+    }
+
+    public void evictCluster(Long clusterId) {
+        if (clusterId == null) return;
+        flights.keySet().removeIf(key -> clusterId.equals(key.get(0)));
+    }
+
+    // Completed calls past the reuse window are replaced on the next request anyway; this drops the
+    // ones nobody asks for again
+    @Scheduled(fixedDelay = 5000)
+    public void expire() {
+        long now = System.currentTimeMillis();
+        flights.entrySet().removeIf(e -> e.getValue().future.isDone() && !e.getValue().reusable(now, window()));
+    }
+
+    private KafkaFuture<Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo>> listOffsets(Long clusterId, Collection<TopicPartition> tps, String specName, Supplier<OffsetSpec> spec) {
+        Set<TopicPartition> partitions = new HashSet<>(tps);
+        return share(clusterId, "listOffsets." + specName, partitions, admin -> {
+            Map<TopicPartition, OffsetSpec> specs = new HashMap<>();
+            partitions.forEach(tp -> specs.put(tp, spec.get()));
+            return admin.listOffsets(specs).all();
+        });
+    }
+
+    private long window() {
+        return metadataProperties.getCoalesceWindowMs();
+    }
+
+    private static final class Flight {
+        final KafkaFuture<?> future;
+        volatile long completedAt;      // 0 until completed successfully
+
+        Flight(KafkaFuture<?> future) {
+            this.future = future;
+        }
+
+        // In flight, or completed successfully within the window
+        boolean reusable(long now, long window) {
+            if (!future.isDone()) return true;
+            return completedAt > 0 && !future.isCompletedExceptionally() && now - completedAt <= window;
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.kafkaview.service;
 
 import com.kafkaview.entity.ClusterInfo;
+import com.kafkaview.event.ClusterChangedEvent;
 import com.kafkaview.mapper.ClusterInfoMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,6 +15,7 @@ import java.util.List;
 public class ClusterService {
 
     private final ClusterInfoMapper clusterInfoMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<ClusterInfo> getAllClusters() {
         return clusterInfoMapper.selectAll();
@@ -33,10 +36,12 @@ public class ClusterService {
     @Transactional
     public void updateCluster(ClusterInfo clusterInfo) {
         clusterInfoMapper.update(clusterInfo);
+        eventPublisher.publishEvent(new ClusterChangedEvent(clusterInfo.getId(), false));
     }
 
     @Transactional
     public void deleteCluster(Long id) {
         clusterInfoMapper.deleteById(id);
+        eventPublisher.publishEvent(new ClusterChangedEvent(id, true));
     }
 }
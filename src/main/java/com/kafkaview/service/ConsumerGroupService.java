@@ -3,6 +3,7 @@ package com.kafkaview.service;
 import com.kafkaview.model.ConsumerGroupInfo;
 import com.kafkaview.model.MemberInfo;
 import com.kafkaview.model.PageResult;
+import com.kafkaview.search.NameIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.*;
@@ -22,99 +23,66 @@ import java.util.stream.Collectors;
 public class ConsumerGroupService {
 
     private final KafkaAdminService kafkaAdminService;
+    private final TopicMetadataCache topicMetadataCache;
+    private final TopicGroupIndex topicGroupIndex;
+    private final AdminCallCoalescer adminCallCoalescer;
 
-    public PageResult<ConsumerGroupInfo> listConsumerGroups(Long clusterId, int page, int pageSize, String keyword, String topic) throws ExecutionException, InterruptedException {
+    // keyword is matched through a name index over the groups (match: contains, prefix, glob or regex)
+    public PageResult<ConsumerGroupInfo> listConsumerGroups(Long clusterId, int page, int pageSize, String keyword, String match, String topic) throws ExecutionException, InterruptedException {
         AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
 
-        // 1. List all groups
-        Collection<ConsumerGroupListing> listings = admin.listConsumerGroups().all().get();
+        // 1. List all groups (shared with concurrent identical listings)
+        Collection<ConsumerGroupListing> listings = adminCallCoalescer.share(clusterId, "listConsumerGroups", null,
+                a -> a.listConsumerGroups().all()).get();
 
-        // 2. Filter by keyword (Group ID)
-        List<String> candidateGroupIds = listings.stream()
+        // 2. Filter by keyword (Group ID), already sorted by the index
+        List<String> allGroupIds = listings.stream()
                 .map(ConsumerGroupListing::groupId)
-                .filter(id -> !StringUtils.hasText(keyword) || id.toLowerCase().contains(keyword.toLowerCase()))
-                .sorted()
                 .collect(Collectors.toList());
+        NameIndex names = topicGroupIndex.groupNames(clusterId, allGroupIds);
+        List<String> candidateGroupIds = names.list(names.search(match, keyword));
 
-        // 3. Describe groups to filter by topic (if needed) and get details
+        // 3. Filter by topic through the topic -> group index; groups created since its last sweep are indexed now.
+        // Before the first sweep of the cluster has finished that would be every group, so the page is
+        // served from what is indexed so far and marked partial instead.
         List<String> filteredGroupIds = candidateGroupIds;
-        Map<String, ConsumerGroupDescription> descriptionsMap = new HashMap<>();
-        Map<String, KafkaFuture<Map<TopicPartition, OffsetAndMetadata>>> offsetsFutures = new HashMap<>();
-        
-        if (!candidateGroupIds.isEmpty()) {
-             // Batch describe with partial failure handling
-             Map<String, KafkaFuture<ConsumerGroupDescription>> futures = admin.describeConsumerGroups(candidateGroupIds).describedGroups();
-             
-             // If topic filter is enabled, we also need to check committed offsets to find inactive groups
-             if (StringUtils.hasText(topic)) {
-                 try {
-                     DescribeTopicsResult describeTopics = admin.describeTopics(Collections.singleton(topic));
-                     TopicDescription td = describeTopics.all().get().get(topic);
-                     List<TopicPartition> topicPartitions = td.partitions().stream()
-                             .map(p -> new TopicPartition(topic, p.partition()))
-                             .collect(Collectors.toList());
-                             
-                     for (String groupId : candidateGroupIds) {
-                         offsetsFutures.put(groupId, admin.listConsumerGroupOffsets(groupId, 
-                                 new ListConsumerGroupOffsetsOptions().topicPartitions(topicPartitions)).partitionsToOffsetAndMetadata());
-                     }
-                 } catch (Exception e) {
-                     log.warn("Failed to describe topic {} for filtering", topic, e);
-                 }
-             }
-
-             for (Map.Entry<String, KafkaFuture<ConsumerGroupDescription>> entry : futures.entrySet()) {
-                 try {
-                     descriptionsMap.put(entry.getKey(), entry.getValue().get());
-                 } catch (Exception e) {
-                     log.warn("Failed to describe group {}: {}", entry.getKey(), e.getMessage());
-                 }
-             }
-             
-             if (StringUtils.hasText(topic)) {
-                 final Map<String, ConsumerGroupDescription> finalDescriptionsMap = descriptionsMap;
-                 filteredGroupIds = new ArrayList<>();
-                 
-                 for (String groupId : candidateGroupIds) {
-                     boolean match = false;
-                     
-                     // 1. Check active members
-                     ConsumerGroupDescription desc = finalDescriptionsMap.get(groupId);
-                     if (desc != null) {
-                         if (desc.members().stream()
-                                 .anyMatch(m -> m.assignment().topicPartitions().stream()
-                                         .anyMatch(tp -> tp.topic().equals(topic)))) {
-                             match = true;
-                         }
-                     }
-                     
-                     // 2. Check committed offsets
-                     if (!match && offsetsFutures.containsKey(groupId)) {
-                         try {
-                             Map<TopicPartition, OffsetAndMetadata> offsets = offsetsFutures.get(groupId).get();
-                             if (offsets != null && offsets.values().stream().anyMatch(Objects::nonNull)) {
-                                 match = true;
-                             }
-                         } catch (Exception e) {
-                             // ignore
-                         }
-                     }
-                     
-                     if (match) {
-                         filteredGroupIds.add(groupId);
-                     }
-                 }
-             }
+        boolean partial = false;
+        if (StringUtils.hasText(topic)) {
+            if (topicGroupIndex.isComplete(clusterId)) {
+                List<String> unindexed = candidateGroupIds.stream()
+                        .filter(id -> topicGroupIndex.needsIndexing(clusterId, id))
+                        .collect(Collectors.toList());
+                if (!unindexed.isEmpty()) {
+                    topicGroupIndex.indexGroups(clusterId, unindexed);
+                }
+            } else {
+                partial = true;
+            }
+            Set<String> topicGroups = topicGroupIndex.groups(clusterId, topic);
+            filteredGroupIds = candidateGroupIds.stream()
+                    .filter(topicGroups::contains)
+                    .collect(Collectors.toList());
         }
         
         // 4. Pagination
         int total = filteredGroupIds.size();
         int start = (page - 1) * pageSize;
         if (start >= total) {
-            return new PageResult<>(Collections.emptyList(), total, page, pageSize);
+            return new PageResult<>(Collections.emptyList(), total, page, pageSize, partial);
         }
         int end = Math.min(start + pageSize, total);
         List<String> pageGroupIds = filteredGroupIds.subList(start, end);
+
+        // Describe only the groups on the page, with partial failure handling
+        Map<String, ConsumerGroupDescription> descriptionsMap = new HashMap<>();
+        Map<String, KafkaFuture<ConsumerGroupDescription>> futures = admin.describeConsumerGroups(pageGroupIds).describedGroups();
+        for (Map.Entry<String, KafkaFuture<ConsumerGroupDescription>> entry : futures.entrySet()) {
+            try {
+                descriptionsMap.put(entry.getKey(), entry.getValue().get());
+            } catch (Exception e) {
+                log.warn("Failed to describe group {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
         
         // 5. Enrich details (Lag, etc.) for the page
         List<ConsumerGroupInfo> resultList = new ArrayList<>();
@@ -124,19 +92,13 @@ public class ConsumerGroupService {
         
         if (StringUtils.hasText(topic) && !pageGroupIds.isEmpty()) {
             try {
-                DescribeTopicsResult describeTopics = admin.describeTopics(Collections.singleton(topic));
-                TopicDescription td = describeTopics.all().get().get(topic);
+                TopicDescription td = topicMetadataCache.topic(clusterId, topic);
                 List<TopicPartition> tps = td.partitions().stream()
                         .map(p -> new TopicPartition(topic, p.partition()))
                         .collect(Collectors.toList());
                 
-                Map<TopicPartition, OffsetSpec> endSpecs = tps.stream()
-                        .collect(Collectors.toMap(tp -> tp, tp -> OffsetSpec.latest()));
-                Map<TopicPartition, OffsetSpec> startSpecs = tps.stream()
-                        .collect(Collectors.toMap(tp -> tp, tp -> OffsetSpec.earliest()));
-                
-                var endFuture = admin.listOffsets(endSpecs).all();
-                var startFuture = admin.listOffsets(startSpecs).all();
+                var endFuture = adminCallCoalescer.latestOffsets(clusterId, tps);
+                var startFuture = adminCallCoalescer.earliestOffsets(clusterId, tps);
                 
                 endFuture.get().forEach((tp, info) -> logEndOffsets.put(tp, info.offset()));
                 startFuture.get().forEach((tp, info) -> logStartOffsets.put(tp, info.offset()));
@@ -145,12 +107,12 @@ public class ConsumerGroupService {
             }
         }
 
-        // Fire offset requests for all groups in page if not already fetched
+        // Fire offset requests for all groups in page
+        Map<String, KafkaFuture<Map<TopicPartition, OffsetAndMetadata>>> offsetsFutures = new HashMap<>();
         if (StringUtils.hasText(topic) && !pageGroupIds.isEmpty()) {
              for (String groupId : pageGroupIds) {
-                 if (!offsetsFutures.containsKey(groupId)) {
-                     offsetsFutures.put(groupId, admin.listConsumerGroupOffsets(groupId).partitionsToOffsetAndMetadata());
-                 }
+                 offsetsFutures.put(groupId, adminCallCoalescer.share(clusterId, "listConsumerGroupOffsets", groupId,
+                         a -> a.listConsumerGroupOffsets(groupId).partitionsToOffsetAndMetadata()));
              }
         }
 
@@ -226,6 +188,6 @@ public class ConsumerGroupService {
                     .build());
         }
 
-        return new PageResult<>(resultList, total, page, pageSize);
+        return new PageResult<>(resultList, total, page, pageSize, partial);
     }
 }
@@ -1,6 +1,7 @@
 package com.kafkaview.service;
 
 import com.kafkaview.entity.ClusterInfo;
+import com.kafkaview.event.ClusterChangedEvent;
 import com.kafkaview.mapper.ClusterInfoMapper;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,9 @@ import org.apache.kafka.common.Node;
 import org.apache.kafka.common.config.ConfigResource;
 import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.errors.UnsupportedVersionException;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -162,6 +166,13 @@ public class KafkaAdminService {
         return props;
     }
 
+    // Runs first, so listeners that reconnect get a client with the new settings
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        closeClient(event.getClusterId());
+    }
+
     public void closeClient(Long clusterId) {
         if (clusterId == null) return;
         AdminClient client = adminClientCache.remove(clusterId);
@@ -0,0 +1,369 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.event.ClusterChangedEvent;
+import com.kafkaview.mapper.KeyIndexTopicMapper;
+import com.kafkaview.model.KeyIndexStatus;
+import com.kafkaview.model.KeyIndexTopic;
+import com.kafkaview.model.TopicMessage;
+import com.kafkaview.search.KeyOffsetTable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.*;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Optional per-topic index of key -> (partition, offset) of the latest record with that key.
+// Each indexed topic is tailed by its own consumer from the beginning; entries are kept in a
+// memory-mapped KeyOffsetTable and progress in a small positions file next to it, so a restart
+// continues where it stopped. A lookup is then one seek and one fetch instead of a topic scan.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class KeyIndexService {
+
+    private static final int INITIAL_SLOTS = 1 << 16;
+    private static final long PARTITION_REFRESH_MS = 60000;
+
+    private final KafkaAdminService kafkaAdminService;
+    private final KeyIndexTopicMapper keyIndexTopicMapper;
+    private final SearchProperties searchProperties;
+    private final PayloadDecoderService payloadDecoderService;
+    private final MessageSearchService messageSearchService;
+
+    // "cluster/topic" -> indexer
+    private final Map<String, Indexer> indexers = new ConcurrentHashMap<>();
+    private final AtomicInteger threadSeq = new AtomicInteger();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "kafka-view-key-index-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Files.createDirectories(Paths.get(searchProperties.getKeyIndexDir()));
+            for (KeyIndexTopic topic : keyIndexTopicMapper.selectAll()) {
+                start(topic.getClusterId(), topic.getTopicName());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to start key indexers: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexers.values().forEach(Indexer::stop);
+        executor.shutdownNow();
+    }
+
+    public void enable(Long clusterId, String topicName) {
+        keyIndexTopicMapper.insert(clusterId, topicName);
+        start(clusterId, topicName);
+    }
+
+    public void disable(Long clusterId, String topicName) {
+        keyIndexTopicMapper.delete(clusterId, topicName);
+        Indexer indexer = indexers.remove(id(clusterId, topicName));
+        if (indexer != null) {
+            indexer.stop();
+            indexer.deleteFiles();
+        }
+    }
+
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        if (event.isRemoved()) {
+            removeCluster(event.getClusterId());
+        } else {
+            restartCluster(event.getClusterId());
+        }
+    }
+
+    // Connection settings changed: reconnect with the new ones and keep what was indexed
+    public void restartCluster(Long clusterId) {
+        for (Indexer indexer : stopCluster(clusterId)) {
+            start(indexer.clusterId, indexer.topicName);
+        }
+    }
+
+    public void removeCluster(Long clusterId) {
+        keyIndexTopicMapper.deleteByCluster(clusterId);
+        stopCluster(clusterId).forEach(Indexer::deleteFiles);
+        try {
+            Files.deleteIfExists(Paths.get(searchProperties.getKeyIndexDir(), String.valueOf(clusterId)));
+        } catch (IOException e) {
+            log.debug("Failed to delete key index directory of cluster {}: {}", clusterId, e.getMessage());
+        }
+    }
+
+    public List<KeyIndexStatus> list(Long clusterId) {
+        List<KeyIndexStatus> result = new ArrayList<>();
+        for (Indexer indexer : indexers.values()) {
+            if (indexer.clusterId.equals(clusterId)) result.add(indexer.status());
+        }
+        result.sort(Comparator.comparing(KeyIndexStatus::getTopicName));
+        return result;
+    }
+
+    // Null when the topic is not indexed
+    public KeyIndexStatus status(Long clusterId, String topicName) {
+        Indexer indexer = indexers.get(id(clusterId, topicName));
+        return indexer != null ? indexer.status() : null;
+    }
+
+    // Latest record with exactly this key, or null. Records the indexer has not reached yet are not found.
+    public TopicMessage getByKey(Long clusterId, String topicName, String key) {
+        Indexer indexer = indexers.get(id(clusterId, topicName));
+        if (indexer == null) {
+            throw new IllegalArgumentException("Topic " + topicName + " has no key index");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        KeyOffsetTable.Location location = indexer.lookup(KeyOffsetTable.hash(keyBytes));
+        if (location == null) return null;
+
+        ConsumerRecord<byte[], byte[]> record = messageSearchService.fetchRecord(clusterId, new TopicPartition(topicName, location.partition()), location.offset());
+        // No record means it is gone; another key, a hash collision
+        if (record == null || !Arrays.equals(record.key(), keyBytes)) return null;
+        return payloadDecoderService.toFullMessage(clusterId, record);
+    }
+
+    // Indexers stop on errors such as an unreachable cluster; try them again
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void restartFailed() {
+        for (Indexer indexer : new ArrayList<>(indexers.values())) {
+            if (indexer.error != null && indexers.remove(id(indexer.clusterId, indexer.topicName), indexer)) {
+                start(indexer.clusterId, indexer.topicName);
+            }
+        }
+    }
+
+    private synchronized void start(Long clusterId, String topicName) {
+        String id = id(clusterId, topicName);
+        if (indexers.containsKey(id)) return;
+        // One directory per cluster: topic names cannot contain '/', so the file names cannot collide
+        Path dir = Paths.get(searchProperties.getKeyIndexDir(), String.valueOf(clusterId));
+        Indexer indexer = new Indexer(clusterId, topicName, dir.resolve(topicName + ".idx"), dir.resolve(topicName + ".pos"));
+        indexers.put(id, indexer);
+        executor.execute(indexer);
+    }
+
+    private List<Indexer> stopCluster(Long clusterId) {
+        List<Indexer> stopped = new ArrayList<>();
+        for (Iterator<Indexer> it = indexers.values().iterator(); it.hasNext(); ) {
+            Indexer indexer = it.next();
+            if (!indexer.clusterId.equals(clusterId)) continue;
+            it.remove();
+            indexer.stop();
+            stopped.add(indexer);
+        }
+        return stopped;
+    }
+
+    private KafkaConsumer<byte[], byte[]> createConsumer(Long clusterId) {
+        Properties props = kafkaAdminService.getClusterProperties(clusterId);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "kafka-view-key-index-" + UUID.randomUUID());
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, "kafka-view-key-index-" + clusterId + "-" + threadSeq.get());
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return new KafkaConsumer<>(props);
+    }
+
+    private static String id(Long clusterId, String topicName) {
+        return clusterId + "/" + topicName;
+    }
+
+    private class Indexer implements Runnable {
+        final Long clusterId;
+        final String topicName;
+        final Path tableFile;
+        final Path positionsFile;
+        // Next offset to index per partition, as of the last flush
+        final Map<Integer, Long> positions = new ConcurrentHashMap<>();
+        volatile boolean stopped;
+        volatile String error;
+        volatile long lag;
+        private volatile KafkaConsumer<byte[], byte[]> consumer;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private KeyOffsetTable table;
+
+        Indexer(Long clusterId, String topicName, Path tableFile, Path positionsFile) {
+            this.clusterId = clusterId;
+            this.topicName = topicName;
+            this.tableFile = tableFile;
+            this.positionsFile = positionsFile;
+        }
+
+        @Override
+        public void run() {
+            try {
+                synchronized (this) {
+                    Files.createDirectories(tableFile.getParent());
+                    table = KeyOffsetTable.open(tableFile, INITIAL_SLOTS);
+                }
+                loadPositions();
+                consumer = createConsumer(clusterId);
+                if (stopped) return;
+                index(consumer);
+            } catch (WakeupException e) {
+                // stop() interrupted a poll
+            } catch (Exception e) {
+                if (!stopped) {
+                    error = e.getMessage() != null ? e.getMessage() : e.toString();
+                    log.warn("Key indexer for {} stopped: {}", topicName, error);
+                }
+            } finally {
+                KafkaConsumer<byte[], byte[]> c = consumer;
+                if (c != null) c.close(Duration.ofSeconds(5));
+                synchronized (this) {
+                    try {
+                        if (table != null) table.close();
+                    } catch (IOException e) {
+                        log.debug("Failed to close key index of {}: {}", topicName, e.getMessage());
+                    }
+                    table = null;
+                }
+                done.countDown();
+            }
+        }
+
+        private void index(KafkaConsumer<byte[], byte[]> consumer) throws IOException {
+            List<TopicPartition> tps = Collections.emptyList();
+            long lastRefresh = 0;
+            long lastFlush = System.currentTimeMillis();
+            while (!stopped) {
+                long now = System.currentTimeMillis();
+                if (now - lastRefresh > PARTITION_REFRESH_MS) {
+                    tps = assign(consumer, tps);
+                    lastRefresh = now;
+                }
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofSeconds(1));
+                if (!records.isEmpty()) {
+                    synchronized (this) {
+                        for (ConsumerRecord<byte[], byte[]> record : records) {
+                            if (record.key() != null) {
+                                table.put(KeyOffsetTable.hash(record.key()), record.partition(), record.offset());
+                            }
+                        }
+                    }
+                }
+                if (now - lastFlush > searchProperties.getKeyIndexFlushIntervalMs()) {
+                    flush(consumer, tps);
+                    lastFlush = now;
+                }
+            }
+            flush(consumer, tps);
+        }
+
+        // Picks up partitions added to the topic; known partitions continue from their positions
+        private List<TopicPartition> assign(KafkaConsumer<byte[], byte[]> consumer, List<TopicPartition> current) {
+            List<PartitionInfo> infos = consumer.partitionsFor(topicName);
+            if (infos == null || infos.size() == current.size()) return current;
+            List<TopicPartition> tps = new ArrayList<>();
+            for (PartitionInfo info : infos) {
+                tps.add(new TopicPartition(topicName, info.partition()));
+            }
+            consumer.assign(tps);
+            for (TopicPartition tp : tps) {
+                Long position = positions.get(tp.partition());
+                if (position != null) {
+                    consumer.seek(tp, position);
+                } else if (!current.contains(tp)) {
+                    consumer.seekToBeginning(Collections.singletonList(tp));
+                }
+            }
+            return tps;
+        }
+
+        // The table is written before the positions, so after a crash at most the records since the
+        // previous flush are indexed again; re-putting a key with the same or a later offset is harmless.
+        private void flush(KafkaConsumer<byte[], byte[]> consumer, List<TopicPartition> tps) throws IOException {
+            if (tps.isEmpty()) return;
+            Map<TopicPartition, Long> ends = consumer.endOffsets(tps);
+            long behind = 0;
+            for (TopicPartition tp : tps) {
+                long position = consumer.position(tp);
+                positions.put(tp.partition(), position);
+                behind += Math.max(0, ends.getOrDefault(tp, position) - position);
+            }
+            lag = behind;
+            synchronized (this) {
+                table.force();
+            }
+            StringBuilder sb = new StringBuilder();
+            positions.forEach((p, o) -> sb.append(p).append('=').append(o).append('\n'));
+            Path tmp = positionsFile.resolveSibling(positionsFile.getFileName() + ".tmp");
+            Files.write(tmp, sb.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, positionsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private void loadPositions() throws IOException {
+            if (!Files.exists(positionsFile)) return;
+            for (String line : Files.readAllLines(positionsFile, StandardCharsets.UTF_8)) {
+                int eq = line.indexOf('=');
+                if (eq <= 0) continue;
+                positions.put(Integer.parseInt(line.substring(0, eq)), Long.parseLong(line.substring(eq + 1)));
+            }
+        }
+
+        synchronized KeyOffsetTable.Location lookup(long hash) {
+            return table != null ? table.get(hash) : null;
+        }
+
+        synchronized KeyIndexStatus status() {
+            return KeyIndexStatus.builder()
+                    .clusterId(clusterId)
+                    .topicName(topicName)
+                    .keys(table != null ? table.size() : 0)
+                    .capacity(table != null ? table.slots() : 0)
+                    .fileBytes(table != null ? table.fileBytes() : 0)
+                    .lag(lag)
+                    .running(table != null && !stopped)
+                    .error(error)
+                    .build();
+        }
+
+        // Waits for the indexer thread so its files can be deleted or reopened safely
+        void stop() {
+            stopped = true;
+            KafkaConsumer<byte[], byte[]> c = consumer;
+            if (c != null) c.wakeup();
+            try {
+                if (!done.await(10, TimeUnit.SECONDS)) {
+                    log.warn("Key indexer for {} did not stop in time", topicName);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void deleteFiles() {
+            try {
+                Files.deleteIfExists(tableFile);
+                Files.deleteIfExists(positionsFile);
+            } catch (IOException e) {
+                log.debug("Failed to delete key index of {}: {}", topicName, e.getMessage());
+            }
+        }
+    }
+}
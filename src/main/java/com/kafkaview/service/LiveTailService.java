@@ -0,0 +1,295 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.event.ClusterChangedEvent;
+import com.kafkaview.model.TailBatch;
+import com.kafkaview.model.TopicMessage;
+import com.kafkaview.search.MessageQuery;
+import com.kafkaview.search.RecordView;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.*;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Live tail over SSE. All viewers of a (cluster, topic) share one consumer that starts at the log end;
+// each record is filtered per subscriber, decoded once if anyone wants it, and queued in a bounded per-subscriber buffer. A sender drains
+// each buffer as one batch per interval, so a slow client only delays itself: when its buffer is full the
+// oldest records are dropped and the count is reported with the next batch.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LiveTailService {
+
+    private static final long PARTITION_REFRESH_MS = 60000;
+    private static final long HEARTBEAT_MS = 15000;
+
+    private final KafkaAdminService kafkaAdminService;
+    private final SearchProperties searchProperties;
+    private final PayloadDecoderService payloadDecoderService;
+
+    // "cluster/topic" -> shared tailing consumer
+    private final Map<String, Tailer> tailers = new HashMap<>();
+    private final AtomicInteger threadSeq = new AtomicInteger();
+    private ExecutorService tailExecutor;
+    private ScheduledExecutorService sender;
+
+    @PostConstruct
+    public void init() {
+        tailExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "kafka-view-tail-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger senderSeq = new AtomicInteger();
+        sender = Executors.newScheduledThreadPool(Math.max(1, searchProperties.getTailSenderThreads()), r -> {
+            Thread t = new Thread(r, "kafka-view-tail-sender-" + senderSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (tailers) {
+            tailers.values().forEach(Tailer::stop);
+            tailers.clear();
+        }
+        sender.shutdownNow();
+        tailExecutor.shutdownNow();
+    }
+
+    public SseEmitter subscribe(Long clusterId, String topicName, List<Integer> partitionIds, String key, String keyword, String query) {
+        MessageQuery compiled = MessageQuery.compile(query, key, keyword);
+        SseEmitter emitter = new SseEmitter(searchProperties.getTailTimeoutMs());
+        Subscriber subscriber = new Subscriber(emitter, compiled, partitionIds == null || partitionIds.isEmpty() ? null : new HashSet<>(partitionIds), Math.max(1, searchProperties.getTailBufferSize()));
+
+        Tailer tailer;
+        synchronized (tailers) {
+            String id = clusterId + "/" + topicName;
+            tailer = tailers.get(id);
+            if (tailer == null) {
+                tailer = new Tailer(id, clusterId, topicName);
+                tailers.put(id, tailer);
+                tailExecutor.execute(tailer);
+            }
+            tailer.subscribers.add(subscriber);
+        }
+        Tailer joined = tailer;
+        emitter.onCompletion(() -> leave(joined, subscriber));
+        emitter.onTimeout(() -> leave(joined, subscriber));
+        emitter.onError(e -> leave(joined, subscriber));
+        long interval = Math.max(10, searchProperties.getTailFlushIntervalMs());
+        subscriber.task = sender.scheduleWithFixedDelay(() -> flush(joined, subscriber), interval, interval, TimeUnit.MILLISECONDS);
+        return emitter;
+    }
+
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        closeCluster(event.getClusterId());
+    }
+
+    // Ends all tails of a cluster, e.g. after its connection settings changed; clients reconnect
+    public void closeCluster(Long clusterId) {
+        List<Tailer> closed = new ArrayList<>();
+        synchronized (tailers) {
+            for (Iterator<Tailer> it = tailers.values().iterator(); it.hasNext(); ) {
+                Tailer tailer = it.next();
+                if (!tailer.clusterId.equals(clusterId)) continue;
+                it.remove();
+                tailer.stop();
+                closed.add(tailer);
+            }
+        }
+        for (Tailer tailer : closed) {
+            for (Subscriber subscriber : tailer.subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private void leave(Tailer tailer, Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) return;
+        ScheduledFuture<?> task = subscriber.task;
+        if (task != null) task.cancel(false);
+        synchronized (tailers) {
+            tailer.subscribers.remove(subscriber);
+            if (tailer.subscribers.isEmpty() && tailers.remove(tailer.id, tailer)) {
+                tailer.stop();
+            }
+        }
+    }
+
+    private void flush(Tailer tailer, Subscriber subscriber) {
+        if (subscriber.closed.get()) return;
+        try {
+            if (tailer.error != null) {
+                subscriber.emitter.send(SseEmitter.event().name("error").data(tailer.error));
+                subscriber.emitter.complete();
+                return;
+            }
+            List<TopicMessage> messages = new ArrayList<>();
+            subscriber.buffer.drainTo(messages);
+            long dropped = subscriber.dropped.getAndSet(0);
+            long now = System.currentTimeMillis();
+            if (messages.isEmpty() && dropped == 0) {
+                // Writing is the only way to notice a client that went away
+                if (now - subscriber.lastSent > HEARTBEAT_MS) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    subscriber.lastSent = now;
+                }
+                return;
+            }
+            subscriber.emitter.send(SseEmitter.event().name("messages").data(TailBatch.builder().messages(messages).dropped(dropped).build()));
+            subscriber.lastSent = now;
+        } catch (IOException | IllegalStateException e) {
+            leave(tailer, subscriber);
+        }
+    }
+
+    private KafkaConsumer<byte[], byte[]> createConsumer(Long clusterId) {
+        Properties props = kafkaAdminService.getClusterProperties(clusterId);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "kafka-view-tail-" + UUID.randomUUID());
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, "kafka-view-tail-" + clusterId + "-" + threadSeq.get());
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return new KafkaConsumer<>(props);
+    }
+
+    private static class Subscriber {
+        final SseEmitter emitter;
+        final MessageQuery query;
+        final Set<Integer> partitions; // null for all
+        final BlockingQueue<TopicMessage> buffer;
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile ScheduledFuture<?> task;
+        volatile long lastSent = System.currentTimeMillis();
+
+        Subscriber(SseEmitter emitter, MessageQuery query, Set<Integer> partitions, int bufferSize) {
+            this.emitter = emitter;
+            this.query = query;
+            this.partitions = partitions;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        boolean accepts(int partition) {
+            return (partitions == null || partitions.contains(partition)) && query.acceptsPartition(partition);
+        }
+
+        // Never blocks the shared consumer: the oldest buffered record makes room
+        void offer(TopicMessage message) {
+            while (!buffer.offer(message)) {
+                if (buffer.poll() != null) dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private class Tailer implements Runnable {
+        final String id;
+        final Long clusterId;
+        final String topicName;
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        volatile boolean stopped;
+        volatile String error;
+        private volatile KafkaConsumer<byte[], byte[]> consumer;
+
+        Tailer(String id, Long clusterId, String topicName) {
+            this.id = id;
+            this.clusterId = clusterId;
+            this.topicName = topicName;
+        }
+
+        @Override
+        public void run() {
+            try (KafkaConsumer<byte[], byte[]> c = createConsumer(clusterId)) {
+                consumer = c;
+                if (stopped) return;
+                tail(c);
+            } catch (WakeupException e) {
+                // stop() interrupted a poll
+            } catch (Exception e) {
+                if (!stopped) {
+                    error = e.getMessage() != null ? e.getMessage() : e.toString();
+                    log.warn("Live tail of {} failed: {}", topicName, error);
+                    synchronized (tailers) {
+                        tailers.remove(id, this);
+                    }
+                }
+            }
+        }
+
+        private void tail(KafkaConsumer<byte[], byte[]> consumer) {
+            List<TopicPartition> tps = Collections.emptyList();
+            long lastRefresh = 0;
+            while (!stopped) {
+                long now = System.currentTimeMillis();
+                if (now - lastRefresh > PARTITION_REFRESH_MS) {
+                    tps = assign(consumer, tps);
+                    lastRefresh = now;
+                }
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofMillis(500));
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    dispatch(record);
+                }
+            }
+        }
+
+        // Filters once per subscriber but decodes at most once per record
+        private void dispatch(ConsumerRecord<byte[], byte[]> record) {
+            RecordView view = null;
+            TopicMessage message = null;
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.accepts(record.partition())) continue;
+                if (!subscriber.query.isMatchAll()) {
+                    if (view == null) view = new RecordView(record);
+                    if (!subscriber.query.matches(view)) continue;
+                }
+                if (message == null) message = payloadDecoderService.toMessage(clusterId, record);
+                subscriber.offer(message);
+            }
+        }
+
+        // Starts at the log end; partitions added to the topic later are read from their beginning
+        private List<TopicPartition> assign(KafkaConsumer<byte[], byte[]> consumer, List<TopicPartition> current) {
+            List<PartitionInfo> infos = consumer.partitionsFor(topicName);
+            if (infos == null || infos.size() == current.size()) return current;
+            List<TopicPartition> tps = new ArrayList<>();
+            for (PartitionInfo info : infos) {
+                tps.add(new TopicPartition(topicName, info.partition()));
+            }
+            consumer.assign(tps);
+            List<TopicPartition> added = new ArrayList<>(tps);
+            added.removeAll(current);
+            if (current.isEmpty()) {
+                consumer.seekToEnd(added);
+            } else {
+                consumer.seekToBeginning(added);
+            }
+            return tps;
+        }
+
+        void stop() {
+            stopped = true;
+            KafkaConsumer<byte[], byte[]> c = consumer;
+            if (c != null) c.wakeup();
+        }
+    }
+}
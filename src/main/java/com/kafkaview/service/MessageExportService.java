@@ -0,0 +1,196 @@
+package com.kafkaview.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.search.MessageQuery;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+// Streams a topic range to the HTTP response as gzip-compressed JSONL or CSV.
+// The request thread only validates the parameters; the scan runs as an async task on the MVC executor
+// and writes each record as it is polled: a slow client blocks the write, which holds back the next poll,
+// and memory use does not grow with the size of the export.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MessageExportService {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // The export stops itself at its own deadline; the async request only times out if that stop stalls
+    private static final long ASYNC_GRACE_MS = 30_000;
+
+    private final MessageSearchService messageSearchService;
+    private final SearchRegistry searchRegistry;
+    private final SearchProperties searchProperties;
+    private final PayloadDecoderService payloadDecoderService;
+
+    public WebAsyncTask<Void> export(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, String format, int timeout, String searchId, HttpServletResponse response) {
+        boolean csv;
+        if ("csv".equalsIgnoreCase(format)) {
+            csv = true;
+        } else if (format == null || "jsonl".equalsIgnoreCase(format)) {
+            csv = false;
+        } else {
+            throw new IllegalArgumentException("Unsupported export format: " + format + ", expected jsonl or csv");
+        }
+        MessageQuery compiled = MessageQuery.compile(query, key, keyword);
+
+        long maxDurationMs = searchProperties.getExportMaxDurationMs();
+        return new WebAsyncTask<>(maxDurationMs + ASYNC_GRACE_MS, () -> {
+            run(clusterId, topicName, partitionIds, startTime, endTime, startOffset, endOffset, compiled, csv, timeout, searchId, maxDurationMs, response);
+            return null;
+        });
+    }
+
+    private void run(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, MessageQuery compiled, boolean csv, int timeout, String searchId, long maxDurationMs, HttpServletResponse response) {
+        SearchRegistry.RunningSearch running = searchRegistry.register(searchId, clusterId, topicName, maxDurationMs);
+        ExportSink sink = new ExportSink(response, topicName, csv, clusterId, payloadDecoderService);
+        long start = System.currentTimeMillis();
+        try {
+            long written = messageSearchService.exportMessages(clusterId, topicName, partitionIds, startTime, endTime, startOffset, endOffset, compiled, timeout, running, sink);
+            if (running.cancelled.get() || running.isExpired()) {
+                // The truncated gzip stream tells the client that the export is incomplete
+                log.warn("Export of {} stopped early after {} records", topicName, written);
+                return;
+            }
+            sink.finish();
+            log.info("Exported {} records of {} in {} ms", written, topicName, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.debug("Export of {} aborted by the client: {}", topicName, e.getMessage());
+        } catch (RuntimeException e) {
+            // Once the body has started the error can no longer be reported as a result
+            if (!sink.begun) throw e;
+            log.warn("Export of {} failed: {}", topicName, e.getMessage());
+        } finally {
+            searchRegistry.unregister(running);
+        }
+    }
+
+    private static class ExportSink implements MessageRecordSink {
+        private final HttpServletResponse response;
+        private final String topicName;
+        private final boolean csv;
+        private final Long clusterId;
+        private final PayloadDecoderService decoders;
+        boolean begun;
+        private GZIPOutputStream gzip;
+        private JsonGenerator json;
+        private Writer writer;
+
+        ExportSink(HttpServletResponse response, String topicName, boolean csv, Long clusterId, PayloadDecoderService decoders) {
+            this.response = response;
+            this.topicName = topicName;
+            this.csv = csv;
+            this.clusterId = clusterId;
+            this.decoders = decoders;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            String fileName = topicName.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + System.currentTimeMillis() + (csv ? ".csv.gz" : ".jsonl.gz");
+            response.setContentType("application/gzip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+            begun = true;
+            gzip = new GZIPOutputStream(response.getOutputStream(), BUFFER_SIZE);
+            if (csv) {
+                writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+                writer.write("partition,offset,timestamp,timestampType,key,value,headers\r\n");
+            } else {
+                json = JSON.createGenerator(gzip);
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            }
+        }
+
+        @Override
+        public void accept(ConsumerRecord<byte[], byte[]> record) throws IOException {
+            if (csv) {
+                writeCsv(record);
+            } else {
+                writeJson(record);
+            }
+        }
+
+        void finish() throws IOException {
+            if (csv) {
+                writer.flush();
+            } else {
+                json.flush();
+            }
+            gzip.finish();
+            gzip.flush();
+        }
+
+        private void writeJson(ConsumerRecord<byte[], byte[]> record) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("partition", record.partition());
+            json.writeNumberField("offset", record.offset());
+            json.writeNumberField("timestamp", record.timestamp());
+            json.writeStringField("timestampType", record.timestampType().name());
+            json.writeStringField("key", decoders.decodeKey(clusterId, record));
+            json.writeStringField("value", decoders.decodeValue(clusterId, record));
+            json.writeObjectFieldStart("headers");
+            for (Header header : record.headers()) {
+                json.writeStringField(header.key(), decode(header.value()));
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        private void writeCsv(ConsumerRecord<byte[], byte[]> record) throws IOException {
+            writer.write(Integer.toString(record.partition()));
+            writer.write(',');
+            writer.write(Long.toString(record.offset()));
+            writer.write(',');
+            writer.write(Long.toString(record.timestamp()));
+            writer.write(',');
+            writer.write(record.timestampType().name());
+            writer.write(',');
+            writeCsvField(decoders.decodeKey(clusterId, record));
+            writer.write(',');
+            writeCsvField(decoders.decodeValue(clusterId, record));
+            writer.write(',');
+            StringBuilder headers = new StringBuilder();
+            for (Header header : record.headers()) {
+                if (headers.length() > 0) headers.append(';');
+                headers.append(header.key()).append('=').append(decode(header.value()));
+            }
+            writeCsvField(headers.toString());
+            writer.write("\r\n");
+        }
+
+        // RFC 4180: quote fields containing separators, quotes or line breaks; null stays empty
+        private void writeCsvField(String value) throws IOException {
+            if (value == null) return;
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        private static String decode(byte[] bytes) {
+            return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
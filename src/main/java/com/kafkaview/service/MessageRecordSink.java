@@ -0,0 +1,14 @@
+package com.kafkaview.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.io.IOException;
+
+// Receives the raw records of an export. A sink that blocks slows the consumer down with it.
+public interface MessageRecordSink {
+
+    // Called once the range is resolved, before the first record
+    void begin() throws IOException;
+
+    void accept(ConsumerRecord<byte[], byte[]> record) throws IOException;
+}
@@ -0,0 +1,17 @@
+package com.kafkaview.service;
+
+import com.kafkaview.model.PartitionOffsetRange;
+import com.kafkaview.model.SearchProgress;
+import com.kafkaview.model.TopicMessage;
+
+import java.util.Map;
+
+// Receives results of a streaming search as they are found. Called from scan worker threads.
+public interface MessageSearchListener {
+
+    void onBounds(Map<Integer, PartitionOffsetRange> partitionOffsets);
+
+    void onMatch(TopicMessage message);
+
+    void onProgress(SearchProgress progress);
+}
@@ -0,0 +1,1360 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.model.*;
+import com.kafkaview.search.MatchEstimator;
+import com.kafkaview.search.MessageQuery;
+import com.kafkaview.search.RecordView;
+import com.kafkaview.search.TopKCollector;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.*;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MessageSearchService {
+
+    private static final int MAX_SCANNED = 500000;
+    private static final long PROGRESS_INTERVAL_MS = 500;
+    private static final int MAX_REPORTED_CHUNKS = 100;
+    private static final int FETCH_POLLS = 3;
+
+    private final SearchConsumerPool searchConsumerPool;
+    private final SearchProperties searchProperties;
+    private final SearchSessionService searchSessionService;
+    private final RecordRangeCache recordRangeCache;
+    private final TimeIndexService timeIndexService;
+    private final SearchRegistry searchRegistry;
+    private final PayloadDecoderService payloadDecoderService;
+    private final SearchAdmission searchAdmission;
+    private final TopicMetadataCache topicMetadataCache;
+
+    private ExecutorService scanExecutor;
+    private ExecutorService searchExecutor;
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, searchProperties.getWorkerThreads());
+        scanExecutor = newPool("kafka-view-scan-", threads, new LinkedBlockingQueue<>());
+        // Searches drive their first partition group on this pool, so it must not share threads
+        // with the scan workers they wait for. It has a thread for every search admission can run or
+        // queue, so over-limit searches wait in the admission queue and are turned away by its size
+        // and timeout; the pool itself only rejects once that queue is full as well.
+        int searchThreads = Math.max(1, searchProperties.getAdmissionMaxConcurrent()) + Math.max(0, searchProperties.getAdmissionMaxQueued());
+        searchExecutor = newPool("kafka-view-search-", searchThreads, new SynchronousQueue<>());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanExecutor.shutdownNow();
+        searchExecutor.shutdownNow();
+    }
+
+    // Every search keeps its matches in a server-side session. Passing the returned cursorId back
+    // pages (or re-sorts) through that buffer without scanning again; with resume=true the scan
+    // continues from the session's resume offsets and the buffer is replaced by the next batch.
+    // An unknown or expired cursor falls back to a fresh search.
+    // Scans run on the search pool and are registered under searchId (generated when absent) until
+    // they finish, so they can be cancelled; maxDurationMs lowers the configured deadline.
+    public CompletableFuture<MessageSearchResult> searchMessages(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, int limit, int page, int pageSize, String sortField, String sortOrder, String scanDirection, int timeout, int retryCount, String cursorId, boolean resume, String searchId, Long maxDurationMs) {
+        int cappedLimit = clampLimit(limit);
+        int pageNo = Math.max(1, page);
+        int size = Math.max(1, pageSize);
+        Comparator<TopicMessage> order = messageOrder(sortField, sortOrder);
+
+        List<Object> params = searchParams(partitionIds, startTime, endTime, startOffset, endOffset, key, keyword, query, cappedLimit, scanDirection);
+        SearchSession session = searchSessionService.get(cursorId, clusterId, topicName, params);
+        if (session != null && !resume) {
+            return CompletableFuture.completedFuture(pageOf(session, pageNo, size, order));
+        }
+        if (session == null && StringUtils.hasText(cursorId)) {
+            log.debug("Search cursor {} expired or was for another search, scanning {} again", cursorId, topicName);
+        }
+        MessageQuery compiled = MessageQuery.compile(query, key, keyword);
+
+        SearchRegistry.RunningSearch running = searchRegistry.register(searchId, clusterId, topicName, maxDuration(maxDurationMs, searchProperties.getMaxDurationMs()));
+        return submit(running, () -> {
+            SearchSession scanned = session != null
+                    ? resumeSession(session, running)
+                    : newSession(clusterId, topicName, partitionIds, startTime, endTime, startOffset, endOffset, key, keyword, query, compiled, cappedLimit, scanDirection, timeout, retryCount, params, running);
+            MessageSearchResult result = pageOf(scanned, pageNo, size, order);
+            result.setSearchId(running.getId());
+            return result;
+        });
+    }
+
+    // Estimates how many records of the range match without reading all of it: windows of windowSize
+    // offsets are spread evenly over each partition's range, in proportion to its length, until
+    // budget offsets are covered. A range within the budget is read whole and counted exactly.
+    // Runs like a paged search (search pool, registered under searchId, same deadline).
+    public CompletableFuture<MatchEstimate> estimateMatches(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, Integer budget, Integer windowSize, int hitLimit, int timeout, int retryCount, String searchId, Long maxDurationMs) {
+        MessageQuery compiled = MessageQuery.compile(query, key, keyword);
+        int maxBudget = Math.max(1, searchProperties.getSampleMaxBudget());
+        int offsetBudget = budget != null && budget > 0 ? Math.min(budget, maxBudget) : Math.min(searchProperties.getSampleBudget(), maxBudget);
+        int window = windowSize != null && windowSize > 0 ? windowSize : searchProperties.getSampleWindowSize();
+        int hits = Math.min(Math.max(0, hitLimit), 1000);
+
+        SearchRegistry.RunningSearch running = searchRegistry.register(searchId, clusterId, topicName, maxDuration(maxDurationMs, searchProperties.getMaxDurationMs()));
+        return submit(running, () -> {
+            MatchEstimate estimate = sample(clusterId, topicName, partitionIds, startTime, endTime, startOffset, endOffset, compiled, offsetBudget, window, hits, timeout, retryCount, running);
+            estimate.setSearchId(running.getId());
+            return estimate;
+        });
+    }
+
+    // Searches several topics at once: the listed ones, or all whose name matches topicPattern (a regex;
+    // internal topics only when listed). Their partitions are scanned together under one limit, scan cap
+    // and deadline with a single consumer setup, and the matches come back as one list ordered by
+    // timestamp, each labelled with its topic. There is no cursor; narrow the range to see more.
+    public CompletableFuture<MessageSearchResult> searchTopics(Long clusterId, List<String> topics, String topicPattern, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, int limit, String scanDirection, int timeout, int retryCount, String searchId, Long maxDurationMs) {
+        if ((topics == null || topics.isEmpty()) && !StringUtils.hasText(topicPattern)) {
+            throw new IllegalArgumentException("Give topics or a topicPattern");
+        }
+        Pattern pattern;
+        try {
+            pattern = StringUtils.hasText(topicPattern) ? Pattern.compile(topicPattern) : null;
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid topic pattern: " + e.getDescription());
+        }
+        int cappedLimit = clampLimit(limit);
+        boolean desc = "desc".equalsIgnoreCase(scanDirection);
+        Comparator<TopicMessage> order = messageOrder("timestamp", desc ? "desc" : "asc");
+        MessageQuery compiled = MessageQuery.compile(query, key, keyword);
+        String label = pattern != null ? topicPattern : String.join(",", topics);
+
+        SearchRegistry.RunningSearch running = searchRegistry.register(searchId, clusterId, label, maxDuration(maxDurationMs, searchProperties.getMaxDurationMs()));
+        return submit(running, () -> {
+            TopKCollector<TopicMessage> collector = new TopKCollector<>(cappedLimit, scanOrder(desc));
+            ScanState state = new ScanState(cappedLimit, null, collector, running);
+            List<String> resolved = new ArrayList<>();
+            List<TopicPartition> tps = topicPartitions(clusterId, topics, pattern, resolved);
+            tps.removeIf(tp -> !compiled.acceptsPartition(tp.partition()));
+            ScanSpec spec = execute(clusterId, consumer -> tps, startTime, endTime, startOffset, endOffset, compiled, cappedLimit, scanDirection, timeout, retryCount, state);
+
+            boolean hasMore = false;
+            for (Map.Entry<TopicPartition, Long> entry : state.resumeOffsets.entrySet()) {
+                long bound = spec.desc ? spec.startOffsets.get(entry.getKey()) : spec.endOffsets.get(entry.getKey());
+                if (entry.getValue() != bound) hasMore = true;
+            }
+            List<TopicMessage> list = collector.toSortedList();
+            list.sort(order);
+            return MessageSearchResult.builder()
+                    .list(list)
+                    .total(Math.min(collector.offered(), cappedLimit))
+                    .page(1)
+                    .pageSize(list.size())
+                    .topics(resolved)
+                    .hasMore(hasMore)
+                    .stats(state.stats())
+                    .searchId(running.getId())
+                    .build();
+        });
+    }
+
+    // Partitions of the listed topics, or of all topics matching the pattern, from the metadata cache.
+    // Adds the topic names that were found to resolved.
+    private List<TopicPartition> topicPartitions(Long clusterId, List<String> topics, Pattern pattern, List<String> resolved) throws ExecutionException, InterruptedException {
+        SortedMap<String, TopicDescription> cached = topicMetadataCache.topics(clusterId);
+        Map<String, TopicDescription> metadata = new HashMap<>();
+        if (pattern != null) {
+            for (TopicDescription td : cached.values()) {
+                if (td.name().startsWith("__") || !pattern.matcher(td.name()).matches()) continue;
+                metadata.put(td.name(), td);
+                resolved.add(td.name());
+            }
+        } else {
+            for (String topic : new LinkedHashSet<>(topics)) {
+                // Falls back to a describe for topics created since the last refresh
+                TopicDescription td = cached.containsKey(topic) ? cached.get(topic) : topicMetadataCache.topic(clusterId, topic);
+                metadata.put(topic, td);
+                resolved.add(topic);
+            }
+        }
+        int maxTopics = Math.max(1, searchProperties.getMaxSearchTopics());
+        if (resolved.size() > maxTopics) {
+            throw new IllegalArgumentException(resolved.size() + " topics match, at most " + maxTopics + " can be searched at once");
+        }
+        List<TopicPartition> tps = new ArrayList<>();
+        for (String topic : resolved) {
+            metadata.get(topic).partitions().forEach(p -> tps.add(new TopicPartition(topic, p.partition())));
+        }
+        return tps;
+    }
+
+    // Runs the work on the search pool; the search is unregistered when it ends
+    private <T> CompletableFuture<T> submit(SearchRegistry.RunningSearch running, Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            searchExecutor.execute(() -> {
+                try {
+                    future.complete(work.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    searchRegistry.unregister(running);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            searchRegistry.unregister(running);
+            searchAdmission.countRejected();
+            throw new IllegalStateException("Too many searches running, try again later");
+        }
+        return future;
+    }
+
+    public boolean cancelSearch(Long clusterId, String searchId) {
+        return searchRegistry.cancel(clusterId, searchId);
+    }
+
+    private static long maxDuration(Long requested, long configured) {
+        return requested != null && requested > 0 ? Math.min(requested, configured) : configured;
+    }
+
+    private SearchSession newSession(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, MessageQuery compiled, int limit, String scanDirection, int timeout, int retryCount, List<Object> params, SearchRegistry.RunningSearch running) {
+        // The session serves every page and sort order, so keep all matches up to the limit, chosen by scan order
+        TopKCollector<TopicMessage> collector = new TopKCollector<>(limit, scanOrder("desc".equalsIgnoreCase(scanDirection)));
+        ScanState state = new ScanState(limit, null, collector, running);
+
+        ScanSpec spec = execute(clusterId, consumer -> partitionsOf(consumer, topicName, partitionIds, compiled), startTime, endTime, startOffset, endOffset, compiled, limit, scanDirection, timeout, retryCount, state);
+
+        return searchSessionService.create(SearchSession.builder()
+                .clusterId(clusterId)
+                .topicName(topicName)
+                .params(params)
+                .key(key)
+                .keyword(keyword)
+                .query(query)
+                .desc(spec.desc)
+                .limit(limit)
+                .timeout(timeout)
+                .retryCount(retryCount)
+                .startOffsets(byPartition(spec.startOffsets))
+                .endOffsets(byPartition(spec.endOffsets))
+                .partitionOffsets(spec.partitionBounds)
+                // Reverse scans may overshoot the limit within a poll batch; the collector kept the newest of them
+                .results(collector.toSortedList())
+                .total(Math.min(collector.offered(), limit))
+                .resumeOffsets(byPartition(state.resumeOffsets))
+                .stats(state.stats())
+                .build());
+    }
+
+    // Everything that decides which records a paged search returns. A cursor only serves requests
+    // with the same values; sort order and paging may differ.
+    private static List<Object> searchParams(List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, int limit, String scanDirection) {
+        List<Integer> partitions = partitionIds == null ? List.of() : partitionIds.stream().distinct().sorted().toList();
+        return Arrays.asList(partitions, startTime, endTime, startOffset, endOffset,
+                StringUtils.hasText(key) ? key : null,
+                StringUtils.hasText(keyword) ? keyword : null,
+                StringUtils.hasText(query) ? query.trim() : null,
+                limit, "desc".equalsIgnoreCase(scanDirection));
+    }
+
+    // Scans the part of the session's range that the previous batch did not reach
+    private SearchSession resumeSession(SearchSession session, SearchRegistry.RunningSearch running) {
+        synchronized (session) {
+            Map<TopicPartition, Long> startOffsets = new HashMap<>();
+            Map<TopicPartition, Long> endOffsets = new HashMap<>();
+            for (Map.Entry<Integer, Long> entry : session.getResumeOffsets().entrySet()) {
+                TopicPartition tp = new TopicPartition(session.getTopicName(), entry.getKey());
+                if (session.isDesc()) {
+                    startOffsets.put(tp, session.getStartOffsets().get(entry.getKey()));
+                    endOffsets.put(tp, entry.getValue());
+                } else {
+                    startOffsets.put(tp, entry.getValue());
+                    endOffsets.put(tp, session.getEndOffsets().get(entry.getKey()));
+                }
+            }
+            // A reverse scan that stopped mid-chunk resumes from the top of that chunk,
+            // so skip the records that were already returned
+            Set<String> excluded = new HashSet<>();
+            for (TopicMessage message : session.getResults()) {
+                excluded.add(message.getPartition() + ":" + message.getOffset());
+            }
+
+            ScanSpec spec = new ScanSpec(session.getClusterId(), MessageQuery.compile(session.getQuery(), session.getKey(), session.getKeyword()), session.isDesc(), session.getTimeout(), session.getRetryCount(),
+                    startOffsets, endOffsets, session.getPartitionOffsets(), excluded);
+            TopKCollector<TopicMessage> collector = new TopKCollector<>(session.getLimit(), scanOrder(session.isDesc()));
+            ScanState state = new ScanState(session.getLimit(), null, collector, running);
+
+            try (SearchConsumerPool.Lease lease = searchConsumerPool.lease(session.getClusterId())) {
+                scan(session.getClusterId(), lease, new ArrayList<>(startOffsets.keySet()), spec, state);
+            }
+
+            session.setResults(collector.toSortedList());
+            session.setTotal(Math.min(collector.offered(), session.getLimit()));
+            session.setResumeOffsets(byPartition(state.resumeOffsets));
+            session.setStats(state.stats());
+        }
+        return session;
+    }
+
+    private MessageSearchResult pageOf(SearchSession session, int page, int pageSize, Comparator<TopicMessage> order) {
+        List<TopicMessage> sorted;
+        Map<Integer, Long> resumeOffsets;
+        long total;
+        synchronized (session) {
+            sorted = new ArrayList<>(session.getResults());
+            resumeOffsets = session.getResumeOffsets();
+            total = session.getTotal();
+        }
+        // The buffer holds at most limit records, so re-sorting it for another column is cheap
+        sorted.sort(order);
+
+        int start = (page - 1) * pageSize;
+        List<TopicMessage> pageList = start >= sorted.size()
+                ? Collections.emptyList()
+                : new ArrayList<>(sorted.subList(start, Math.min(start + pageSize, sorted.size())));
+
+        boolean hasMore = false;
+        for (Map.Entry<Integer, Long> entry : resumeOffsets.entrySet()) {
+            long bound = session.isDesc()
+                    ? session.getStartOffsets().get(entry.getKey())
+                    : session.getEndOffsets().get(entry.getKey());
+            if (entry.getValue() != bound) {
+                hasMore = true;
+                break;
+            }
+        }
+
+        return MessageSearchResult.builder()
+                .list(pageList)
+                .total(total)
+                .page(page)
+                .pageSize(pageSize)
+                .partitionOffsets(session.getPartitionOffsets())
+                .cursorId(session.getId())
+                .resumeOffsets(resumeOffsets)
+                .hasMore(hasMore)
+                .stats(session.getStats())
+                .build();
+    }
+
+    private static Map<Integer, Long> byPartition(Map<TopicPartition, Long> offsets) {
+        Map<Integer, Long> result = new HashMap<>();
+        offsets.forEach((tp, offset) -> result.put(tp.partition(), offset));
+        return result;
+    }
+
+    // Which matches a bounded collector keeps when a reverse scan overshoots the limit: the newest ones.
+    // Forward scans stop at the limit, so their order only has to be total. The display order is
+    // applied afterwards, so every sort of a cursor shows the same records.
+    private static Comparator<TopicMessage> scanOrder(boolean desc) {
+        return desc ? messageOrder("timestamp", "desc") : messageOrder("offset", "asc");
+    }
+
+    // Sort order of search results; partition and offset break ties so paging is stable
+    private static Comparator<TopicMessage> messageOrder(String sortField, String sortOrder) {
+        Comparator<TopicMessage> comparator;
+        if ("offset".equalsIgnoreCase(sortField)) {
+            comparator = Comparator.comparingLong(TopicMessage::getOffset);
+        } else if ("partition".equalsIgnoreCase(sortField)) {
+            comparator = Comparator.comparingInt(TopicMessage::getPartition);
+        } else {
+            // Default to timestamp
+            comparator = Comparator.comparingLong(TopicMessage::getTimestamp);
+        }
+        comparator = comparator
+                .thenComparingInt(TopicMessage::getPartition)
+                .thenComparingLong(TopicMessage::getOffset)
+                .thenComparing(TopicMessage::getTopic, Comparator.nullsFirst(Comparator.naturalOrder()));
+        return "asc".equalsIgnoreCase(sortOrder) ? comparator : comparator.reversed();
+    }
+
+    // Streaming variant of searchMessages: matches are pushed as SSE events as soon as they are found
+    // instead of being buffered and sorted. Events: bounds, match, progress, done, error.
+    // The scan stops when the client disconnects or the emitter times out.
+    public SseEmitter streamMessages(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, int limit, String scanDirection, int timeout, int retryCount, String searchId) {
+        int cappedLimit = clampLimit(limit);
+        MessageQuery compiled = MessageQuery.compile(query, key, keyword);
+        SearchRegistry.RunningSearch running = searchRegistry.register(searchId, clusterId, topicName, searchProperties.getStreamTimeoutMs());
+        AtomicBoolean cancelled = running.cancelled;
+        SseEmitter emitter = new SseEmitter(searchProperties.getStreamTimeoutMs());
+        emitter.onCompletion(running::cancel);
+        emitter.onTimeout(running::cancel);
+        emitter.onError(e -> running.cancel());
+
+        SseListener listener = new SseListener(emitter, cancelled);
+        ScanState state = new ScanState(cappedLimit, listener, null, running);
+
+        try {
+            searchExecutor.execute(() -> {
+                try {
+                    execute(clusterId, consumer -> partitionsOf(consumer, topicName, partitionIds, compiled), startTime, endTime, startOffset, endOffset, compiled, cappedLimit, scanDirection, timeout, retryCount, state);
+                    listener.send("done", SearchSummary.builder()
+                            .matched(Math.min(state.matched.get(), cappedLimit))
+                            .scanned(state.scanned.get())
+                            .stats(state.stats())
+                            .cancelled(cancelled.get())
+                            .build());
+                    emitter.complete();
+                } catch (Exception e) {
+                    log.warn("Streaming search on {} failed: {}", topicName, e.getMessage());
+                    listener.send("error", e.getMessage() != null ? e.getMessage() : e.toString());
+                    emitter.complete();
+                } finally {
+                    searchRegistry.unregister(running);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            searchRegistry.unregister(running);
+            searchAdmission.countRejected();
+            throw new IllegalStateException("Too many searches running, try again later");
+        }
+        return emitter;
+    }
+
+    // One record in full, with headers. Null when the offset does not exist (any more).
+    public TopicMessage getMessage(Long clusterId, String topicName, int partition, long offset) {
+        ConsumerRecord<byte[], byte[]> record = fetchRecord(clusterId, new TopicPartition(topicName, partition), offset);
+        return record != null ? payloadDecoderService.toFullMessage(clusterId, record) : null;
+    }
+
+    // Reads the record at offset from the range cache when a search already fetched it, else with a
+    // single seek. Null when the offset is past the end, deleted or compacted away.
+    public ConsumerRecord<byte[], byte[]> fetchRecord(Long clusterId, TopicPartition tp, long offset) {
+        List<ConsumerRecord<byte[], byte[]>> cached = new ArrayList<>(1);
+        long next = recordRangeCache.replay(clusterId, tp, offset, offset + 1, record -> {
+            cached.add(record);
+            return false;
+        });
+        if (!cached.isEmpty()) {
+            return cached.get(0).offset() == offset ? cached.get(0) : null;
+        }
+        // The cache covers the offset but has no record for it
+        if (next > offset) return null;
+
+        // One record needs only the smallest fetch size
+        try (SearchConsumerPool.Lease lease = searchConsumerPool.lease(clusterId, 0)) {
+            KafkaConsumer<byte[], byte[]> consumer = lease.consumer();
+            try {
+                consumer.assign(Collections.singletonList(tp));
+                consumer.seek(tp, offset);
+                for (int i = 0; i < FETCH_POLLS; i++) {
+                    List<ConsumerRecord<byte[], byte[]>> records = consumer.poll(Duration.ofSeconds(1)).records(tp);
+                    if (records.isEmpty()) continue;
+                    // A later offset means the requested one is gone
+                    return records.get(0).offset() == offset ? records.get(0) : null;
+                }
+                return null;
+            } catch (RuntimeException e) {
+                lease.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    // Resolves the offset range per partition and scans it. Returns the resolved ranges and log bounds.
+    // Writes every matching record of the range to the sink, in offset order per partition. Records go out as
+    // they are polled, so memory stays within one poll batch, and a sink blocked on a slow client stops the
+    // polling until it drains. Nothing is cached. Returns the number of records written.
+    public long exportMessages(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, MessageQuery query, int timeout, SearchRegistry.RunningSearch running, MessageRecordSink sink) throws IOException {
+        startTime = maxOf(startTime, query.minTimestamp());
+        endTime = minOf(endTime, query.maxTimestamp());
+        startOffset = maxOf(startOffset, query.minOffset());
+        endOffset = minOf(endOffset, query.maxOffset());
+
+        try (SearchConsumerPool.Lease lease = searchConsumerPool.leaseBackground(clusterId)) {
+            try {
+                return exportRange(clusterId, lease.consumer(), topicName, partitionIds, startTime, endTime, startOffset, endOffset, query, timeout, running, sink);
+            } catch (RuntimeException e) {
+                lease.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    private long exportRange(Long clusterId, KafkaConsumer<byte[], byte[]> consumer, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, MessageQuery query, int timeout, SearchRegistry.RunningSearch running, MessageRecordSink sink) throws IOException {
+        List<TopicPartition> tps = partitionsOf(consumer, topicName, partitionIds, query);
+        Map<TopicPartition, Long> startOffsets = new HashMap<>();
+        Map<TopicPartition, Long> endOffsets = new HashMap<>();
+        resolveRange(clusterId, tps, consumer.beginningOffsets(tps), consumer.endOffsets(tps), startTime, endTime, startOffset, endOffset, 0, startOffsets, endOffsets);
+
+        List<TopicPartition> active = new ArrayList<>();
+        for (TopicPartition tp : tps) {
+            if (startOffsets.get(tp) < endOffsets.get(tp)) active.add(tp);
+        }
+        consumer.assign(active);
+        for (TopicPartition tp : active) {
+            consumer.seek(tp, startOffsets.get(tp));
+        }
+
+        sink.begin();
+        long written = 0;
+        while (!active.isEmpty() && !running.cancelled.get() && !running.isExpired()) {
+            ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofMillis(timeout));
+            for (ConsumerRecord<byte[], byte[]> record : records) {
+                if (record.offset() >= endOffsets.get(new TopicPartition(record.topic(), record.partition()))) continue;
+                running.scanned.incrementAndGet();
+                running.scannedBytes.addAndGet(recordBytes(record));
+                if (query.isMatchAll() || query.matches(new RecordView(record))) {
+                    sink.accept(record);
+                    running.matched.incrementAndGet();
+                    written++;
+                }
+            }
+            // Partitions that reached the end of their range stop fetching
+            for (Iterator<TopicPartition> it = active.iterator(); it.hasNext(); ) {
+                TopicPartition tp = it.next();
+                if (consumer.position(tp) >= endOffsets.get(tp)) {
+                    consumer.pause(Collections.singleton(tp));
+                    it.remove();
+                }
+            }
+        }
+        return written;
+    }
+
+    private MatchEstimate sample(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, MessageQuery query, int budget, int windowSize, int hitLimit, int timeout, int retryCount, SearchRegistry.RunningSearch running) {
+        startTime = maxOf(startTime, query.minTimestamp());
+        endTime = minOf(endTime, query.maxTimestamp());
+        startOffset = maxOf(startOffset, query.minOffset());
+        endOffset = minOf(endOffset, query.maxOffset());
+
+        // Windows are short, so the smallest fetch size does
+        try (SearchConsumerPool.Lease lease = searchConsumerPool.lease(clusterId, 0)) {
+            KafkaConsumer<byte[], byte[]> consumer = lease.consumer();
+            try {
+                List<TopicPartition> tps = partitionsOf(consumer, topicName, partitionIds, query);
+                Map<TopicPartition, Long> startOffsets = new HashMap<>();
+                Map<TopicPartition, Long> endOffsets = new HashMap<>();
+                resolveRange(clusterId, tps, consumer.beginningOffsets(tps), consumer.endOffsets(tps), startTime, endTime, startOffset, endOffset, 0, startOffsets, endOffsets);
+
+                long population = 0;
+                for (TopicPartition tp : tps) {
+                    population += Math.max(0, endOffsets.get(tp) - startOffsets.get(tp));
+                }
+                MatchEstimator estimator = new MatchEstimator(population);
+                List<TopicMessage> hits = new ArrayList<>();
+                long records = 0;
+                for (SampleWindow window : sampleWindows(tps, startOffsets, endOffsets, population, budget, windowSize)) {
+                    if (running.cancelled.get() || running.isExpired()) break;
+                    long[] read = readWindow(clusterId, consumer, window, query, timeout, retryCount, running, hits, hitLimit);
+                    estimator.addWindow(read[0], read[2]);
+                    records += read[1];
+                }
+
+                boolean deadlineExceeded = running.isExpired() && !running.cancelled.get();
+                return MatchEstimate.builder()
+                        .rangeOffsets(population)
+                        .sampledOffsets(estimator.offsets())
+                        .sampledRecords(records)
+                        .sampledWindows(estimator.windows())
+                        .sampleMatches(estimator.matches())
+                        .estimatedMatches(estimator.estimate())
+                        .lowerBound(estimator.lowerBound())
+                        .upperBound(estimator.upperBound())
+                        .confidence(0.95)
+                        .exact(estimator.isExact())
+                        .hits(hits)
+                        .stats(ScanStats.builder()
+                                .scannedRecords(running.scanned.get())
+                                .scannedBytes(running.scannedBytes.get())
+                                .cancelled(running.cancelled.get())
+                                .deadlineExceeded(deadlineExceeded)
+                                .build())
+                        .build();
+            } catch (RuntimeException e) {
+                lease.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    // Windows in proportion to each partition's share of the range, centered in equal strides. With more
+    // partitions than windows of windowSize fit the budget, the windows shrink so every partition is read.
+    private static List<SampleWindow> sampleWindows(List<TopicPartition> tps, Map<TopicPartition, Long> startOffsets, Map<TopicPartition, Long> endOffsets, long population, int budget, int windowSize) {
+        List<SampleWindow> windows = new ArrayList<>();
+        List<TopicPartition> nonEmpty = new ArrayList<>();
+        for (TopicPartition tp : tps) {
+            if (endOffsets.get(tp) > startOffsets.get(tp)) nonEmpty.add(tp);
+        }
+        if (nonEmpty.isEmpty()) return windows;
+        if (population <= budget) {
+            for (TopicPartition tp : nonEmpty) {
+                windows.add(new SampleWindow(tp, startOffsets.get(tp), endOffsets.get(tp)));
+            }
+            return windows;
+        }
+
+        int size = Math.max(1, Math.min(windowSize, budget / nonEmpty.size()));
+        long count = Math.max(nonEmpty.size(), budget / size);
+        for (TopicPartition tp : nonEmpty) {
+            long start = startOffsets.get(tp);
+            long length = endOffsets.get(tp) - start;
+            long perPartition = Math.max(1, Math.round((double) count * length / population));
+            double stride = (double) length / perPartition;
+            long windowLength = Math.max(1, Math.min(size, (long) stride));
+            for (long i = 0; i < perPartition; i++) {
+                long from = start + (long) (i * stride + (stride - windowLength) / 2);
+                windows.add(new SampleWindow(tp, from, Math.min(from + windowLength, start + length)));
+            }
+        }
+        return windows;
+    }
+
+    // Reads one window, from the range cache where it has it. Returns {offsets covered, records, matches}.
+    private long[] readWindow(Long clusterId, KafkaConsumer<byte[], byte[]> consumer, SampleWindow window, MessageQuery query, int timeout, int retryCount, SearchRegistry.RunningSearch running, List<TopicMessage> hits, int hitLimit) {
+        long[] counts = new long[3];
+        Predicate<ConsumerRecord<byte[], byte[]>> visitor = record -> {
+            counts[1]++;
+            running.scanned.incrementAndGet();
+            running.scannedBytes.addAndGet(recordBytes(record));
+            if (query.isMatchAll() || query.matches(new RecordView(record))) {
+                counts[2]++;
+                running.matched.incrementAndGet();
+                if (hits.size() < hitLimit) hits.add(payloadDecoderService.toMessage(clusterId, record));
+            }
+            return true;
+        };
+
+        long position = recordRangeCache.replay(clusterId, window.tp, window.from, window.to, visitor);
+        if (position < window.to) {
+            consumer.assign(Collections.singletonList(window.tp));
+            consumer.seek(window.tp, position);
+            int emptyPolls = 0;
+            while (position < window.to && emptyPolls <= retryCount && !running.cancelled.get() && !running.isExpired()) {
+                List<ConsumerRecord<byte[], byte[]>> records = consumer.poll(Duration.ofMillis(timeout)).records(window.tp);
+                if (records.isEmpty()) {
+                    emptyPolls++;
+                    continue;
+                }
+                emptyPolls = 0;
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    if (record.offset() >= window.to) break;
+                    visitor.test(record);
+                }
+                position = consumer.position(window.tp);
+            }
+        }
+        counts[0] = Math.min(position, window.to) - window.from;
+        return counts;
+    }
+
+    // partitions resolves what to scan with the leased consumer
+    private ScanSpec execute(Long clusterId, Function<KafkaConsumer<byte[], byte[]>, List<TopicPartition>> partitions, Long startTime, Long endTime, Long startOffset, Long endOffset, MessageQuery query, int limit, String scanDirection, int timeout, int retryCount, ScanState state) {
+        Map<Integer, PartitionOffsetRange> partitionBounds = new HashMap<>();
+
+        // Offset and timestamp conditions of the query narrow the range that is read at all
+        startTime = maxOf(startTime, query.minTimestamp());
+        endTime = minOf(endTime, query.maxTimestamp());
+        startOffset = maxOf(startOffset, query.minOffset());
+        endOffset = minOf(endOffset, query.maxOffset());
+
+        try (SearchConsumerPool.Lease lease = searchConsumerPool.lease(clusterId)) {
+            KafkaConsumer<byte[], byte[]> consumer = lease.consumer();
+            List<TopicPartition> tps = partitions.apply(consumer);
+            consumer.assign(tps);
+
+            // Fetch Partition Bounds (Min/Max) for UI
+            Map<TopicPartition, Long> logStartOffsets = consumer.beginningOffsets(tps);
+            Map<TopicPartition, Long> logEndOffsets = consumer.endOffsets(tps);
+
+            for (TopicPartition tp : tps) {
+                partitionBounds.put(tp.partition(), PartitionOffsetRange.builder()
+                        .partition(tp.partition())
+                        .minOffset(logStartOffsets.getOrDefault(tp, 0L))
+                        .maxOffset(logEndOffsets.getOrDefault(tp, 0L))
+                        .build());
+            }
+            if (state.listener != null) {
+                state.listener.onBounds(partitionBounds);
+            }
+
+            Map<TopicPartition, Long> startOffsets = new HashMap<>();
+            Map<TopicPartition, Long> endOffsets = new HashMap<>();
+            // Newest First without conditions: last limit messages
+            int lastRecords = "desc".equalsIgnoreCase(scanDirection) ? limit : 0;
+            resolveRange(clusterId, tps, logStartOffsets, logEndOffsets, startTime, endTime, startOffset, endOffset, lastRecords, startOffsets, endOffsets);
+
+            ScanSpec spec = new ScanSpec(clusterId, query, "desc".equalsIgnoreCase(scanDirection), timeout, retryCount, startOffsets, endOffsets, partitionBounds, Collections.emptySet());
+            scan(clusterId, lease, tps, spec, state);
+            return spec;
+        }
+    }
+
+    private static List<TopicPartition> partitionsOf(KafkaConsumer<byte[], byte[]> consumer, String topicName, List<Integer> partitionIds, MessageQuery query) {
+        List<TopicPartition> tps = new ArrayList<>();
+        if (partitionIds != null && !partitionIds.isEmpty()) {
+            for (Integer pid : partitionIds) {
+                tps.add(new TopicPartition(topicName, pid));
+            }
+        } else {
+            consumer.partitionsFor(topicName).forEach(p -> tps.add(new TopicPartition(topicName, p.partition())));
+        }
+        tps.removeIf(tp -> !query.acceptsPartition(tp.partition()));
+        return tps;
+    }
+
+    // Fills startOffsets/endOffsets with the log bounds narrowed by the time and offset conditions.
+    // Without conditions and with lastRecords > 0, only that many newest records per partition are kept.
+    private void resolveRange(Long clusterId, List<TopicPartition> tps, Map<TopicPartition, Long> logStartOffsets, Map<TopicPartition, Long> logEndOffsets, Long startTime, Long endTime, Long startOffset, Long endOffset, int lastRecords, Map<TopicPartition, Long> startOffsets, Map<TopicPartition, Long> endOffsets) {
+        // Initialize with Log Bounds
+        for (TopicPartition tp : tps) {
+            startOffsets.put(tp, logStartOffsets.getOrDefault(tp, 0L));
+            endOffsets.put(tp, logEndOffsets.getOrDefault(tp, 0L));
+        }
+
+        boolean hasTimeConstraint = startTime != null || endTime != null;
+        boolean hasOffsetConstraint = startOffset != null || endOffset != null;
+
+        if (!hasTimeConstraint && !hasOffsetConstraint) {
+            if (lastRecords > 0) {
+                for (TopicPartition tp : tps) {
+                    long end = endOffsets.get(tp);
+                    startOffsets.put(tp, Math.max(0, end - lastRecords));
+                }
+            }
+            return;
+        }
+
+        // Apply Time Constraints
+        if (startTime != null) {
+            Map<TopicPartition, Long> offsets = timeIndexService.offsetsForTime(clusterId, tps, startTime, logStartOffsets);
+            for (TopicPartition tp : tps) {
+                Long offset = offsets.get(tp);
+                if (offset != null) {
+                    startOffsets.put(tp, Math.max(startOffsets.get(tp), offset));
+                } else {
+                    startOffsets.put(tp, endOffsets.get(tp)); // Time is future
+                }
+            }
+        }
+        if (endTime != null) {
+            Map<TopicPartition, Long> offsets = timeIndexService.offsetsForTime(clusterId, tps, endTime, logStartOffsets);
+            for (TopicPartition tp : tps) {
+                Long offset = offsets.get(tp);
+                if (offset != null) {
+                    endOffsets.put(tp, Math.min(endOffsets.get(tp), offset));
+                }
+                // If null, time is future, so keep Log End Offset
+            }
+        }
+
+        // Apply Offset Constraints
+        if (startOffset != null) {
+            for (TopicPartition tp : tps) {
+                startOffsets.put(tp, Math.max(startOffsets.get(tp), startOffset));
+            }
+        }
+        if (endOffset != null) {
+            for (TopicPartition tp : tps) {
+                endOffsets.put(tp, Math.min(endOffsets.get(tp), endOffset));
+            }
+        }
+    }
+
+    private void scan(Long clusterId, SearchConsumerPool.Lease lease, List<TopicPartition> tps, ScanSpec spec, ScanState state) {
+        try {
+            runScan(clusterId, lease.consumer(), tps, spec, state);
+        } catch (RuntimeException e) {
+            lease.invalidate();
+            throw e;
+        }
+    }
+
+    // Splits the partitions into groups and scans each group with its own pooled consumer.
+    // The first group reuses the caller's consumer on the calling thread, the rest go to the worker pool.
+    // Extra consumers are only taken if the pool can hand them out without waiting, so a busy pool
+    // lowers the parallelism instead of blocking searches on each other.
+    private void runScan(Long clusterId, KafkaConsumer<byte[], byte[]> consumer, List<TopicPartition> tps, ScanSpec spec, ScanState state) {
+        if (tps.isEmpty()) return;
+
+        int wanted = Math.min(searchProperties.parallelismFor(clusterId), tps.size());
+        List<SearchConsumerPool.Lease> extraLeases = new ArrayList<>();
+        for (int i = 1; i < wanted; i++) {
+            SearchConsumerPool.Lease extra = searchConsumerPool.tryLease(clusterId);
+            if (extra == null) break;
+            extraLeases.add(extra);
+        }
+        List<List<TopicPartition>> groups = splitPartitions(tps, 1 + extraLeases.size());
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < groups.size(); i++) {
+            List<TopicPartition> group = groups.get(i);
+            SearchConsumerPool.Lease workerLease = extraLeases.get(i - 1);
+            try {
+                futures.add(scanExecutor.submit(() -> {
+                    try (workerLease) {
+                        try {
+                            scanGroup(workerLease.consumer(), group, spec, state);
+                        } catch (RuntimeException e) {
+                            workerLease.invalidate();
+                            throw e;
+                        }
+                    }
+                    return null;
+                }));
+            } catch (RejectedExecutionException e) {
+                workerLease.close();
+                throw e;
+            }
+        }
+
+        Throwable failure = null;
+        try {
+            scanGroup(consumer, groups.get(0), spec, state);
+        } catch (RuntimeException e) {
+            failure = e;
+            state.stop();
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) failure = e.getCause();
+                state.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                state.stop();
+                if (failure == null) failure = e;
+            }
+        }
+
+        if (failure != null) {
+            log.warn("Message scan failed for cluster {}: {}", clusterId, failure.getMessage());
+            throw new RuntimeException("Message scan failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    // Round-robin so that each group gets a similar number of partitions
+    private List<List<TopicPartition>> splitPartitions(List<TopicPartition> tps, int parallelism) {
+        int groupCount = Math.min(parallelism, tps.size());
+        List<List<TopicPartition>> groups = new ArrayList<>();
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < tps.size(); i++) {
+            groups.get(i % groupCount).add(tps.get(i));
+        }
+        return groups;
+    }
+
+    private void scanGroup(KafkaConsumer<byte[], byte[]> consumer, List<TopicPartition> tps, ScanSpec spec, ScanState state) {
+        consumer.assign(tps);
+        if (spec.desc) {
+            scanReverse(consumer, tps, spec, state);
+        } else {
+            scanForward(consumer, tps, spec, state);
+        }
+    }
+
+    // Reverse Scan Strategy (Newest First)
+    // We scan backwards in chunks from endOffsets to startOffsets
+    private void scanReverse(KafkaConsumer<byte[], byte[]> consumer, List<TopicPartition> tps, ScanSpec spec, ScanState state) {
+        ChunkSizer sizer = new ChunkSizer(spec, state, searchProperties);
+        Map<TopicPartition, Long> currentEnds = new HashMap<>();
+        for (TopicPartition tp : tps) {
+            currentEnds.put(tp, spec.endOffsets.get(tp));
+        }
+        Map<TopicPartition, Long> resumeEnds = new HashMap<>(currentEnds);
+        ProgressReporter progress = new ProgressReporter(state, spec);
+        RecordRangeCache.Recorder recorder = recordRangeCache.recorder(spec.clusterId);
+        boolean anyPartitionHasData = true;
+
+        try {
+            while (!state.isDone() && anyPartitionHasData) {
+                anyPartitionHasData = false;
+                List<TopicPartition> activePartitions = new ArrayList<>();
+                Map<TopicPartition, Long> chunkTargetEnds = new HashMap<>();
+
+                int remainingPartitions = 0;
+                for (TopicPartition tp : tps) {
+                    if (currentEnds.get(tp) > spec.startOffsets.get(tp)) remainingPartitions++;
+                }
+                int chunkSize = remainingPartitions == 0 ? 0 : sizer.next(remainingPartitions);
+
+                for (TopicPartition tp : tps) {
+                    long absStart = spec.startOffsets.get(tp);
+                    long currentEnd = currentEnds.get(tp);
+
+                    if (currentEnd > absStart) {
+                        long chunkStart = Math.max(absStart, currentEnd - chunkSize);
+                        anyPartitionHasData = true;
+
+                        // Update cursor for next iteration
+                        currentEnds.put(tp, chunkStart);
+
+                        // The cached part of the chunk is read locally, only the rest is fetched
+                        long fetchFrom = recordRangeCache.replay(spec.clusterId, tp, chunkStart, currentEnd, record -> {
+                            state.scanned.incrementAndGet();
+                            boolean matched = matches(record, spec);
+                            if (matched) {
+                                state.addMatch(payloadDecoderService.toMessage(spec.clusterId, record));
+                            }
+                            sizer.observe(record, matched);
+                            return true;
+                        });
+                        if (fetchFrom < currentEnd) {
+                            consumer.seek(tp, fetchFrom);
+                            recorder.start(tp, fetchFrom);
+                            activePartitions.add(tp);
+                            chunkTargetEnds.put(tp, currentEnd);
+                        } else {
+                            consumer.pause(Collections.singleton(tp));
+                            resumeEnds.put(tp, chunkStart);
+                        }
+                    } else {
+                        consumer.pause(Collections.singleton(tp));
+                    }
+                }
+
+                if (!anyPartitionHasData) break;
+
+                consumer.resume(activePartitions);
+
+                // Poll this chunk
+                boolean chunkComplete = activePartitions.isEmpty() || state.isDone();
+                int emptyPolls = 0;
+
+                while (!chunkComplete && emptyPolls < spec.retryCount) {
+                    ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofMillis(spec.timeout));
+                    if (records.isEmpty()) {
+                        emptyPolls++;
+                    } else {
+                        emptyPolls = 0;
+                        for (ConsumerRecord<byte[], byte[]> record : records) {
+                            recorder.append(record);
+                            TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+                            if (!chunkTargetEnds.containsKey(tp)) continue;
+                            if (record.offset() >= chunkTargetEnds.get(tp)) continue;
+                            state.scanned.incrementAndGet();
+
+                            boolean matched = matches(record, spec);
+                            if (matched) {
+                                state.addMatch(payloadDecoderService.toMessage(spec.clusterId, record));
+                            }
+                            sizer.observe(record, matched);
+                        }
+                    }
+
+                    // Check if all active partitions reached their target
+                    boolean allReached = true;
+                    for (TopicPartition tp : activePartitions) {
+                        if (consumer.position(tp) < chunkTargetEnds.get(tp)) {
+                            allReached = false;
+                            break;
+                        }
+                    }
+                    if (allReached) chunkComplete = true;
+                    if (state.isDone()) chunkComplete = true;
+                    progress.report(chunkComplete ? currentEnds : chunkTargetEnds, chunkComplete);
+                }
+
+                // A chunk cut short by the limit has an unscanned top, so a resumed scan restarts at its end.
+                // Chunks given up after empty polls are skipped, as they are within this scan.
+                for (TopicPartition tp : activePartitions) {
+                    boolean cut = state.isDone() && consumer.position(tp) < chunkTargetEnds.get(tp);
+                    resumeEnds.put(tp, cut ? chunkTargetEnds.get(tp) : currentEnds.get(tp));
+                }
+            }
+        } finally {
+            recorder.finish();
+            sizer.flush();
+        }
+        state.resumeOffsets.putAll(resumeEnds);
+    }
+
+    // Forward Scan (ASC) - Oldest First
+    private void scanForward(KafkaConsumer<byte[], byte[]> consumer, List<TopicPartition> tps, ScanSpec spec, ScanState state) {
+        // Next offset to examine per partition; a poll batch may be left half-read when the limit is hit
+        Map<TopicPartition, Long> next = new HashMap<>();
+        RecordRangeCache.Recorder recorder = recordRangeCache.recorder(spec.clusterId);
+        try {
+            for (TopicPartition tp : tps) {
+                Long start = spec.startOffsets.get(tp);
+                long end = spec.endOffsets.get(tp);
+                if (start != null && start != -1L) {
+                    next.put(tp, start);
+                    // Serve the cached prefix of the range locally and fetch from where it ends
+                    long fetchFrom = state.isDone() ? start
+                            : recordRangeCache.replay(spec.clusterId, tp, start, end, record -> {
+                                state.scannedBytes.addAndGet(recordBytes(record));
+                                return examineForward(record, tp, spec, state, next);
+                            });
+                    consumer.seek(tp, fetchFrom);
+                    recorder.start(tp, fetchFrom);
+                } else {
+                    consumer.seek(tp, end);
+                    next.put(tp, end);
+                }
+            }
+            ProgressReporter progress = new ProgressReporter(state, spec);
+            boolean exhausted = false;
+
+            while (state.scanned.get() < MAX_SCANNED && !state.isDone()) {
+                if (!anyRemaining(consumer, tps, spec)) {
+                    exhausted = true;
+                    break;
+                }
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofMillis(spec.timeout));
+                if (records.isEmpty()) {
+                    progress.report(positions(consumer, tps), false);
+                    continue;
+                }
+
+                long batchBytes = 0;
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    recorder.append(record);
+                    batchBytes += recordBytes(record);
+                    TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+                    if (!examineForward(record, tp, spec, state, next)) {
+                        break;
+                    }
+                }
+                state.scannedBytes.addAndGet(batchBytes);
+
+                boolean remaining = anyRemaining(consumer, tps, spec);
+                progress.report(positions(consumer, tps), !remaining);
+                if (!remaining) {
+                    exhausted = true;
+                    break;
+                }
+            }
+
+            for (TopicPartition tp : tps) {
+                state.resumeOffsets.put(tp, exhausted ? spec.endOffsets.get(tp) : next.get(tp));
+            }
+        } finally {
+            recorder.finish();
+        }
+    }
+
+    // Returns false once the limit is reached; that record is left for a resumed scan
+    private boolean examineForward(ConsumerRecord<byte[], byte[]> record, TopicPartition tp, ScanSpec spec, ScanState state, Map<TopicPartition, Long> next) {
+        state.scanned.incrementAndGet();
+        if (record.offset() >= spec.endOffsets.get(tp)) {
+            return true;
+        }
+        if (matches(record, spec) && !state.tryAddMatch(payloadDecoderService.toMessage(spec.clusterId, record))) {
+            return false;
+        }
+        next.put(tp, record.offset() + 1);
+        return true;
+    }
+
+    private boolean anyRemaining(KafkaConsumer<byte[], byte[]> consumer, List<TopicPartition> tps, ScanSpec spec) {
+        for (TopicPartition tp : tps) {
+            if (consumer.position(tp) < spec.endOffsets.get(tp)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<TopicPartition, Long> positions(KafkaConsumer<byte[], byte[]> consumer, List<TopicPartition> tps) {
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        for (TopicPartition tp : tps) {
+            positions.put(tp, consumer.position(tp));
+        }
+        return positions;
+    }
+
+    // Matching runs on the raw bytes; only records that match are decoded for the result
+    private boolean matches(ConsumerRecord<byte[], byte[]> record, ScanSpec spec) {
+        if (!spec.query.isMatchAll() && !spec.query.matches(new RecordView(record))) return false;
+        return spec.excluded.isEmpty() || !spec.excluded.contains(record.partition() + ":" + record.offset());
+    }
+
+    private static long recordBytes(ConsumerRecord<byte[], byte[]> record) {
+        return Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+    }
+
+    private static Long maxOf(Long a, Long b) {
+        if (a == null) return b;
+        return b == null ? a : Math.max(a, b);
+    }
+
+    private static Long minOf(Long a, Long b) {
+        if (a == null) return b;
+        return b == null ? a : Math.min(a, b);
+    }
+
+    private int clampLimit(int limit) {
+        // Enforce limit constraints
+        if (limit > 1000) return 1000;
+        if (limit < 1) return 1;
+        return limit;
+    }
+
+    private static ExecutorService newPool(String prefix, int threads, BlockingQueue<Runnable> queue) {
+        AtomicInteger seq = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, queue, r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // Offsets [from, to) of one partition read by a sampling estimate
+    private static class SampleWindow {
+        final TopicPartition tp;
+        final long from;
+        final long to;
+
+        SampleWindow(TopicPartition tp, long from, long to) {
+            this.tp = tp;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    // Immutable inputs shared by all workers of one search
+    private static class ScanSpec {
+        final Long clusterId;
+        final MessageQuery query;
+        final boolean desc;
+        final int timeout;
+        final int retryCount;
+        final Map<TopicPartition, Long> startOffsets;
+        final Map<TopicPartition, Long> endOffsets;
+        final Map<Integer, PartitionOffsetRange> partitionBounds;
+        final Set<String> excluded; // "partition:offset" of matches already returned by a previous batch
+
+        ScanSpec(Long clusterId, MessageQuery query, boolean desc, int timeout, int retryCount,
+                 Map<TopicPartition, Long> startOffsets, Map<TopicPartition, Long> endOffsets,
+                 Map<Integer, PartitionOffsetRange> partitionBounds, Set<String> excluded) {
+            this.clusterId = clusterId;
+            this.query = query;
+            this.desc = desc;
+            this.timeout = timeout;
+            this.retryCount = retryCount;
+            this.startOffsets = startOffsets;
+            this.endOffsets = endOffsets;
+            this.partitionBounds = partitionBounds;
+            this.excluded = excluded;
+        }
+    }
+
+    // Mutable state shared by all workers of one search.
+    // Matches go either to the bounded collector or, for streaming, straight to the listener.
+    private static class ScanState {
+        final int limit;
+        final MessageSearchListener listener;
+        final AtomicBoolean cancelled;
+        final TopKCollector<TopicMessage> collector;
+        final SearchRegistry.RunningSearch running;
+        // Counters live in the registry entry so that running searches can be listed with progress
+        final AtomicInteger matched;
+        final AtomicInteger scanned;
+        final AtomicLong scannedBytes;
+        volatile boolean deadlineExceeded;
+        final List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+        // Per partition, where a later batch has to continue: the next offset for forward scans,
+        // the exclusive upper bound of the unscanned range for reverse scans
+        final Map<TopicPartition, Long> resumeOffsets = new ConcurrentHashMap<>();
+
+        ScanState(int limit, MessageSearchListener listener, TopKCollector<TopicMessage> collector, SearchRegistry.RunningSearch running) {
+            this.limit = limit;
+            this.listener = listener;
+            this.collector = collector;
+            this.running = running;
+            this.cancelled = running.cancelled;
+            this.matched = running.matched;
+            this.scanned = running.scanned;
+            this.scannedBytes = running.scannedBytes;
+        }
+
+        void stop() {
+            cancelled.set(true);
+        }
+
+        boolean isDone() {
+            if (cancelled.get() || matched.get() >= limit) return true;
+            if (running.isExpired()) {
+                deadlineExceeded = true;
+                return true;
+            }
+            return false;
+        }
+
+        ScanStats stats() {
+            List<Integer> chunks;
+            synchronized (chunkSizes) {
+                chunks = new ArrayList<>(chunkSizes);
+            }
+            return ScanStats.builder()
+                    .scannedRecords(scanned.get())
+                    .scannedBytes(scannedBytes.get())
+                    .chunkSizes(chunks)
+                    .cancelled(cancelled.get() && !deadlineExceeded)
+                    .deadlineExceeded(deadlineExceeded)
+                    .build();
+        }
+
+        // Reverse scans keep the whole chunk even past the limit so the newest records are not lost
+        void addMatch(TopicMessage message) {
+            if (listener != null) {
+                // Nothing is sorted afterwards, so a stream never needs more than the limit
+                tryAddMatch(message);
+                return;
+            }
+            collector.offer(message);
+            matched.incrementAndGet();
+        }
+
+        // Forward scans stop exactly at the limit
+        boolean tryAddMatch(TopicMessage message) {
+            if (matched.incrementAndGet() > limit) {
+                return false;
+            }
+            if (listener != null) {
+                listener.onMatch(message);
+            } else {
+                collector.offer(message);
+            }
+            return true;
+        }
+    }
+
+    // Picks the per-partition chunk length of each reverse scan round from what the earlier rounds of
+    // the same worker saw: enough records to find the remaining matches at the observed match rate,
+    // but no more than the memory budget allows at the observed record size.
+    private static class ChunkSizer {
+        private static final double DEFAULT_RECORD_BYTES = 1024;
+        private static final double SAFETY = 1.25;
+        private static final int MAX_GROWTH = 4;
+
+        private final ScanState state;
+        private final boolean matchAll;
+        private final int min;
+        private final int max;
+        private final long budgetBytes;
+        private long records;
+        private long bytes;
+        private long matches;
+        private long unflushedBytes;
+        private int last;
+
+        ChunkSizer(ScanSpec spec, ScanState state, SearchProperties properties) {
+            this.state = state;
+            this.matchAll = spec.query.isMatchAll() && spec.excluded.isEmpty();
+            this.min = Math.max(1, properties.getReverseChunkMin());
+            this.max = Math.max(min, properties.getReverseChunkMax());
+            this.budgetBytes = Math.max(1, properties.getReverseChunkMemoryBytes());
+        }
+
+        void observe(ConsumerRecord<byte[], byte[]> record, boolean matched) {
+            long size = recordBytes(record);
+            records++;
+            bytes += size;
+            unflushedBytes += size;
+            if (matched) matches++;
+        }
+
+        int next(int partitions) {
+            flush();
+            int remaining = Math.max(1, state.limit - state.matched.get());
+            // Laplace-smoothed, so a round without matches still lets the chunk grow
+            double matchRate = matchAll ? 1.0 : (matches + 1.0) / (records + 2.0);
+            double bytesPerRecord = records > 0 ? Math.max(1.0, (double) bytes / records) : DEFAULT_RECORD_BYTES;
+
+            double wanted = Math.ceil(remaining / matchRate / partitions * SAFETY);
+            double byBudget = budgetBytes / (bytesPerRecord * partitions);
+            double size = Math.min(wanted, byBudget);
+            if (last > 0) size = Math.min(size, (double) last * MAX_GROWTH);
+            last = (int) Math.max(min, Math.min(max, size));
+
+            if (state.chunkSizes.size() < MAX_REPORTED_CHUNKS) {
+                state.chunkSizes.add(last);
+            }
+            return last;
+        }
+
+        void flush() {
+            state.scannedBytes.addAndGet(unflushedBytes);
+            unflushedBytes = 0;
+        }
+    }
+
+    // Throttled per-worker progress events for streaming searches
+    private static class ProgressReporter {
+        private final ScanState state;
+        private final ScanSpec spec;
+        private long lastReportAt;
+
+        ProgressReporter(ScanState state, ScanSpec spec) {
+            this.state = state;
+            this.spec = spec;
+        }
+
+        void report(Map<TopicPartition, Long> currentOffsets, boolean force) {
+            if (state.listener == null) return;
+            long now = System.currentTimeMillis();
+            if (!force && now - lastReportAt < PROGRESS_INTERVAL_MS) return;
+            lastReportAt = now;
+            for (Map.Entry<TopicPartition, Long> entry : currentOffsets.entrySet()) {
+                TopicPartition tp = entry.getKey();
+                long start = spec.startOffsets.get(tp);
+                long end = spec.endOffsets.get(tp);
+                state.listener.onProgress(SearchProgress.builder()
+                        .partition(tp.partition())
+                        .startOffset(start)
+                        .endOffset(end)
+                        .currentOffset(Math.max(start, Math.min(end, entry.getValue())))
+                        .build());
+            }
+        }
+    }
+
+    // Writes listener callbacks to an SSE emitter. A failed write means the client went away,
+    // which cancels the scan.
+    private static class SseListener implements MessageSearchListener {
+        private final SseEmitter emitter;
+        private final AtomicBoolean cancelled;
+
+        SseListener(SseEmitter emitter, AtomicBoolean cancelled) {
+            this.emitter = emitter;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public void onBounds(Map<Integer, PartitionOffsetRange> partitionOffsets) {
+            send("bounds", partitionOffsets);
+        }
+
+        @Override
+        public void onMatch(TopicMessage message) {
+            send("match", message);
+        }
+
+        @Override
+        public void onProgress(SearchProgress progress) {
+            send("progress", progress);
+        }
+
+        void send(String event, Object data) {
+            if (cancelled.get() && !"done".equals(event)) return;
+            try {
+                synchronized (emitter) {
+                    emitter.send(SseEmitter.event().name(event).data(data));
+                }
+            } catch (IOException | IllegalStateException e) {
+                cancelled.set(true);
+            }
+        }
+    }
+}
@@ -19,7 +19,6 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,24 +26,25 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MonitorService {
 
-    private final KafkaAdminService kafkaAdminService;
     private final ClusterService clusterService;
+    private final TopicMetadataCache topicMetadataCache;
+    private final AdminCallCoalescer adminCallCoalescer;
 
+    // Dashboards of the same cluster refreshing together share the broker and log dir requests
     public ClusterMetrics getMetrics(Long clusterId) {
-        AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
         ClusterInfo clusterInfo = clusterService.getClusterById(clusterId);
 
         try {
             // 1. 获取集群节点信息
-            DescribeClusterResult clusterResult = admin.describeCluster();
-            Collection<Node> nodes = clusterResult.nodes().get();
-            Node controller = clusterResult.controller().get();
+            Collection<Node> nodes = adminCallCoalescer.share(clusterId, "describeCluster.nodes", null,
+                    admin -> admin.describeCluster().nodes()).get();
             int brokerCount = nodes.size();
 
-            // 2. 获取 Topic 列表
-            ListTopicsResult listTopics = admin.listTopics();
-            Set<String> names = listTopics.names().get();
-            int topicCount = names.size();
+            // 2. 获取 Topic 列表 (from the metadata cache, internal topics excluded)
+            List<TopicDescription> topics = topicMetadataCache.topics(clusterId).values().stream()
+                    .filter(td -> !td.isInternal())
+                    .collect(Collectors.toList());
+            int topicCount = topics.size();
 
             // 3. 获取 Topic 详细信息 (分区、副本)
             int partitionCount = 0;
@@ -53,31 +53,20 @@ public class MonitorService {
             int offline = 0;
             int totalReplicas = 0;
 
-            if (!names.isEmpty()) {
-                try {
-                    DescribeTopicsResult describeTopics = admin.describeTopics(names);
-                    for (TopicDescription td : describeTopics.all().get().values()) {
-                        partitionCount += td.partitions().size();
-                        for (TopicPartitionInfo p : td.partitions()) {
-                            int isrSize = p.isr() == null ? 0 : p.isr().size();
-                            int replicaSize = p.replicas() == null ? 0 : p.replicas().size();
-                            totalReplicas += replicaSize;
-                            log.debug("Topic {} partition {}: isrSize={} replicaSize={} leader={}", td.name(), p.partition(), isrSize, replicaSize, p.leader());
-                            if (isrSize < replicaSize) {
-                                underReplicated++;
-                                underReplicatedReplicas += (replicaSize - isrSize);
-                                log.warn("Under-replicated detected for {}-{}: isr={} replicas={}", td.name(), p.partition(), isrSize, replicaSize);
-                            }
-                            if (p.leader() == null) {
-                                offline++;
-                            }
-                        }
+            for (TopicDescription td : topics) {
+                partitionCount += td.partitions().size();
+                for (TopicPartitionInfo p : td.partitions()) {
+                    int isrSize = p.isr() == null ? 0 : p.isr().size();
+                    int replicaSize = p.replicas() == null ? 0 : p.replicas().size();
+                    totalReplicas += replicaSize;
+                    log.debug("Topic {} partition {}: isrSize={} replicaSize={} leader={}", td.name(), p.partition(), isrSize, replicaSize, p.leader());
+                    if (isrSize < replicaSize) {
+                        underReplicated++;
+                        underReplicatedReplicas += (replicaSize - isrSize);
+                        log.warn("Under-replicated detected for {}-{}: isr={} replicas={}", td.name(), p.partition(), isrSize, replicaSize);
                     }
-                } catch (ExecutionException e) {
-                    if (e.getCause() instanceof org.apache.kafka.common.errors.UnknownTopicOrPartitionException) {
-                        log.warn("Some topics were deleted during metrics fetch, ignoring.");
-                    } else {
-                        throw e;
+                    if (p.leader() == null) {
+                        offline++;
                     }
                 }
             }
@@ -85,9 +74,10 @@ public class MonitorService {
             // 4. 获取磁盘使用量 (尝试获取)
             long totalDisk = 0;
             try {
-                List<Integer> brokerIds = nodes.stream().map(Node::id).collect(Collectors.toList());
-                DescribeLogDirsResult logDirs = admin.describeLogDirs(brokerIds);
-                for (Map<String, LogDirDescription> map : logDirs.allDescriptions().get().values()) {
+                List<Integer> brokerIds = nodes.stream().map(Node::id).sorted().collect(Collectors.toList());
+                Map<Integer, Map<String, LogDirDescription>> logDirs = adminCallCoalescer.share(clusterId, "describeLogDirs", brokerIds,
+                        admin -> admin.describeLogDirs(brokerIds).allDescriptions()).get();
+                for (Map<String, LogDirDescription> map : logDirs.values()) {
                     for (LogDirDescription logDir : map.values()) {
                         for (ReplicaInfo replica : logDir.replicaInfos().values()) {
                             totalDisk += replica.size();
@@ -0,0 +1,291 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.decode.*;
+import com.kafkaview.event.ClusterChangedEvent;
+import com.kafkaview.mapper.TopicFormatMapper;
+import com.kafkaview.model.TopicFormat;
+import com.kafkaview.model.TopicMessage;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Decodes keys and values of returned records with the decoders configured per topic (string by default).
+// New formats plug in as a factory in init(). Avro schemas are fetched from the schema registry once per
+// id and kept compiled in an LRU cache, so decoding costs one registry call per distinct schema.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PayloadDecoderService {
+
+    private static final String DEFAULT_FORMAT = "string";
+    // A schema that failed to load is not requested again for this long
+    private static final long SCHEMA_RETRY_MS = 30000;
+
+    private final TopicFormatMapper topicFormatMapper;
+    private final SearchProperties searchProperties;
+
+    // format -> factory taking the schema registry URL
+    private final Map<String, Function<String, PayloadDecoder>> factories = new LinkedHashMap<>();
+    // "cluster/topic" -> decoders
+    private final Map<String, TopicDecoders> topics = new ConcurrentHashMap<>();
+    // "registry#id" -> compiled schema, least recently used first
+    private final Map<String, AvroSchema> schemas = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> schemaFailures = new ConcurrentHashMap<>();
+    private SchemaRegistryClient registryClient;
+
+    @PostConstruct
+    public void init() {
+        registryClient = new SchemaRegistryClient(Duration.ofMillis(searchProperties.getSchemaRegistryTimeoutMs()));
+        PayloadDecoder string = new StringDecoder("string");
+        PayloadDecoder json = new StringDecoder("json");
+        PayloadDecoder protobuf = new ProtobufDecoder();
+        factories.put("string", url -> string);
+        factories.put("json", url -> json);
+        factories.put("hex", url -> HexDecoder.INSTANCE);
+        factories.put("protobuf", url -> protobuf);
+        factories.put("avro", url -> new AvroDecoder(id -> resolveSchema(url, id)));
+    }
+
+    // Key and value cut to preview-max-chars, for result lists that hold many records
+    public TopicMessage toMessage(Long clusterId, ConsumerRecord<byte[], byte[]> record) {
+        return build(clusterId, record, searchProperties.getPreviewMaxChars());
+    }
+
+    // Full key and value plus headers, for a single record
+    public TopicMessage toFullMessage(Long clusterId, ConsumerRecord<byte[], byte[]> record) {
+        TopicMessage message = build(clusterId, record, 0);
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (Header header : record.headers()) {
+            headers.put(header.key(), header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8));
+        }
+        message.setHeaders(headers);
+        return message;
+    }
+
+    public String decodeKey(Long clusterId, ConsumerRecord<byte[], byte[]> record) {
+        return decode(decodersFor(clusterId, record.topic()).key, record.key(), record);
+    }
+
+    // A key outside of a record, e.g. from an aggregate
+    public String decodeKey(Long clusterId, String topicName, byte[] key) {
+        if (key == null) return null;
+        PayloadDecoder decoder = decodersFor(clusterId, topicName).key;
+        try {
+            return decoder.decode(key);
+        } catch (Exception e) {
+            return HexDecoder.INSTANCE.decode(key);
+        }
+    }
+
+    public String decodeValue(Long clusterId, ConsumerRecord<byte[], byte[]> record) {
+        return decode(decodersFor(clusterId, record.topic()).value, record.value(), record);
+    }
+
+    public Set<String> formats() {
+        return Collections.unmodifiableSet(factories.keySet());
+    }
+
+    // The stored configuration, or the defaults when the topic has none
+    public TopicFormat getFormat(Long clusterId, String topicName) {
+        TopicFormat format = topicFormatMapper.select(clusterId, topicName);
+        if (format != null) return format;
+        return TopicFormat.builder()
+                .clusterId(clusterId)
+                .topicName(topicName)
+                .keyFormat(DEFAULT_FORMAT)
+                .valueFormat(DEFAULT_FORMAT)
+                .build();
+    }
+
+    public void setFormat(TopicFormat format) {
+        format.setKeyFormat(normalize(format.getKeyFormat()));
+        format.setValueFormat(normalize(format.getValueFormat()));
+        if (!StringUtils.hasText(format.getSchemaRegistryUrl())) {
+            format.setSchemaRegistryUrl(null);
+        } else if (!allowedRegistry(format.getSchemaRegistryUrl())) {
+            // The server fetches from this URL, so only configured registries are accepted
+            throw new IllegalArgumentException("Schema registry " + format.getSchemaRegistryUrl() + " is not allowed; add it to kafka-view.search.schema-registry-allowed-urls");
+        }
+        boolean avro = "avro".equals(format.getKeyFormat()) || "avro".equals(format.getValueFormat());
+        if (avro && registryUrl(format) == null) {
+            throw new IllegalArgumentException("Avro needs a schema registry URL");
+        }
+        topicFormatMapper.upsert(format);
+        topics.remove(key(format.getClusterId(), format.getTopicName()));
+    }
+
+    public void deleteTopic(Long clusterId, String topicName) {
+        topicFormatMapper.delete(clusterId, topicName);
+        topics.remove(key(clusterId, topicName));
+    }
+
+    // Formats are kept across connection changes; decoders are rebuilt from them on next use
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        if (event.isRemoved()) {
+            removeCluster(event.getClusterId());
+        } else {
+            evictDecoders(event.getClusterId());
+        }
+    }
+
+    public void removeCluster(Long clusterId) {
+        topicFormatMapper.deleteByCluster(clusterId);
+        evictDecoders(clusterId);
+    }
+
+    private void evictDecoders(Long clusterId) {
+        String prefix = clusterId + "/";
+        topics.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    // maxChars <= 0 decodes in full
+    private TopicMessage build(Long clusterId, ConsumerRecord<byte[], byte[]> record, int maxChars) {
+        TopicDecoders decoders = decodersFor(clusterId, record.topic());
+        TopicMessage message = TopicMessage.builder()
+                .topic(record.topic())
+                .partition(record.partition())
+                .offset(record.offset())
+                .timestamp(record.timestamp())
+                .timestampType(record.timestampType().name())
+                .keySize(record.serializedKeySize())
+                .valueSize(record.serializedValueSize())
+                .valueFormat(decoders.value.format())
+                .build();
+        if (record.key() != null) {
+            message.setKey(preview(message, decoders.key, record.key(), record, maxChars, false));
+        }
+        if (record.value() != null) {
+            message.setValue(preview(message, decoders.value, record.value(), record, maxChars, true));
+        }
+        return message;
+    }
+
+    // Asks for one character more than allowed to tell whether the text was cut
+    private String preview(TopicMessage message, PayloadDecoder decoder, byte[] data, ConsumerRecord<byte[], byte[]> record, int maxChars, boolean value) {
+        String text;
+        try {
+            text = maxChars > 0 ? decoder.decodePreview(data, maxChars + 1) : decoder.decode(data);
+        } catch (Exception e) {
+            log.debug("Failed to decode {} payload at {}-{}@{}: {}", decoder.format(), record.topic(), record.partition(), record.offset(), e.getMessage());
+            if (value) message.setValueFormat(HexDecoder.INSTANCE.format());
+            text = maxChars > 0 ? HexDecoder.INSTANCE.decodePreview(data, maxChars + 1) : HexDecoder.INSTANCE.decode(data);
+        }
+        if (maxChars > 0 && text.length() > maxChars) {
+            message.setTruncated(true);
+            return text.substring(0, maxChars);
+        }
+        return text;
+    }
+
+    private String decode(PayloadDecoder decoder, byte[] data, ConsumerRecord<byte[], byte[]> record) {
+        if (data == null) return null;
+        try {
+            return decoder.decode(data);
+        } catch (Exception e) {
+            log.debug("Failed to decode {} payload at {}-{}@{}: {}", decoder.format(), record.topic(), record.partition(), record.offset(), e.getMessage());
+            return HexDecoder.INSTANCE.decode(data);
+        }
+    }
+
+    private TopicDecoders decodersFor(Long clusterId, String topicName) {
+        return topics.computeIfAbsent(key(clusterId, topicName), k -> {
+            TopicFormat format = getFormat(clusterId, topicName);
+            String url = registryUrl(format);
+            return new TopicDecoders(create(format.getKeyFormat(), url), create(format.getValueFormat(), url));
+        });
+    }
+
+    private PayloadDecoder create(String format, String registryUrl) {
+        Function<String, PayloadDecoder> factory = factories.get(format);
+        return (factory != null ? factory : factories.get(DEFAULT_FORMAT)).apply(registryUrl);
+    }
+
+    private AvroSchema resolveSchema(String registryUrl, int schemaId) throws Exception {
+        if (registryUrl == null) throw new IllegalStateException("No schema registry configured");
+        // Formats stored before the allow-list existed may still name other hosts
+        if (!allowedRegistry(registryUrl)) throw new IllegalStateException("Schema registry " + registryUrl + " is not allowed");
+        String cacheKey = registryUrl + "#" + schemaId;
+        synchronized (schemas) {
+            AvroSchema schema = schemas.get(cacheKey);
+            if (schema != null) return schema;
+        }
+        Long failedAt = schemaFailures.get(cacheKey);
+        if (failedAt != null && System.currentTimeMillis() - failedAt < SCHEMA_RETRY_MS) {
+            throw new IllegalStateException("Schema " + schemaId + " is unavailable");
+        }
+        AvroSchema schema;
+        try {
+            schema = AvroSchema.parse(registryClient.fetchSchema(registryUrl, schemaId));
+        } catch (Exception e) {
+            schemaFailures.put(cacheKey, System.currentTimeMillis());
+            log.warn("Failed to load schema {} from {}: {}", schemaId, registryUrl, e.getMessage());
+            throw e;
+        }
+        schemaFailures.remove(cacheKey);
+        synchronized (schemas) {
+            schemas.put(cacheKey, schema);
+            Iterator<String> it = schemas.keySet().iterator();
+            while (schemas.size() > Math.max(1, searchProperties.getSchemaCacheSize()) && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        return schema;
+    }
+
+    private String registryUrl(TopicFormat format) {
+        if (StringUtils.hasText(format.getSchemaRegistryUrl())) return format.getSchemaRegistryUrl();
+        return StringUtils.hasText(searchProperties.getSchemaRegistryUrl()) ? searchProperties.getSchemaRegistryUrl() : null;
+    }
+
+    private boolean allowedRegistry(String url) {
+        String wanted = trimSlashes(url);
+        if (StringUtils.hasText(searchProperties.getSchemaRegistryUrl()) && wanted.equals(trimSlashes(searchProperties.getSchemaRegistryUrl()))) {
+            return true;
+        }
+        for (String allowed : searchProperties.getSchemaRegistryAllowedUrls()) {
+            if (StringUtils.hasText(allowed) && wanted.equals(trimSlashes(allowed))) return true;
+        }
+        return false;
+    }
+
+    private static String trimSlashes(String url) {
+        return url.trim().replaceAll("/+$", "");
+    }
+
+    private String normalize(String format) {
+        if (!StringUtils.hasText(format)) return DEFAULT_FORMAT;
+        String name = format.trim().toLowerCase(Locale.ROOT);
+        if (!factories.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown format " + format + ", expected one of " + factories.keySet());
+        }
+        return name;
+    }
+
+    private static String key(Long clusterId, String topicName) {
+        return clusterId + "/" + topicName;
+    }
+
+    private static class TopicDecoders {
+        final PayloadDecoder key;
+        final PayloadDecoder value;
+
+        TopicDecoders(PayloadDecoder key, PayloadDecoder value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.event.ClusterChangedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.Uuid;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// On-disk cache of record ranges fetched by message search, so that re-opening the same range
+// does not pull it from the brokers again. Each segment is an immutable file holding every record
+// of one partition in [fromOffset, toOffset), read back through a memory mapping. Records are
+// written to the segment file as they are fetched, so recording costs a small write buffer per
+// partition rather than the range in memory. A sparse offset -> file position index kept with each
+// segment lets a lookup start decoding close to the offset instead of at the start of the segment.
+// Segments carry the id of the topic they were read from and are dropped once the metadata cache
+// reports another id, so a topic recreated under the same name never sees the old one's records.
+// The cache is bounded by total size (least recently used segments go first) and by age,
+// and is cleared on startup.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RecordRangeCache {
+
+    private static final int WRITE_BUFFER_BYTES = 16 * 1024;
+    // A sparse index entry at least every this many bytes, so a lookup decodes at most about this much
+    private static final int INDEX_INTERVAL_BYTES = 16 * 1024;
+
+    private final SearchProperties searchProperties;
+    private final TopicMetadataCache topicMetadataCache;
+
+    // "cluster/topic/partition" -> segments by fromOffset
+    private final Map<String, TreeMap<Long, Segment>> index = new HashMap<>();
+    private long totalBytes;
+
+    @PostConstruct
+    public void init() {
+        if (!searchProperties.isCacheEnabled()) return;
+        Path dir = Paths.get(searchProperties.getCacheDir());
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                files.filter(f -> f.getFileName().toString().endsWith(".seg")).forEach(this::deleteQuietly);
+            }
+        } catch (IOException e) {
+            log.warn("Record cache directory {} is not usable: {}", dir, e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return searchProperties.isCacheEnabled();
+    }
+
+    // Feeds cached records of [from, to) to the visitor in offset order, starting at from, until the
+    // visitor returns false or the cache has a gap. Returns the first offset that was not consumed,
+    // which is where reading from the brokers has to continue.
+    public long replay(Long clusterId, TopicPartition tp, long from, long to, Predicate<ConsumerRecord<byte[], byte[]>> visitor) {
+        if (!isEnabled()) return from;
+        Uuid topicId = topicMetadataCache.topicId(clusterId, tp.topic());
+        if (topicId == null) return from;
+        long position = from;
+        while (position < to) {
+            Segment segment = segmentAt(clusterId, tp, position, topicId);
+            if (segment == null) break;
+            ByteBuffer buffer = segment.buffer();
+            buffer.position(segment.positionOf(position));
+            while (buffer.hasRemaining()) {
+                ConsumerRecord<byte[], byte[]> record = readRecord(buffer, tp);
+                if (record.offset() < position) continue;
+                if (record.offset() >= to) return to;
+                if (!visitor.test(record)) return record.offset();
+                position = record.offset() + 1;
+            }
+            // Records past the last one in the segment (e.g. compacted away) are known not to exist
+            position = Math.max(position, segment.toOffset);
+        }
+        return Math.min(position, to);
+    }
+
+    // Collects the records a consumer fetches so they can be cached when the scan ends.
+    // Not thread-safe; each scan worker uses its own recorder.
+    public Recorder recorder(Long clusterId) {
+        return new Recorder(clusterId);
+    }
+
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        evictCluster(event.getClusterId());
+    }
+
+    public void evictCluster(Long clusterId) {
+        if (clusterId == null) return;
+        evictPrefix(clusterId + "/");
+    }
+
+    // The topic was deleted; its name may come back as another topic
+    public void evictTopic(Long clusterId, String topicName) {
+        evictPrefix(clusterId + "/" + topicName + "/");
+    }
+
+    private void evictPrefix(String prefix) {
+        synchronized (this) {
+            Iterator<Map.Entry<String, TreeMap<Long, Segment>>> it = index.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, TreeMap<Long, Segment>> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    entry.getValue().values().forEach(this::dropSegment);
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - searchProperties.getCacheTtlMs();
+        synchronized (this) {
+            for (TreeMap<Long, Segment> segments : index.values()) {
+                segments.values().removeIf(s -> {
+                    if (s.createdAt >= cutoff) return false;
+                    dropSegment(s);
+                    return true;
+                });
+            }
+            index.values().removeIf(Map::isEmpty);
+        }
+    }
+
+    private synchronized Segment segmentAt(Long clusterId, TopicPartition tp, long offset, Uuid topicId) {
+        String key = key(clusterId, tp);
+        TreeMap<Long, Segment> segments = index.get(key);
+        if (segments == null) return null;
+        Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+        if (entry == null || entry.getValue().toOffset <= offset) return null;
+        Segment segment = entry.getValue();
+        if (!segment.topicId.equals(topicId)) {
+            // Recreated since it was cached; all segments of the partition are from the old topic
+            segments.values().forEach(this::dropSegment);
+            index.remove(key);
+            return null;
+        }
+        if (System.currentTimeMillis() - segment.createdAt > searchProperties.getCacheTtlMs()) return null;
+        segment.lastAccessTime = System.currentTimeMillis();
+        return segment;
+    }
+
+    // Takes over a complete segment file written by a recorder
+    private void store(Long clusterId, TopicPartition tp, Uuid topicId, long fromOffset, long toOffset, Path file, long size, long[] indexOffsets, int[] indexPositions) {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to map record cache segment for {}: {}", tp, e.getMessage());
+            deleteQuietly(file);
+            return;
+        }
+        Segment segment = new Segment(file, mapped, topicId, fromOffset, toOffset, size, indexOffsets, indexPositions);
+
+        synchronized (this) {
+            TreeMap<Long, Segment> segments = index.computeIfAbsent(key(clusterId, tp), k -> new TreeMap<>());
+            // Drop segments the new one fully covers, and any of an older topic under the same name
+            segments.values().removeIf(s -> {
+                if (s.topicId.equals(topicId) && (s.fromOffset < fromOffset || s.toOffset > toOffset)) return false;
+                dropSegment(s);
+                return true;
+            });
+            Segment previous = segments.put(fromOffset, segment);
+            if (previous != null) dropSegment(previous);
+            totalBytes += segment.size;
+            evictToLimit();
+        }
+        log.debug("Cached {} [{}, {}) in {} bytes", tp, fromOffset, toOffset, size);
+    }
+
+    // Least recently used first
+    private void evictToLimit() {
+        while (totalBytes > searchProperties.getCacheMaxBytes()) {
+            Segment oldest = null;
+            TreeMap<Long, Segment> owner = null;
+            for (TreeMap<Long, Segment> segments : index.values()) {
+                for (Segment s : segments.values()) {
+                    if (oldest == null || s.lastAccessTime < oldest.lastAccessTime) {
+                        oldest = s;
+                        owner = segments;
+                    }
+                }
+            }
+            if (oldest == null) break;
+            owner.remove(oldest.fromOffset);
+            dropSegment(oldest);
+        }
+        index.values().removeIf(Map::isEmpty);
+    }
+
+    private void dropSegment(Segment segment) {
+        totalBytes -= segment.size;
+        // The mapping stays valid for readers still holding it; the file goes away once it is unmapped
+        deleteQuietly(segment.file);
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String key(Long clusterId, TopicPartition tp) {
+        return clusterId + "/" + tp.topic() + "/" + tp.partition();
+    }
+
+    // Record layout: offset, timestamp, timestampType id, key, value, header count, headers.
+    // Byte arrays are length-prefixed, -1 meaning null.
+    private static void writeRecord(DataOutputStream out, ConsumerRecord<byte[], byte[]> record) throws IOException {
+        out.writeLong(record.offset());
+        out.writeLong(record.timestamp());
+        out.writeByte(record.timestampType().id);
+        writeBytes(out, record.key());
+        writeBytes(out, record.value());
+        Header[] headers = record.headers().toArray();
+        out.writeShort(headers.length);
+        for (Header header : headers) {
+            writeBytes(out, header.key().getBytes(StandardCharsets.UTF_8));
+            writeBytes(out, header.value());
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static ConsumerRecord<byte[], byte[]> readRecord(ByteBuffer buffer, TopicPartition tp) {
+        long offset = buffer.getLong();
+        long timestamp = buffer.getLong();
+        TimestampType timestampType = TimestampType.forId(buffer.get());
+        byte[] key = readBytes(buffer);
+        byte[] value = readBytes(buffer);
+        int headerCount = buffer.getShort();
+        RecordHeaders headers = new RecordHeaders();
+        for (int i = 0; i < headerCount; i++) {
+            byte[] name = readBytes(buffer);
+            headers.add(new String(name, StandardCharsets.UTF_8), readBytes(buffer));
+        }
+        return new ConsumerRecord<>(tp.topic(), tp.partition(), offset, timestamp, timestampType,
+                key == null ? -1 : key.length, value == null ? -1 : value.length, key, value, headers, Optional.empty());
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static class Segment {
+        final Path file;
+        final MappedByteBuffer mapped;
+        final Uuid topicId;
+        final long fromOffset;
+        final long toOffset;
+        final long size;
+        // Offsets of some records in ascending order and the file positions they start at
+        final long[] indexOffsets;
+        final int[] indexPositions;
+        final long createdAt = System.currentTimeMillis();
+        volatile long lastAccessTime = createdAt;
+
+        Segment(Path file, MappedByteBuffer mapped, Uuid topicId, long fromOffset, long toOffset, long size, long[] indexOffsets, int[] indexPositions) {
+            this.file = file;
+            this.mapped = mapped;
+            this.topicId = topicId;
+            this.fromOffset = fromOffset;
+            this.toOffset = toOffset;
+            this.size = size;
+            this.indexOffsets = indexOffsets;
+            this.indexPositions = indexPositions;
+        }
+
+        // Position of the last indexed record at or before offset; decoding from there reaches it
+        int positionOf(long offset) {
+            int i = Arrays.binarySearch(indexOffsets, offset);
+            if (i < 0) i = -i - 2;
+            return i >= 0 ? indexPositions[i] : 0;
+        }
+
+        // Independent read position per caller
+        ByteBuffer buffer() {
+            return mapped.duplicate();
+        }
+    }
+
+    public class Recorder {
+        private final Long clusterId;
+        private final Map<TopicPartition, Pending> pending = new HashMap<>();
+
+        private Recorder(Long clusterId) {
+            this.clusterId = clusterId;
+        }
+
+        // The consumer was positioned at offset; records fetched from now on extend a new range.
+        // A range that was already being recorded for the partition is stored first.
+        public void start(TopicPartition tp, long offset) {
+            if (!isEnabled()) return;
+            finish(tp);
+            Uuid topicId = topicMetadataCache.topicId(clusterId, tp.topic());
+            if (topicId != null) pending.put(tp, new Pending(topicId, offset));
+        }
+
+        public void append(ConsumerRecord<byte[], byte[]> record) {
+            if (pending.isEmpty()) return;
+            Pending p = pending.get(new TopicPartition(record.topic(), record.partition()));
+            if (p == null || p.full || record.offset() < p.next) return;
+            try {
+                p.write(record);
+            } catch (IOException | UncheckedIOException e) {
+                log.debug("Failed to record {}-{} for the cache: {}", record.topic(), record.partition(), e.getMessage());
+                p.failed = true;
+                p.full = true;
+                return;
+            }
+            p.next = record.offset() + 1;
+            // Keep the prefix recorded so far and stop growing the range
+            if (p.size() >= searchProperties.getCacheSegmentMaxBytes()) p.full = true;
+        }
+
+        public void finish() {
+            for (TopicPartition tp : new ArrayList<>(pending.keySet())) {
+                finish(tp);
+            }
+        }
+
+        private void finish(TopicPartition tp) {
+            Pending p = pending.remove(tp);
+            if (p == null || !p.close()) return;
+            if (p.next <= p.from) {
+                deleteQuietly(p.file);
+                return;
+            }
+            store(clusterId, tp, p.topicId, p.from, p.next, p.file, p.size(),
+                    Arrays.copyOf(p.indexOffsets, p.indexSize), Arrays.copyOf(p.indexPositions, p.indexSize));
+        }
+    }
+
+    // A range being recorded; its file is created with the first record
+    private class Pending {
+        final Uuid topicId;
+        final long from;
+        Path file;
+        DataOutputStream out;
+        long next;
+        boolean full;
+        boolean failed;
+        long[] indexOffsets = new long[16];
+        int[] indexPositions = new int[16];
+        int indexSize;
+
+        Pending(Uuid topicId, long from) {
+            this.topicId = topicId;
+            this.from = from;
+            this.next = from;
+        }
+
+        void write(ConsumerRecord<byte[], byte[]> record) throws IOException {
+            if (out == null) {
+                file = Paths.get(searchProperties.getCacheDir(), UUID.randomUUID() + ".seg");
+                out = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), WRITE_BUFFER_BYTES));
+            }
+            int position = out.size();
+            if (indexSize == 0 || position - indexPositions[indexSize - 1] >= INDEX_INTERVAL_BYTES) {
+                if (indexSize == indexOffsets.length) {
+                    indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+                    indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+                }
+                indexOffsets[indexSize] = record.offset();
+                indexPositions[indexSize++] = position;
+            }
+            writeRecord(out, record);
+        }
+
+        long size() {
+            return out != null ? out.size() : 0;
+        }
+
+        // Closes the file; false when there is none or it is unusable (then it is deleted)
+        boolean close() {
+            if (out == null) return false;
+            try {
+                out.close();
+            } catch (IOException e) {
+                failed = true;
+            }
+            if (failed) deleteQuietly(file);
+            return !failed;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.model.AdmissionStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Global admission control for search consumers. Every leased consumer needs a permit, which counts
+// against a concurrency limit and reserves its fetch size from a shared memory budget. The fetch size is
+// the largest tier within the permit's share of the free budget (free bytes split across the waiting
+// queue), so a lone search fetches at full size and searches under load fetch less instead of failing.
+// Without a free permit, callers wait in FIFO order up to the queue timeout; a full queue rejects at once.
+// Long-running background jobs (exports, profiles) take background permits: they only fill a few of the
+// slots, wait outside the FIFO queue and yield to queued searches, so they cannot starve interactive ones.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SearchAdmission {
+
+    private final SearchProperties searchProperties;
+
+    private final Deque<Object> queue = new ArrayDeque<>();
+    private long reservedBytes;
+    private int running;
+    private int backgroundRunning;
+    private long admitted;
+    private long rejectedQueueFull;
+    private long rejectedTimeout;
+    private long rejectedBusy;
+    private long totalWaitMs;
+
+    // Waits for a permit; maxFetchBytes caps the fetch size for reads that only need a few records
+    public Permit acquire(long maxFetchBytes) {
+        synchronized (this) {
+            if (queue.isEmpty() && canAdmit()) return admit(maxFetchBytes, 0);
+            if (queue.size() >= Math.max(0, searchProperties.getAdmissionMaxQueued())) {
+                rejectedQueueFull++;
+                throw new IllegalStateException("Too many searches waiting, try again later");
+            }
+            Object waiter = new Object();
+            queue.addLast(waiter);
+            long start = System.currentTimeMillis();
+            long deadline = start + searchProperties.getAdmissionQueueTimeoutMs();
+            try {
+                while (queue.peekFirst() != waiter || !canAdmit()) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        rejectedTimeout++;
+                        throw new IllegalStateException("Timed out waiting for search capacity, try again later");
+                    }
+                    wait(wait);
+                }
+                queue.removeFirst();
+                return admit(maxFetchBytes, System.currentTimeMillis() - start);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for search capacity");
+            } finally {
+                queue.remove(waiter);
+                // The next waiter may be admissible now
+                notifyAll();
+            }
+        }
+    }
+
+    // Waits for one of the background slots, behind any searches queued for a permit
+    public Permit acquireBackground() {
+        synchronized (this) {
+            long start = System.currentTimeMillis();
+            long deadline = start + searchProperties.getAdmissionQueueTimeoutMs();
+            try {
+                while (!queue.isEmpty() || !canAdmit() || backgroundRunning >= maxBackground()) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        rejectedTimeout++;
+                        throw new IllegalStateException("Too many exports and profiles running, try again later");
+                    }
+                    wait(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for search capacity");
+            }
+            backgroundRunning++;
+            Permit permit = admit(Long.MAX_VALUE, System.currentTimeMillis() - start);
+            permit.background = true;
+            return permit;
+        }
+    }
+
+    // A permit only if one is free right away and nobody is waiting, e.g. for extra scan workers
+    public synchronized Permit tryAcquire() {
+        return queue.isEmpty() && canAdmit() ? admit(Long.MAX_VALUE, 0) : null;
+    }
+
+    // A search turned away before it asked for a consumer, e.g. with the search pool saturated
+    public synchronized void countRejected() {
+        rejectedBusy++;
+    }
+
+    public synchronized AdmissionStats stats() {
+        return AdmissionStats.builder()
+                .budgetBytes(budget())
+                .reservedBytes(reservedBytes)
+                .maxConcurrent(maxConcurrent())
+                .running(running)
+                .maxBackground(maxBackground())
+                .backgroundRunning(backgroundRunning)
+                .queued(queue.size())
+                .maxQueued(searchProperties.getAdmissionMaxQueued())
+                .admitted(admitted)
+                .rejectedQueueFull(rejectedQueueFull)
+                .rejectedTimeout(rejectedTimeout)
+                .rejectedBusy(rejectedBusy)
+                .avgWaitMs(admitted == 0 ? 0 : totalWaitMs / admitted)
+                .fetchTiers(tiers())
+                .build();
+    }
+
+    // Fetch sizes consumers are created with: the minimum times powers of 4, up to the maximum
+    public List<Long> tiers() {
+        long min = Math.max(64 * 1024, searchProperties.getFetchMinBytes());
+        long max = Math.max(min, searchProperties.getFetchMaxBytes());
+        List<Long> tiers = new ArrayList<>();
+        for (long tier = min; tier < max; tier *= 4) tiers.add(tier);
+        tiers.add(max);
+        return tiers;
+    }
+
+    // Must hold the lock
+    private boolean canAdmit() {
+        return running < maxConcurrent() && budget() - reservedBytes >= tiers().get(0);
+    }
+
+    // Must hold the lock
+    private Permit admit(long maxFetchBytes, long waitedMs) {
+        List<Long> tiers = tiers();
+        long share = Math.min(maxFetchBytes, (budget() - reservedBytes) / (queue.size() + 1));
+        long fetchBytes = tiers.get(0);
+        for (long tier : tiers) {
+            if (tier <= share) fetchBytes = tier;
+        }
+        running++;
+        reservedBytes += fetchBytes;
+        admitted++;
+        totalWaitMs += waitedMs;
+        if (waitedMs > 0) log.debug("Search consumer admitted after {} ms with {} fetch bytes", waitedMs, fetchBytes);
+        return new Permit(fetchBytes);
+    }
+
+    private synchronized void release(Permit permit) {
+        running--;
+        if (permit.background) backgroundRunning--;
+        reservedBytes -= permit.fetchBytes;
+        notifyAll();
+    }
+
+    private long budget() {
+        return Math.max(1, searchProperties.getAdmissionBudgetBytes());
+    }
+
+    private int maxConcurrent() {
+        return Math.max(1, searchProperties.getAdmissionMaxConcurrent());
+    }
+
+    // Leaves at least one slot to interactive searches, unless there is only one
+    private int maxBackground() {
+        return Math.max(1, Math.min(searchProperties.getAdmissionMaxBackground(), maxConcurrent() - 1));
+    }
+
+    public class Permit implements AutoCloseable {
+        private final long fetchBytes;
+        private boolean background;
+        private boolean released;
+
+        private Permit(long fetchBytes) {
+            this.fetchBytes = fetchBytes;
+        }
+
+        public long fetchBytes() {
+            return fetchBytes;
+        }
+
+        @Override
+        public void close() {
+            synchronized (SearchAdmission.this) {
+                if (released) return;
+                released = true;
+            }
+            release(this);
+        }
+    }
+}
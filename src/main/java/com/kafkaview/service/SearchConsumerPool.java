@@ -0,0 +1,323 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.event.ClusterChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Per-cluster pool of assign-only consumers used by message search.
+// Consumers hand out raw bytes; callers decode only the records they keep.
+// A lease is returned to the pool on close() after being reset, so the broker connections,
+// metadata and SASL session survive across searches.
+// Every lease holds a SearchAdmission permit whose fetch size tier the consumer is configured with;
+// idle consumers are kept per tier, and an idle one of another tier is closed when the pool is full.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SearchConsumerPool {
+
+    private final KafkaAdminService kafkaAdminService;
+    private final SearchProperties searchProperties;
+    private final SearchAdmission searchAdmission;
+
+    private final Map<Long, ClusterPool> pools = new ConcurrentHashMap<>();
+    private final AtomicInteger clientSeq = new AtomicInteger();
+
+    // Blocks until admitted and a consumer is free, or one of their timeouts expires
+    public Lease lease(Long clusterId) {
+        return lease(clusterId, Long.MAX_VALUE);
+    }
+
+    // maxFetchBytes caps the fetch size, for reads of a few records
+    public Lease lease(Long clusterId, long maxFetchBytes) {
+        return lease(clusterId, searchAdmission.acquire(maxFetchBytes));
+    }
+
+    // For exports and profiles, which hold the consumer for minutes; see SearchAdmission.acquireBackground
+    public Lease leaseBackground(Long clusterId) {
+        return lease(clusterId, searchAdmission.acquireBackground());
+    }
+
+    private Lease lease(Long clusterId, SearchAdmission.Permit permit) {
+        try {
+            return leaseConsumer(clusterId, permit);
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
+
+    private Lease leaseConsumer(Long clusterId, SearchAdmission.Permit permit) {
+        long deadline = System.currentTimeMillis() + searchProperties.getPoolLeaseTimeoutMs();
+        KafkaConsumer<byte[], byte[]> evicted = null;
+        while (true) {
+            ClusterPool pool = poolFor(clusterId);
+            synchronized (pool) {
+                while (!pool.closed) {
+                    Lease lease = takeIdle(pool, permit);
+                    if (lease != null) return lease;
+                    if (pool.total >= maxSize()) evicted = evictOtherTier(pool, permit.fetchBytes());
+                    if (pool.total < maxSize()) {
+                        pool.total++;
+                        break;
+                    }
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        throw new IllegalStateException("No search consumer available for cluster " + clusterId + ", try again later");
+                    }
+                    try {
+                        pool.wait(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for a search consumer");
+                    }
+                }
+                // The pool was closed while we waited, retry against the new one
+                if (pool.closed) continue;
+            }
+            if (evicted != null) closeQuietly(evicted);
+            return createLease(pool, permit);
+        }
+    }
+
+    // Returns null instead of waiting when admission or the pool is exhausted
+    public Lease tryLease(Long clusterId) {
+        SearchAdmission.Permit permit = searchAdmission.tryAcquire();
+        if (permit == null) return null;
+        ClusterPool pool = poolFor(clusterId);
+        KafkaConsumer<byte[], byte[]> evicted = null;
+        try {
+            synchronized (pool) {
+                Lease lease = pool.closed ? null : takeIdle(pool, permit);
+                if (lease != null) return lease;
+                if (!pool.closed && pool.total >= maxSize()) evicted = evictOtherTier(pool, permit.fetchBytes());
+                if (pool.closed || pool.total >= maxSize()) {
+                    permit.close();
+                    return null;
+                }
+                pool.total++;
+            }
+            if (evicted != null) closeQuietly(evicted);
+            return createLease(pool, permit);
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
+
+    // Runs early, so nothing leases a consumer built with the old settings
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        closeCluster(event.getClusterId());
+    }
+
+    // Drops all pooled consumers of a cluster, e.g. after its connection settings changed
+    public void closeCluster(Long clusterId) {
+        if (clusterId == null) return;
+        ClusterPool pool = pools.remove(clusterId);
+        if (pool == null) return;
+        List<PooledEntry> toClose = new ArrayList<>();
+        synchronized (pool) {
+            pool.closed = true;
+            pool.idle.values().forEach(toClose::addAll);
+            pool.total -= toClose.size();
+            pool.idle.clear();
+            pool.notifyAll();
+        }
+        toClose.forEach(e -> closeQuietly(e.consumer));
+    }
+
+    @Scheduled(fixedDelay = 30000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - searchProperties.getPoolIdleTimeoutMs();
+        for (ClusterPool pool : pools.values()) {
+            List<PooledEntry> expired = new ArrayList<>();
+            synchronized (pool) {
+                for (Deque<PooledEntry> idle : pool.idle.values()) {
+                    Iterator<PooledEntry> it = idle.iterator();
+                    while (it.hasNext()) {
+                        PooledEntry e = it.next();
+                        if (e.lastUsed < cutoff) {
+                            it.remove();
+                            pool.total--;
+                            expired.add(e);
+                        }
+                    }
+                }
+                if (!expired.isEmpty()) pool.notifyAll();
+            }
+            if (!expired.isEmpty()) {
+                log.debug("Evicting {} idle search consumers for cluster {}", expired.size(), pool.clusterId);
+                expired.forEach(e -> closeQuietly(e.consumer));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        new ArrayList<>(pools.keySet()).forEach(this::closeCluster);
+    }
+
+    private ClusterPool poolFor(Long clusterId) {
+        return pools.computeIfAbsent(clusterId, ClusterPool::new);
+    }
+
+    private int maxSize() {
+        return Math.max(1, searchProperties.getPoolMaxSize());
+    }
+
+    // Must be called while holding the pool lock. Most recently used first, so cold consumers age out.
+    private Lease takeIdle(ClusterPool pool, SearchAdmission.Permit permit) {
+        Deque<PooledEntry> idle = pool.idle.get(permit.fetchBytes());
+        PooledEntry entry = idle == null ? null : idle.pollFirst();
+        return entry == null ? null : new Lease(pool, entry.consumer, permit);
+    }
+
+    // Must be called while holding the pool lock. Frees a slot by dropping the least recently used idle
+    // consumer of another tier; the caller closes it outside the lock.
+    private KafkaConsumer<byte[], byte[]> evictOtherTier(ClusterPool pool, long fetchBytes) {
+        PooledEntry oldest = null;
+        for (Map.Entry<Long, Deque<PooledEntry>> e : pool.idle.entrySet()) {
+            PooledEntry last = e.getKey() == fetchBytes ? null : e.getValue().peekLast();
+            if (last != null && (oldest == null || last.lastUsed < oldest.lastUsed)) oldest = last;
+        }
+        if (oldest == null) return null;
+        for (Deque<PooledEntry> idle : pool.idle.values()) {
+            if (idle.peekLast() == oldest) idle.pollLast();
+        }
+        pool.total--;
+        return oldest.consumer;
+    }
+
+    private Lease createLease(ClusterPool pool, SearchAdmission.Permit permit) {
+        try {
+            return new Lease(pool, createConsumer(pool.clusterId, permit.fetchBytes()), permit);
+        } catch (RuntimeException e) {
+            synchronized (pool) {
+                pool.total--;
+                pool.notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    private KafkaConsumer<byte[], byte[]> createConsumer(Long clusterId, long fetchBytes) {
+        Properties props = kafkaAdminService.getClusterProperties(clusterId);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "kafka-view-search-" + UUID.randomUUID());
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, "kafka-view-search-" + clusterId + "-" + clientSeq.incrementAndGet());
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // Sized by the admission tier: large fetches scan faster, small ones keep memory down under load
+        int fetchMax = (int) Math.min(Integer.MAX_VALUE, fetchBytes);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, (int) Math.max(500, Math.min(5000, fetchBytes / 4096)));
+        props.put(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, fetchMax);
+        props.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, Math.min(fetchMax, 10 * 1024 * 1024));
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return new KafkaConsumer<>(props);
+    }
+
+    private void giveBack(Lease lease) {
+        ClusterPool pool = lease.pool;
+        boolean reusable = !lease.broken;
+        if (reusable) {
+            try {
+                // Drops assignment, positions and paused state
+                lease.consumer.unassign();
+            } catch (Exception e) {
+                log.debug("Failed to reset search consumer, closing it: {}", e.getMessage());
+                reusable = false;
+            }
+        }
+        synchronized (pool) {
+            if (reusable && !pool.closed) {
+                pool.idle.computeIfAbsent(lease.permit.fetchBytes(), t -> new ArrayDeque<>())
+                        .offerFirst(new PooledEntry(lease.consumer, System.currentTimeMillis()));
+                pool.notifyAll();
+                return;
+            }
+            if (!pool.closed) pool.total--;
+            pool.notifyAll();
+        }
+        closeQuietly(lease.consumer);
+    }
+
+    private void closeQuietly(KafkaConsumer<byte[], byte[]> consumer) {
+        try {
+            consumer.close(Duration.ofSeconds(5));
+        } catch (Exception e) {
+            log.debug("Error closing search consumer: {}", e.getMessage());
+        }
+    }
+
+    public class Lease implements AutoCloseable {
+        private final ClusterPool pool;
+        private final KafkaConsumer<byte[], byte[]> consumer;
+        private final SearchAdmission.Permit permit;
+        private boolean broken;
+        private boolean returned;
+
+        private Lease(ClusterPool pool, KafkaConsumer<byte[], byte[]> consumer, SearchAdmission.Permit permit) {
+            this.pool = pool;
+            this.consumer = consumer;
+            this.permit = permit;
+        }
+
+        public KafkaConsumer<byte[], byte[]> consumer() {
+            return consumer;
+        }
+
+        // The consumer is closed instead of pooled when the lease ends, e.g. after a Kafka error
+        public void invalidate() {
+            this.broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (returned) return;
+            returned = true;
+            try {
+                giveBack(this);
+            } finally {
+                permit.close();
+            }
+        }
+    }
+
+    private static class ClusterPool {
+        final Long clusterId;
+        // fetch size tier -> idle consumers, most recently used first
+        final Map<Long, Deque<PooledEntry>> idle = new HashMap<>();
+        int total;
+        boolean closed;
+
+        ClusterPool(Long clusterId) {
+            this.clusterId = clusterId;
+        }
+    }
+
+    private static class PooledEntry {
+        final KafkaConsumer<byte[], byte[]> consumer;
+        final long lastUsed;
+
+        PooledEntry(KafkaConsumer<byte[], byte[]> consumer, long lastUsed) {
+            this.consumer = consumer;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
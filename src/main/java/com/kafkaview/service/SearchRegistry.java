@@ -0,0 +1,104 @@
+package com.kafkaview.service;
+
+import com.kafkaview.model.SearchInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// In-process registry of running message searches. Each search has an id, a wall-clock deadline and
+// live counters, and can be cancelled by id; the scan checks the flag between poll batches.
+@Service
+@Slf4j
+public class SearchRegistry {
+
+    private final Map<String, RunningSearch> searches = new ConcurrentHashMap<>();
+
+    // searchId may be chosen by the client so that it can cancel before the response arrives
+    public RunningSearch register(String searchId, Long clusterId, String topicName, long maxDurationMs) {
+        String id = searchId != null && !searchId.isBlank() ? searchId : UUID.randomUUID().toString();
+        RunningSearch search = new RunningSearch(id, clusterId, topicName, System.currentTimeMillis() + maxDurationMs);
+        if (searches.putIfAbsent(id, search) != null) {
+            throw new IllegalArgumentException("Search id " + id + " is already in use");
+        }
+        return search;
+    }
+
+    public void unregister(RunningSearch search) {
+        searches.remove(search.getId(), search);
+    }
+
+    // Only a search of the given cluster is cancelled; false when there is none under that id
+    public boolean cancel(Long clusterId, String searchId) {
+        RunningSearch search = searches.get(searchId);
+        if (search == null || !Objects.equals(search.clusterId, clusterId)) return false;
+        search.cancelled.set(true);
+        log.debug("Cancelled search {} on {}", searchId, search.topicName);
+        return true;
+    }
+
+    public List<SearchInfo> list(Long clusterId) {
+        long now = System.currentTimeMillis();
+        return searches.values().stream()
+                .filter(s -> clusterId == null || Objects.equals(s.clusterId, clusterId))
+                .sorted(Comparator.comparingLong(s -> s.startTime))
+                .map(s -> SearchInfo.builder()
+                        .searchId(s.id)
+                        .clusterId(s.clusterId)
+                        .topicName(s.topicName)
+                        .startTime(s.startTime)
+                        .deadline(s.deadline)
+                        .elapsedMs(now - s.startTime)
+                        .scannedRecords(s.scanned.get())
+                        .scannedBytes(s.scannedBytes.get())
+                        .matched(s.matched.get())
+                        .cancelled(s.cancelled.get())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    // Shared with the scan state of the search, so the registry sees its counters live
+    public static class RunningSearch {
+        private final String id;
+        private final Long clusterId;
+        private final String topicName;
+        private final long startTime = System.currentTimeMillis();
+        private final long deadline;
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        final AtomicInteger scanned = new AtomicInteger();
+        final AtomicLong scannedBytes = new AtomicLong();
+        final AtomicInteger matched = new AtomicInteger();
+
+        private RunningSearch(String id, Long clusterId, String topicName, long deadline) {
+            this.id = id;
+            this.clusterId = clusterId;
+            this.topicName = topicName;
+            this.deadline = deadline;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() > deadline;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.model.SearchSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Short-lived store of paged search results, so that changing the page reads from memory
+// instead of scanning the topic again. Sessions expire after the TTL or when the store is full.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SearchSessionService {
+
+    private final SearchProperties searchProperties;
+
+    private final Map<String, SearchSession> sessions = new ConcurrentHashMap<>();
+
+    public SearchSession create(SearchSession session) {
+        session.setId(UUID.randomUUID().toString());
+        session.setLastAccessTime(System.currentTimeMillis());
+        sessions.put(session.getId(), session);
+        trim();
+        return session;
+    }
+
+    // Returns null when the cursor is unknown, expired, or belongs to another topic or other search params
+    public SearchSession get(String cursorId, Long clusterId, String topicName, List<Object> params) {
+        if (cursorId == null) return null;
+        SearchSession session = sessions.get(cursorId);
+        if (session == null) return null;
+        long now = System.currentTimeMillis();
+        if (now - session.getLastAccessTime() > searchProperties.getSessionTtlMs()) {
+            sessions.remove(cursorId);
+            return null;
+        }
+        if (!Objects.equals(session.getClusterId(), clusterId) || !Objects.equals(session.getTopicName(), topicName)
+                || !Objects.equals(session.getParams(), params)) {
+            return null;
+        }
+        session.setLastAccessTime(now);
+        return session;
+    }
+
+    public void remove(String cursorId) {
+        if (cursorId != null) {
+            sessions.remove(cursorId);
+        }
+    }
+
+    @Scheduled(fixedDelay = 30000)
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - searchProperties.getSessionTtlMs();
+        sessions.values().removeIf(s -> s.getLastAccessTime() < cutoff);
+    }
+
+    // Drops the least recently used sessions beyond the configured maximum
+    private void trim() {
+        int max = Math.max(1, searchProperties.getMaxSessions());
+        while (sessions.size() > max) {
+            sessions.values().stream()
+                    .min(Comparator.comparingLong(SearchSession::getLastAccessTime))
+                    .ifPresent(s -> {
+                        sessions.remove(s.getId());
+                        log.debug("Evicted search session {} for {}", s.getId(), s.getTopicName());
+                    });
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.event.ClusterChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.Uuid;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+// Sparse per-partition index of (timestamp -> offset) points, where offset is the earliest offset
+// whose timestamp is >= the timestamp, i.e. what ListOffsets returns for OffsetSpec.forTimestamp.
+// That function only grows with the timestamp, so a timestamp that falls between two known points
+// with the same offset is answered locally as well as an exact hit. Points come from every lookup
+// and from sampling hour boundaries of recently used topics. A partition's points belong to the topic
+// id they were read under and are dropped when the metadata cache reports another one; local answers
+// below the current log start (moved by retention) are dropped and fetched again.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TimeIndexService {
+
+    private static final int MAX_SAMPLED_TOPICS = 100;
+
+    private final KafkaAdminService kafkaAdminService;
+    private final SearchProperties searchProperties;
+    private final TopicMetadataCache topicMetadataCache;
+    private final AdminCallCoalescer adminCallCoalescer;
+
+    // "cluster/topic/partition" -> points of the partition
+    private final Map<String, Points> index = new ConcurrentHashMap<>();
+    // "cluster/topic" -> partitions and last use, for sampling
+    private final Map<String, TrackedTopic> tracked = new ConcurrentHashMap<>();
+
+    // Earliest offset per partition whose timestamp is >= timestamp.
+    // Partitions without such a record (the timestamp is past the log end) are absent from the result.
+    // Local answers are checked against log starts read from the broker; callers that just read them
+    // pass them to the overload below to save that round trip.
+    public Map<TopicPartition, Long> offsetsForTime(Long clusterId, Collection<TopicPartition> tps, long timestamp) {
+        return offsetsForTime(clusterId, tps, timestamp, null);
+    }
+
+    // logStartOffsets: current log start per partition, or null to read them when a local answer needs checking
+    public Map<TopicPartition, Long> offsetsForTime(Long clusterId, Collection<TopicPartition> tps, long timestamp, Map<TopicPartition, Long> logStartOffsets) {
+        Map<TopicPartition, Long> result = new HashMap<>();
+        List<TopicPartition> missing = new ArrayList<>();
+        for (TopicPartition tp : tps) {
+            Long offset = lookupLocal(clusterId, tp, timestamp);
+            if (offset != null) {
+                result.put(tp, offset);
+            } else {
+                missing.add(tp);
+            }
+            track(clusterId, tp);
+        }
+        if (!result.isEmpty()) {
+            Map<TopicPartition, Long> logStarts = logStartOffsets != null && logStartOffsets.keySet().containsAll(result.keySet())
+                    ? logStartOffsets
+                    : logStarts(clusterId, result.keySet());
+            for (Iterator<Map.Entry<TopicPartition, Long>> it = result.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<TopicPartition, Long> entry = it.next();
+                Long logStart = logStarts.get(entry.getKey());
+                if (logStart != null && entry.getValue() >= logStart) continue;
+                if (logStart != null) dropBelow(clusterId, entry.getKey(), logStart);
+                missing.add(entry.getKey());
+                it.remove();
+            }
+        }
+        if (!missing.isEmpty()) {
+            result.putAll(fetch(clusterId, missing, timestamp));
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        evictCluster(event.getClusterId());
+    }
+
+    public void evictCluster(Long clusterId) {
+        if (clusterId == null) return;
+        String prefix = clusterId + "/";
+        index.keySet().removeIf(k -> k.startsWith(prefix));
+        tracked.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    // A re-created topic has unrelated offsets
+    public void evictTopic(Long clusterId, String topicName) {
+        String prefix = clusterId + "/" + topicName + "/";
+        index.keySet().removeIf(k -> k.startsWith(prefix));
+        tracked.remove(clusterId + "/" + topicName);
+    }
+
+    // Adds points for the hour boundaries of the sampling window that are not indexed yet.
+    // Only the most recently used topics looked up within the window are sampled.
+    @Scheduled(fixedDelay = 300000, initialDelay = 60000)
+    public void sample() {
+        long interval = searchProperties.getTimeIndexSampleIntervalMs();
+        long window = searchProperties.getTimeIndexSampleWindowMs();
+        if (interval <= 0 || window <= 0) return;
+        long now = System.currentTimeMillis();
+        // Leave a minute for records produced just before a boundary to arrive
+        long last = ((now - 60000) / interval) * interval;
+        long first = ((now - window) / interval + 1) * interval;
+
+        tracked.values().removeIf(t -> now - t.lastUsed > window);
+        List<Map.Entry<String, TrackedTopic>> topics = new ArrayList<>(tracked.entrySet());
+        topics.sort((a, b) -> Long.compare(b.getValue().lastUsed, a.getValue().lastUsed));
+
+        for (Map.Entry<String, TrackedTopic> entry : topics.subList(0, Math.min(MAX_SAMPLED_TOPICS, topics.size()))) {
+            TrackedTopic topic = entry.getValue();
+            List<TopicPartition> tps = new ArrayList<>(topic.partitions);
+            for (long ts = first; ts <= last; ts += interval) {
+                List<TopicPartition> missing = new ArrayList<>();
+                for (TopicPartition tp : tps) {
+                    if (lookupLocal(topic.clusterId, tp, ts) == null) missing.add(tp);
+                }
+                if (missing.isEmpty()) continue;
+                try {
+                    fetch(topic.clusterId, missing, ts);
+                } catch (RuntimeException e) {
+                    log.debug("Time index sampling failed for {}: {}", entry.getKey(), e.getMessage());
+                    break;
+                }
+            }
+        }
+    }
+
+    // Null when there is no usable answer, including when the topic was recreated since it was indexed
+    private Long lookupLocal(Long clusterId, TopicPartition tp, long timestamp) {
+        String key = key(clusterId, tp);
+        Points current = index.get(key);
+        if (current == null) return null;
+        if (!current.topicId.equals(topicMetadataCache.topicId(clusterId, tp.topic()))) {
+            index.remove(key, current);
+            return null;
+        }
+        TreeMap<Long, Long> points = current.points;
+        synchronized (points) {
+            Map.Entry<Long, Long> floor = points.floorEntry(timestamp);
+            if (floor == null) return null;
+            if (floor.getKey() == timestamp) return floor.getValue();
+            Map.Entry<Long, Long> ceiling = points.ceilingEntry(timestamp);
+            if (ceiling != null && ceiling.getValue().equals(floor.getValue())) return floor.getValue();
+            return null;
+        }
+    }
+
+    private Map<TopicPartition, Long> fetch(Long clusterId, List<TopicPartition> tps, long timestamp) {
+        Map<TopicPartition, OffsetSpec> specs = new HashMap<>();
+        for (TopicPartition tp : tps) {
+            specs.put(tp, OffsetSpec.forTimestamp(timestamp));
+        }
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> infos;
+        try {
+            AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
+            infos = admin.listOffsets(specs).all().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while looking up offsets for time " + timestamp, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to look up offsets for time " + timestamp + ": " + e.getCause().getMessage(), e.getCause());
+        }
+
+        Map<TopicPartition, Long> result = new HashMap<>();
+        for (TopicPartition tp : tps) {
+            ListOffsetsResult.ListOffsetsResultInfo info = infos.get(tp);
+            // -1 means the timestamp is past the log end; that changes as records arrive, so it is not indexed
+            if (info == null || info.offset() < 0) continue;
+            result.put(tp, info.offset());
+            addPoint(clusterId, tp, timestamp, info.offset());
+        }
+        return result;
+    }
+
+    // Log start offsets; partitions that could not be read are absent
+    private Map<TopicPartition, Long> logStarts(Long clusterId, Collection<TopicPartition> tps) {
+        Map<TopicPartition, Long> result = new HashMap<>();
+        try {
+            adminCallCoalescer.earliestOffsets(clusterId, tps).get().forEach((tp, info) -> result.put(tp, info.offset()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.debug("Failed to read log start offsets in cluster {}: {}", clusterId, e.getMessage());
+        }
+        return result;
+    }
+
+    // Points answering with an offset retention already deleted
+    private void dropBelow(Long clusterId, TopicPartition tp, long logStart) {
+        Points current = index.get(key(clusterId, tp));
+        if (current == null) return;
+        synchronized (current.points) {
+            current.points.values().removeIf(offset -> offset < logStart);
+        }
+    }
+
+    private void addPoint(Long clusterId, TopicPartition tp, long timestamp, long offset) {
+        Uuid topicId = topicMetadataCache.topicId(clusterId, tp.topic());
+        if (topicId == null) return;
+        Points current = index.compute(key(clusterId, tp), (k, old) -> old != null && old.topicId.equals(topicId) ? old : new Points(topicId));
+        TreeMap<Long, Long> points = current.points;
+        synchronized (points) {
+            points.put(timestamp, offset);
+            // Keep the newest points; old ranges are mostly gone to retention anyway
+            while (points.size() > searchProperties.getTimeIndexMaxPoints()) {
+                points.pollFirstEntry();
+            }
+        }
+    }
+
+    private void track(Long clusterId, TopicPartition tp) {
+        TrackedTopic topic = tracked.computeIfAbsent(clusterId + "/" + tp.topic(), k -> new TrackedTopic(clusterId));
+        topic.partitions.add(tp);
+        topic.lastUsed = System.currentTimeMillis();
+    }
+
+    private static String key(Long clusterId, TopicPartition tp) {
+        return clusterId + "/" + tp.topic() + "/" + tp.partition();
+    }
+
+    private static class Points {
+        final Uuid topicId;
+        final TreeMap<Long, Long> points = new TreeMap<>();     // timestamp -> offset
+
+        Points(Uuid topicId) {
+            this.topicId = topicId;
+        }
+    }
+
+    private static class TrackedTopic {
+        final Long clusterId;
+        final Set<TopicPartition> partitions = ConcurrentHashMap.newKeySet();
+        volatile long lastUsed;
+
+        TrackedTopic(Long clusterId) {
+            this.clusterId = clusterId;
+        }
+    }
+}
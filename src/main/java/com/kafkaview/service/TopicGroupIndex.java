@@ -0,0 +1,254 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.MetadataProperties;
+import com.kafkaview.event.ClusterChangedEvent;
+import com.kafkaview.search.NameIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.*;
+import org.apache.kafka.common.KafkaFuture;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Per-cluster index from topic to the consumer groups that have members assigned to it or offsets
+// committed for it, so topic pages look groups up instead of asking every group's coordinator.
+// Background sweeps list the groups once and then describe them and list their offsets in batches,
+// throttled to a fixed number of groups per second; groups not indexed yet go first and each batch is
+// applied as soon as it completes. Until the first sweep of a cluster ends, lookups are partial.
+// Groups that cannot be read are recorded as failed and only tried again after the sweep interval.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TopicGroupIndex {
+
+    private final KafkaAdminService kafkaAdminService;
+    private final MetadataProperties metadataProperties;
+
+    private final Map<Long, ClusterIndex> clusters = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        int threads = Math.max(1, metadataProperties.getRefreshThreads());
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "kafka-view-group-index-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Number of indexed groups per topic; topics without groups map to 0
+    public Map<String, Integer> groupCounts(Long clusterId, Collection<String> topics) {
+        ClusterIndex index = touch(clusterId);
+        Map<String, Integer> counts = new HashMap<>();
+        for (String topic : topics) {
+            Set<String> groups = index.topicGroups.get(topic);
+            counts.put(topic, groups != null ? groups.size() : 0);
+        }
+        return counts;
+    }
+
+    public Set<String> groups(Long clusterId, String topic) {
+        Set<String> groups = touch(clusterId).topicGroups.get(topic);
+        return groups != null ? new HashSet<>(groups) : Collections.emptySet();
+    }
+
+    // False for groups that are indexed, or failed recently and wait for their retry time
+    public boolean needsIndexing(Long clusterId, String groupId) {
+        ClusterIndex index = touch(clusterId);
+        if (index.groupTopics.containsKey(groupId)) return false;
+        Long retryAt = index.retryAt.get(groupId);
+        return retryAt == null || System.currentTimeMillis() >= retryAt;
+    }
+
+    // True once a sweep has covered every group of the cluster
+    public boolean isComplete(Long clusterId) {
+        return touch(clusterId).swept;
+    }
+
+    // Indexes the groups now, e.g. ones created since the last sweep. Returns the topics of each group
+    // that could be read; the others are recorded as failed.
+    public Map<String, Set<String>> indexGroups(Long clusterId, Collection<String> groupIds) throws InterruptedException {
+        ClusterIndex index = touch(clusterId);
+        List<String> batch = new ArrayList<>(groupIds);
+        Map<String, Set<String>> topics = groupTopics(kafkaAdminService.getAdminClient(clusterId), batch);
+        apply(index, batch, topics);
+        return topics;
+    }
+
+    // Name index over the groups of a listing; rebuilt only when the set of groups changed
+    public NameIndex groupNames(Long clusterId, Collection<String> groupIds) {
+        ClusterIndex index = touch(clusterId);
+        NameIndex names = index.groupNames;
+        if (names == null || !names.sameNames(groupIds)) {
+            names = NameIndex.of(groupIds);
+            index.groupNames = names;
+        }
+        return names;
+    }
+
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        evictCluster(event.getClusterId());
+    }
+
+    public void evictCluster(Long clusterId) {
+        if (clusterId == null) return;
+        clusters.remove(clusterId);
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void sweepDue() {
+        long now = System.currentTimeMillis();
+        for (ClusterIndex index : clusters.values()) {
+            if (now < index.nextSweepAt || now - index.lastRead > metadataProperties.getIdleTimeoutMs()) continue;
+            if (!index.sweeping.compareAndSet(false, true)) continue;
+            try {
+                executor.execute(() -> {
+                    try {
+                        sweep(index);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        log.warn("Consumer group sweep of cluster {} failed: {}", index.clusterId, e.getMessage());
+                    } finally {
+                        index.nextSweepAt = System.currentTimeMillis() + metadataProperties.getGroupSweepIntervalMs();
+                        index.sweeping.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                index.sweeping.set(false);
+            }
+        }
+    }
+
+    private ClusterIndex touch(Long clusterId) {
+        ClusterIndex index = clusters.computeIfAbsent(clusterId, ClusterIndex::new);
+        index.lastRead = System.currentTimeMillis();
+        return index;
+    }
+
+    private void sweep(ClusterIndex index) throws ExecutionException, InterruptedException {
+        long start = System.currentTimeMillis();
+        AdminClient admin = kafkaAdminService.getAdminClient(index.clusterId);
+        List<String> groupIds = new ArrayList<>();
+        for (ConsumerGroupListing listing : admin.listConsumerGroups().all().get()) {
+            groupIds.add(listing.groupId());
+        }
+        Set<String> live = new HashSet<>(groupIds);
+        for (String groupId : new ArrayList<>(index.groupTopics.keySet())) {
+            if (!live.contains(groupId)) index.remove(groupId);
+        }
+        index.retryAt.keySet().retainAll(live);
+        groupIds.sort(Comparator.comparing(index.groupTopics::containsKey));
+
+        int batchSize = Math.max(1, metadataProperties.getGroupSweepBatchSize());
+        int rate = Math.max(1, metadataProperties.getGroupSweepRate());
+        for (int from = 0; from < groupIds.size(); from += batchSize) {
+            if (clusters.get(index.clusterId) != index) return;
+            long batchStart = System.currentTimeMillis();
+            List<String> batch = groupIds.subList(from, Math.min(from + batchSize, groupIds.size()));
+            apply(index, batch, groupTopics(admin, batch));
+            long pause = batch.size() * 1000L / rate - (System.currentTimeMillis() - batchStart);
+            if (pause > 0) Thread.sleep(pause);
+        }
+        index.swept = true;
+        log.debug("Swept {} consumer groups of cluster {} in {} ms", groupIds.size(), index.clusterId, System.currentTimeMillis() - start);
+    }
+
+    private void apply(ClusterIndex index, List<String> batch, Map<String, Set<String>> topics) {
+        long retryAt = System.currentTimeMillis() + metadataProperties.getGroupSweepIntervalMs();
+        for (String groupId : batch) {
+            Set<String> groupTopics = topics.get(groupId);
+            if (groupTopics != null) {
+                index.put(groupId, groupTopics);
+            } else {
+                index.retryAt.put(groupId, retryAt);
+            }
+        }
+    }
+
+    // Topics of each group from its member assignments and committed offsets, one describe and one
+    // offsets request for the whole batch. Groups that fail (e.g. not authorized) are left out.
+    private Map<String, Set<String>> groupTopics(AdminClient admin, List<String> groupIds) throws InterruptedException {
+        Map<String, Set<String>> result = new HashMap<>();
+        if (groupIds.isEmpty()) return result;
+        Map<String, KafkaFuture<ConsumerGroupDescription>> described = admin.describeConsumerGroups(groupIds).describedGroups();
+        Map<String, ListConsumerGroupOffsetsSpec> specs = new HashMap<>();
+        groupIds.forEach(groupId -> specs.put(groupId, new ListConsumerGroupOffsetsSpec()));
+        ListConsumerGroupOffsetsResult offsets = admin.listConsumerGroupOffsets(specs);
+        for (String groupId : groupIds) {
+            try {
+                Set<String> topics = new HashSet<>();
+                for (MemberDescription member : described.get(groupId).get().members()) {
+                    member.assignment().topicPartitions().forEach(tp -> topics.add(tp.topic()));
+                }
+                offsets.partitionsToOffsetAndMetadata(groupId).get().forEach((tp, offset) -> {
+                    if (offset != null) topics.add(tp.topic());
+                });
+                result.put(groupId, topics);
+            } catch (ExecutionException e) {
+                log.debug("Failed to index consumer group {}: {}", groupId, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private static final class ClusterIndex {
+        final Long clusterId;
+        final AtomicBoolean sweeping = new AtomicBoolean();
+        // group -> topics, and the reverse; only changed through put and remove
+        final Map<String, Set<String>> groupTopics = new ConcurrentHashMap<>();
+        final Map<String, Set<String>> topicGroups = new ConcurrentHashMap<>();
+        // group -> when to read it again, for groups whose last read failed
+        final Map<String, Long> retryAt = new ConcurrentHashMap<>();
+        volatile boolean swept;
+        volatile long lastRead;
+        volatile long nextSweepAt;
+        volatile NameIndex groupNames;
+
+        ClusterIndex(Long clusterId) {
+            this.clusterId = clusterId;
+        }
+
+        synchronized void put(String groupId, Set<String> topics) {
+            retryAt.remove(groupId);
+            Set<String> old = groupTopics.put(groupId, topics);
+            if (old != null) {
+                for (String topic : old) {
+                    if (!topics.contains(topic)) unlink(topic, groupId);
+                }
+            }
+            for (String topic : topics) {
+                topicGroups.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(groupId);
+            }
+        }
+
+        synchronized void remove(String groupId) {
+            retryAt.remove(groupId);
+            Set<String> old = groupTopics.remove(groupId);
+            if (old != null) old.forEach(topic -> unlink(topic, groupId));
+        }
+
+        private void unlink(String topic, String groupId) {
+            topicGroups.computeIfPresent(topic, (t, groups) -> {
+                groups.remove(groupId);
+                return groups.isEmpty() ? null : groups;
+            });
+        }
+    }
+}
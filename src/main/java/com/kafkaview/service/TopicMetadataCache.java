@@ -0,0 +1,295 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.MetadataProperties;
+import com.kafkaview.event.ClusterChangedEvent;
+import com.kafkaview.search.NameIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.admin.TopicListing;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Uuid;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Per-cluster cache of topic metadata (partitions, leaders, replicas, ISR), so pages and dashboards
+// read memory instead of describing the cluster per request. A background refresh lists topic names
+// with their ids and describes only topics that are new or were recreated under the same name, plus
+// a slice of the least recently described ones, so every topic is described again within the full
+// refresh period. Topics created or deleted through this application are updated right away.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TopicMetadataCache {
+
+    private final KafkaAdminService kafkaAdminService;
+    private final MetadataProperties metadataProperties;
+
+    private final Map<Long, ClusterMetadata> clusters = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        int threads = Math.max(1, metadataProperties.getRefreshThreads());
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "kafka-view-metadata-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // All topics of the cluster including internal ones, sorted by name. Read-only.
+    public SortedMap<String, TopicDescription> topics(Long clusterId) throws ExecutionException, InterruptedException {
+        return load(clusterId).topics;
+    }
+
+    // Name index over the non-internal topics, built along with each refresh
+    public NameIndex names(Long clusterId) throws ExecutionException, InterruptedException {
+        return load(clusterId).names;
+    }
+
+    // A topic missing from the cache (e.g. created elsewhere since the last refresh) is described on the spot
+    public TopicDescription topic(Long clusterId, String topicName) throws ExecutionException, InterruptedException {
+        TopicDescription td = topics(clusterId).get(topicName);
+        if (td == null) {
+            td = refreshTopics(clusterId, Collections.singleton(topicName)).get(topicName);
+        }
+        if (td == null) throw new IllegalArgumentException("Topic " + topicName + " does not exist");
+        return td;
+    }
+
+    // Id of the topic as last described; null when it is unknown or the cache cannot be loaded.
+    // Lets per-topic state elsewhere notice that a topic was recreated under the same name.
+    public Uuid topicId(Long clusterId, String topicName) {
+        try {
+            TopicDescription td = topics(clusterId).get(topicName);
+            return td != null ? td.topicId() : null;
+        } catch (ExecutionException | RuntimeException e) {
+            log.debug("No topic id for {} in cluster {}: {}", topicName, clusterId, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // Describes the topics now and updates the cache, e.g. after they were created or deleted.
+    // Returns the topics that exist.
+    public Map<String, TopicDescription> refreshTopics(Long clusterId, Collection<String> topicNames) throws ExecutionException, InterruptedException {
+        ClusterMetadata cluster = clusters.get(clusterId);
+        AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
+        if (cluster == null) return describe(admin, topicNames);
+        synchronized (cluster) {
+            Map<String, TopicDescription> described = describe(admin, topicNames);
+            Snapshot old = cluster.snapshot;
+            if (old != null) {
+                long now = System.currentTimeMillis();
+                TreeMap<String, TopicDescription> topics = new TreeMap<>(old.topics);
+                Map<String, Long> describedAt = new HashMap<>(old.describedAt);
+                for (String name : topicNames) {
+                    TopicDescription td = described.get(name);
+                    if (td != null) {
+                        topics.put(name, td);
+                        describedAt.put(name, now);
+                    } else {
+                        topics.remove(name);
+                        describedAt.remove(name);
+                    }
+                }
+                cluster.snapshot = new Snapshot(topics, describedAt, old.refreshedAt, old.names);
+            }
+            return described;
+        }
+    }
+
+    // Deletion completes asynchronously on the brokers, so a describe right after it may still find the topic
+    public void evictTopic(Long clusterId, String topicName) {
+        ClusterMetadata cluster = clusters.get(clusterId);
+        if (cluster == null) return;
+        synchronized (cluster) {
+            Snapshot old = cluster.snapshot;
+            if (old == null || !old.topics.containsKey(topicName)) return;
+            TreeMap<String, TopicDescription> topics = new TreeMap<>(old.topics);
+            Map<String, Long> describedAt = new HashMap<>(old.describedAt);
+            topics.remove(topicName);
+            describedAt.remove(topicName);
+            cluster.snapshot = new Snapshot(topics, describedAt, old.refreshedAt, old.names);
+        }
+    }
+
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        evictCluster(event.getClusterId());
+    }
+
+    public void evictCluster(Long clusterId) {
+        if (clusterId == null) return;
+        clusters.remove(clusterId);
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void refreshDue() {
+        long now = System.currentTimeMillis();
+        for (ClusterMetadata cluster : clusters.values()) {
+            if (cluster.snapshot == null || now < cluster.nextRefreshAt) continue;
+            if (now - cluster.lastRead > metadataProperties.getIdleTimeoutMs()) continue;
+            if (!cluster.refreshing.compareAndSet(false, true)) continue;
+            try {
+                executor.execute(() -> {
+                    try {
+                        synchronized (cluster) {
+                            refresh(cluster);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        log.warn("Failed to refresh topic metadata of cluster {}: {}", cluster.clusterId, e.getMessage());
+                    } finally {
+                        cluster.refreshing.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                cluster.refreshing.set(false);
+            }
+        }
+    }
+
+    // Reads wait for a refresh only on the first use of a cluster, or when background refreshes
+    // stopped (idle cluster) or keep failing
+    private Snapshot load(Long clusterId) throws ExecutionException, InterruptedException {
+        ClusterMetadata cluster = clusters.computeIfAbsent(clusterId, ClusterMetadata::new);
+        long now = System.currentTimeMillis();
+        cluster.lastRead = now;
+        Snapshot snapshot = cluster.snapshot;
+        if (snapshot != null && !isStale(snapshot, now)) return snapshot;
+        synchronized (cluster) {
+            snapshot = cluster.snapshot;
+            if (snapshot == null || isStale(snapshot, System.currentTimeMillis())) {
+                refresh(cluster);
+                snapshot = cluster.snapshot;
+            }
+            return snapshot;
+        }
+    }
+
+    private boolean isStale(Snapshot snapshot, long now) {
+        return now - snapshot.refreshedAt > 3 * interval();
+    }
+
+    // Must hold the cluster lock
+    private void refresh(ClusterMetadata cluster) throws ExecutionException, InterruptedException {
+        long now = System.currentTimeMillis();
+        cluster.nextRefreshAt = now + interval();
+        AdminClient admin = kafkaAdminService.getAdminClient(cluster.clusterId);
+        Collection<TopicListing> listings = admin.listTopics(new ListTopicsOptions().listInternal(true)).listings().get();
+        Snapshot old = cluster.snapshot;
+
+        Set<String> toDescribe = new HashSet<>();
+        List<String> known = new ArrayList<>();
+        for (TopicListing listing : listings) {
+            TopicDescription cached = old != null ? old.topics.get(listing.name()) : null;
+            if (cached == null || !Objects.equals(cached.topicId(), listing.topicId())) {
+                toDescribe.add(listing.name());
+            } else {
+                known.add(listing.name());
+            }
+        }
+        // Oldest first, sized so the whole cluster is covered once per full refresh period
+        if (!known.isEmpty()) {
+            long period = Math.max(interval(), metadataProperties.getFullRefreshMs());
+            int slice = (int) Math.ceil(known.size() * (double) interval() / period);
+            known.sort(Comparator.comparingLong(name -> old.describedAt.getOrDefault(name, 0L)));
+            toDescribe.addAll(known.subList(0, Math.min(slice, known.size())));
+        }
+
+        Map<String, TopicDescription> described = describe(admin, toDescribe);
+        TreeMap<String, TopicDescription> topics = new TreeMap<>();
+        Map<String, Long> describedAt = new HashMap<>();
+        for (TopicListing listing : listings) {
+            String name = listing.name();
+            TopicDescription td = described.get(name);
+            if (td != null) {
+                topics.put(name, td);
+                describedAt.put(name, now);
+            } else if (!toDescribe.contains(name)) {
+                topics.put(name, old.topics.get(name));
+                describedAt.put(name, old.describedAt.getOrDefault(name, 0L));
+            }
+            // Otherwise deleted between listing and describing
+        }
+        cluster.snapshot = new Snapshot(topics, describedAt, System.currentTimeMillis(), old != null ? old.names : null);
+        log.debug("Refreshed topic metadata of cluster {}: {} topics, {} described in {} ms",
+                cluster.clusterId, topics.size(), described.size(), System.currentTimeMillis() - now);
+    }
+
+    // Describes in batches; topics that no longer exist are left out
+    private Map<String, TopicDescription> describe(AdminClient admin, Collection<String> topicNames) throws ExecutionException, InterruptedException {
+        Map<String, TopicDescription> result = new HashMap<>();
+        List<String> names = new ArrayList<>(topicNames);
+        int batchSize = Math.max(1, metadataProperties.getDescribeBatchSize());
+        for (int from = 0; from < names.size(); from += batchSize) {
+            List<String> batch = names.subList(from, Math.min(from + batchSize, names.size()));
+            Map<String, KafkaFuture<TopicDescription>> futures = admin.describeTopics(batch).topicNameValues();
+            for (Map.Entry<String, KafkaFuture<TopicDescription>> entry : futures.entrySet()) {
+                try {
+                    result.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof UnknownTopicOrPartitionException)) throw e;
+                }
+            }
+        }
+        return result;
+    }
+
+    private long interval() {
+        return Math.max(1000, metadataProperties.getRefreshIntervalMs());
+    }
+
+    private static final class Snapshot {
+        final SortedMap<String, TopicDescription> topics;
+        final Map<String, Long> describedAt;
+        final long refreshedAt;
+        final NameIndex names;      // Non-internal topics
+
+        // The previous name index is reused while the set of topics stays the same
+        Snapshot(TreeMap<String, TopicDescription> topics, Map<String, Long> describedAt, long refreshedAt, NameIndex previous) {
+            this.topics = Collections.unmodifiableSortedMap(topics);
+            this.describedAt = describedAt;
+            this.refreshedAt = refreshedAt;
+            List<String> external = new ArrayList<>();
+            topics.values().forEach(td -> {
+                if (!td.isInternal()) external.add(td.name());
+            });
+            this.names = previous != null && previous.sameNames(external) ? previous : NameIndex.of(external);
+        }
+    }
+
+    private static final class ClusterMetadata {
+        final Long clusterId;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        volatile Snapshot snapshot;
+        volatile long lastRead;
+        volatile long nextRefreshAt;
+
+        ClusterMetadata(Long clusterId) {
+            this.clusterId = clusterId;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.SearchProperties;
+import com.kafkaview.event.ClusterChangedEvent;
+import com.kafkaview.model.*;
+import com.kafkaview.search.HyperLogLog;
+import com.kafkaview.search.KeyOffsetTable;
+import com.kafkaview.search.MessageQuery;
+import com.kafkaview.search.SizeHistogram;
+import com.kafkaview.search.SpaceSaving;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Profiles the keys and sizes of a topic range in the background: a size histogram, an approximate
+// distinct key count (HyperLogLog), the most frequent keys (Space-Saving) and the load per partition.
+// Records come from the forward scan used by exports, so memory stays fixed whatever the range.
+// The latest profile of each topic is kept until the next one replaces it.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TopicProfileService {
+
+    private static final int HLL_PRECISION = 14;
+
+    private final MessageSearchService messageSearchService;
+    private final SearchRegistry searchRegistry;
+    private final SearchProperties searchProperties;
+    private final PayloadDecoderService payloadDecoderService;
+
+    // "cluster/topic" -> latest job
+    private final Map<String, ProfileJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        int threads = Math.max(1, searchProperties.getProfileThreads());
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "kafka-view-profile-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.running.cancel());
+        executor.shutdownNow();
+    }
+
+    // Starts profiling the range; a profile of the topic that is still running is returned instead
+    public TopicProfile start(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, int timeout, String searchId) {
+        MessageQuery compiled = MessageQuery.compile(query, key, keyword);
+        String id = id(clusterId, topicName);
+        ProfileJob job;
+        synchronized (jobs) {
+            ProfileJob current = jobs.get(id);
+            if (current != null && current.finishedAt == null) return current.snapshot();
+            SearchRegistry.RunningSearch running = searchRegistry.register(searchId, clusterId, topicName, searchProperties.getProfileMaxDurationMs());
+            job = new ProfileJob(clusterId, topicName, running);
+            jobs.put(id, job);
+        }
+        executor.execute(() -> job.run(partitionIds, startTime, endTime, startOffset, endOffset, compiled, timeout));
+        return job.snapshot();
+    }
+
+    // The running or latest profile, or null
+    public TopicProfile get(Long clusterId, String topicName) {
+        ProfileJob job = jobs.get(id(clusterId, topicName));
+        return job != null ? job.snapshot() : null;
+    }
+
+    public boolean cancel(Long clusterId, String topicName) {
+        ProfileJob job = jobs.get(id(clusterId, topicName));
+        if (job == null || job.finishedAt != null) return false;
+        job.running.cancel();
+        return true;
+    }
+
+    public void deleteTopic(Long clusterId, String topicName) {
+        ProfileJob job = jobs.remove(id(clusterId, topicName));
+        if (job != null) job.running.cancel();
+    }
+
+    // Profiles read through the old connection settings may describe other data, so an update drops them too
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        removeCluster(event.getClusterId());
+    }
+
+    public void removeCluster(Long clusterId) {
+        String prefix = clusterId + "/";
+        jobs.entrySet().removeIf(e -> {
+            if (!e.getKey().startsWith(prefix)) return false;
+            e.getValue().running.cancel();
+            return true;
+        });
+    }
+
+    private static String id(Long clusterId, String topicName) {
+        return clusterId + "/" + topicName;
+    }
+
+    // Accumulates the profile from the scan thread; snapshots are taken from request threads
+    private class ProfileJob implements MessageRecordSink {
+        final Long clusterId;
+        final String topicName;
+        final SearchRegistry.RunningSearch running;
+        final long startedAt = System.currentTimeMillis();
+        final long maxRecords = Math.max(1, searchProperties.getProfileMaxRecords());
+        volatile Long finishedAt;
+        volatile String status = "RUNNING";
+        volatile String error;
+        volatile boolean limitReached;
+        volatile boolean deadlineExceeded;
+
+        private final SizeHistogram sizes = new SizeHistogram();
+        private final HyperLogLog distinctKeys = new HyperLogLog(HLL_PRECISION);
+        private final SpaceSaving hotKeys = new SpaceSaving(Math.max(1, searchProperties.getProfileKeyCounters()));
+        private final Map<Integer, long[]> partitions = new TreeMap<>();
+        private long nullKeys;
+
+        ProfileJob(Long clusterId, String topicName, SearchRegistry.RunningSearch running) {
+            this.clusterId = clusterId;
+            this.topicName = topicName;
+            this.running = running;
+        }
+
+        void run(List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, MessageQuery query, int timeout) {
+            try {
+                long records = messageSearchService.exportMessages(clusterId, topicName, partitionIds, startTime, endTime, startOffset, endOffset, query, timeout, running, this);
+                status = running.cancelled.get() && !limitReached ? "CANCELLED" : "DONE";
+                deadlineExceeded = !running.cancelled.get() && running.isExpired();
+                log.info("Profiled {} records of {} in {} ms", records, topicName, System.currentTimeMillis() - startedAt);
+            } catch (Exception e) {
+                status = "FAILED";
+                error = e.getMessage();
+                log.warn("Profiling {} failed: {}", topicName, e.getMessage());
+            } finally {
+                finishedAt = System.currentTimeMillis();
+                searchRegistry.unregister(running);
+            }
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public synchronized void accept(ConsumerRecord<byte[], byte[]> record) {
+            if (sizes.count() >= maxRecords) {
+                // Stops the scan after the current poll batch
+                limitReached = true;
+                running.cancel();
+                return;
+            }
+            long size = Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+            sizes.add(size);
+            long[] load = partitions.computeIfAbsent(record.partition(), p -> new long[2]);
+            load[0]++;
+            load[1] += size;
+            if (record.key() == null) {
+                nullKeys++;
+            } else {
+                distinctKeys.add(KeyOffsetTable.hash(record.key()));
+                hotKeys.offer(record.key());
+            }
+        }
+
+        synchronized TopicProfile snapshot() {
+            List<SizeBucket> buckets = new ArrayList<>();
+            for (int i = 0; i < sizes.buckets(); i++) {
+                if (sizes.bucketCount(i) == 0) continue;
+                buckets.add(SizeBucket.builder()
+                        .fromBytes(SizeHistogram.bucketFrom(i))
+                        .toBytes(SizeHistogram.bucketTo(i))
+                        .count(sizes.bucketCount(i))
+                        .build());
+            }
+            long records = sizes.count();
+            List<HotKey> keys = new ArrayList<>();
+            for (SpaceSaving.Entry entry : hotKeys.top(Math.max(0, searchProperties.getProfileTopKeys()))) {
+                keys.add(HotKey.builder()
+                        .key(payloadDecoderService.decodeKey(clusterId, topicName, entry.key()))
+                        .count(entry.count())
+                        .error(entry.error())
+                        .share(records == 0 ? 0 : (double) entry.count() / records)
+                        .build());
+            }
+            List<PartitionLoad> loads = new ArrayList<>();
+            partitions.forEach((partition, load) -> loads.add(PartitionLoad.builder()
+                    .partition(partition)
+                    .records(load[0])
+                    .bytes(load[1])
+                    .build()));
+            return TopicProfile.builder()
+                    .searchId(running.getId())
+                    .topicName(topicName)
+                    .status(status)
+                    .error(error)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .limitReached(limitReached)
+                    .deadlineExceeded(deadlineExceeded)
+                    .records(records)
+                    .bytes(sizes.sum())
+                    .nullKeys(nullKeys)
+                    .distinctKeys(distinctKeys.estimate())
+                    .distinctKeysError(distinctKeys.standardError())
+                    .minSize(sizes.min())
+                    .maxSize(sizes.max())
+                    .avgSize(records == 0 ? 0 : sizes.sum() / records)
+                    .p50Size(sizes.quantile(0.5))
+                    .p99Size(sizes.quantile(0.99))
+                    .sizeHistogram(buckets)
+                    .hotKeys(keys)
+                    .partitions(loads)
+                    .build();
+        }
+    }
+}
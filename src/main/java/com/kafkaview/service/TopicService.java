@@ -2,21 +2,23 @@ package com.kafkaview.service;
 
 import com.kafkaview.model.*;
 import com.kafkaview.mapper.MessageHistoryMapper;
+import com.kafkaview.search.NameIndex;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.*;
 import org.apache.kafka.clients.consumer.*;
 import org.apache.kafka.clients.producer.*;
-import org.apache.kafka.common.KafkaFuture;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.ConfigResource;
-import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -30,12 +32,23 @@ public class TopicService {
     private final KafkaAdminService kafkaAdminService;
     private final MessageHistoryMapper messageHistoryMapper;
     private final TopicVolumeService topicVolumeService;
+    private final MessageSearchService messageSearchService;
+    private final MessageExportService messageExportService;
+    private final KeyIndexService keyIndexService;
+    private final LiveTailService liveTailService;
+    private final PayloadDecoderService payloadDecoderService;
+    private final TopicProfileService topicProfileService;
+    private final TimeIndexService timeIndexService;
+    private final RecordRangeCache recordRangeCache;
+    private final TopicMetadataCache topicMetadataCache;
+    private final TopicGroupIndex topicGroupIndex;
+    private final TopicStatsService topicStatsService;
+    private final AdminCallCoalescer adminCallCoalescer;
 
     public PageResult<ProducerInfo> getTopicProducers(Long clusterId, String topicName, int page, int pageSize) throws ExecutionException, InterruptedException {
         AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
         
-        DescribeTopicsResult describeResult = admin.describeTopics(Collections.singleton(topicName));
-        TopicDescription td = describeResult.all().get().get(topicName);
+        TopicDescription td = topicMetadataCache.topic(clusterId, topicName);
         
         List<TopicPartition> tps = td.partitions().stream()
                 .map(p -> new TopicPartition(topicName, p.partition()))
@@ -136,10 +149,7 @@ public class TopicService {
     }
 
     public PageResult<TopicPartitionDetail> getTopicPartitions(Long clusterId, String topicName, int page, int pageSize) throws ExecutionException, InterruptedException {
-        AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
-        
-        DescribeTopicsResult describeResult = admin.describeTopics(Collections.singleton(topicName));
-        TopicDescription td = describeResult.all().get().get(topicName);
+        TopicDescription td = topicMetadataCache.topic(clusterId, topicName);
         
         List<org.apache.kafka.common.TopicPartitionInfo> allPartitions = new ArrayList<>(td.partitions());
         // Sort partitions by ID to ensure consistent order
@@ -157,11 +167,10 @@ public class TopicService {
                 .map(p -> new TopicPartition(topicName, p.partition()))
                 .collect(Collectors.toList());
         
-        Map<TopicPartition, OffsetSpec> startSpecs = tps.stream().collect(Collectors.toMap(tp -> tp, tp -> OffsetSpec.earliest()));
-        Map<TopicPartition, OffsetSpec> endSpecs = tps.stream().collect(Collectors.toMap(tp -> tp, tp -> OffsetSpec.latest()));
-        
-        var startOffsets = admin.listOffsets(startSpecs).all().get();
-        var endOffsets = admin.listOffsets(endSpecs).all().get();
+        var startOffsetsFuture = adminCallCoalescer.earliestOffsets(clusterId, tps);
+        var endOffsetsFuture = adminCallCoalescer.latestOffsets(clusterId, tps);
+        var startOffsets = startOffsetsFuture.get();
+        var endOffsets = endOffsetsFuture.get();
         
         List<TopicPartitionDetail> details = new ArrayList<>();
         for (org.apache.kafka.common.TopicPartitionInfo info : pagePartitions) {
@@ -183,53 +192,60 @@ public class TopicService {
     }
 
     public PageResult<TopicInfo> listTopics(Long clusterId, int page, int pageSize, String keyword) throws ExecutionException, InterruptedException {
-        AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
-        
-        // 1. 获取所有 Topic 名称
-        ListTopicsResult listResult = admin.listTopics();
-        Set<String> allNames = listResult.names().get();
+        return listTopics(clusterId, page, pageSize, keyword, null, null, null, null);
+    }
+
+    // keyword is matched through the topic name index (match: contains, prefix, glob or regex).
+    // Sorting by anything but the name and range filters go through the precomputed topic stats table;
+    // the rows of the page itself are always read live.
+    public PageResult<TopicInfo> listTopics(Long clusterId, int page, int pageSize, String keyword, String match, TopicFilter filter, String sortField, String sortOrder) throws ExecutionException, InterruptedException {
+        // 1. 从元数据缓存读取 Topic 名称与分区信息 (已按名称排序, 内部 Topic 需排除)
+        Map<String, TopicDescription> descriptions = topicMetadataCache.topics(clusterId);
         
-        // 2. 内存过滤
-        List<String> filteredNames = allNames.stream()
-                .filter(name -> !StringUtils.hasText(keyword) || name.toLowerCase().contains(keyword.toLowerCase()))
-                .sorted()
-                .collect(Collectors.toList());
+        // 2. 名称索引过滤 (结果已按名称排序), 其他排序与范围过滤走统计表
+        NameIndex names = topicMetadataCache.names(clusterId);
+        List<String> filteredNames = names.list(names.search(match, keyword));
+        boolean byName = !StringUtils.hasText(sortField) || "name".equals(sortField);
+        if (byName && (filter == null || filter.isEmpty())) {
+            if ("desc".equalsIgnoreCase(sortOrder)) {
+                filteredNames = new ArrayList<>(filteredNames);
+                Collections.reverse(filteredNames);
+            }
+        } else {
+            filteredNames = topicStatsService.rank(clusterId, filteredNames, filter, sortField, sortOrder);
+        }
         
         int total = filteredNames.size();
+        // Group counts miss groups until the first sweep of the cluster's groups ends
+        boolean partial = !topicGroupIndex.isComplete(clusterId);
         
         // 3. 内存分页
         int start = (page - 1) * pageSize;
         if (start >= total) {
-            return new PageResult<>(Collections.emptyList(), total, page, pageSize);
+            return new PageResult<>(Collections.emptyList(), total, page, pageSize, partial);
         }
         int end = Math.min(start + pageSize, total);
-        List<String> pageNames = filteredNames.subList(start, end);
-        
-        // 4. 获取详细信息 (Describe)
-        DescribeTopicsResult describeResult = admin.describeTopics(pageNames);
-        Map<String, TopicDescription> descriptions = describeResult.all().get();
+        // Topics deleted since the ranking are left out
+        List<String> pageNames = filteredNames.subList(start, end).stream()
+                .filter(descriptions::containsKey)
+                .collect(Collectors.toList());
         
-        // 5. 批量获取 Offset 信息 (LogStart 和 LogEnd)
-        // 构造所有分区的查询请求
+        // 4. 批量获取 Offset 信息 (LogStart 和 LogEnd)
+        // 构造当前页所有分区的查询请求
         List<TopicPartition> allPartitions = new ArrayList<>();
-        for (TopicDescription td : descriptions.values()) {
-            for (org.apache.kafka.common.TopicPartitionInfo tpi : td.partitions()) {
-                allPartitions.add(new TopicPartition(td.name(), tpi.partition()));
+        for (String name : pageNames) {
+            for (org.apache.kafka.common.TopicPartitionInfo tpi : descriptions.get(name).partitions()) {
+                allPartitions.add(new TopicPartition(name, tpi.partition()));
             }
         }
         
-        Map<TopicPartition, OffsetSpec> startSpecs = new HashMap<>();
-        Map<TopicPartition, OffsetSpec> endSpecs = new HashMap<>();
-        allPartitions.forEach(tp -> startSpecs.put(tp, OffsetSpec.earliest()));
-        allPartitions.forEach(tp -> endSpecs.put(tp, OffsetSpec.latest()));
-        
-        // 并行查询 Start 和 End Offsets
+        // 并行查询 Start 和 End Offsets (相同页面的并发请求共享同一次查询)
         Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> startOffsets = new HashMap<>();
         Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = new HashMap<>();
         
         try {
-            var startOffsetsFuture = admin.listOffsets(startSpecs).all();
-            var endOffsetsFuture = admin.listOffsets(endSpecs).all();
+            var startOffsetsFuture = adminCallCoalescer.earliestOffsets(clusterId, allPartitions);
+            var endOffsetsFuture = adminCallCoalescer.latestOffsets(clusterId, allPartitions);
             
             startOffsets = startOffsetsFuture.get();
             endOffsets = endOffsetsFuture.get();
@@ -237,89 +253,10 @@ public class TopicService {
             log.warn("Failed to fetch topic offsets: {}", e.getMessage());
         }
         
-        // 6. Calculate Consumer Group Counts (Active + Inactive with offsets)
-        Map<String, Integer> topicGroupCounts = new HashMap<>();
-        try {
-            Collection<ConsumerGroupListing> groupListings = admin.listConsumerGroups().all().get();
-            List<String> allGroupIds = groupListings.stream().map(ConsumerGroupListing::groupId).collect(Collectors.toList());
-            
-            if (!allGroupIds.isEmpty()) {
-                // Map to store unique groups per topic
-                Map<String, Set<String>> topicToGroups = new HashMap<>();
-                for (String name : pageNames) {
-                    topicToGroups.put(name, new HashSet<>());
-                }
-
-                // 1. Check Active Members (via DescribeGroups)
-                Map<String, KafkaFuture<ConsumerGroupDescription>> describeFutures = admin.describeConsumerGroups(allGroupIds).describedGroups();
-                
-                for (Map.Entry<String, KafkaFuture<ConsumerGroupDescription>> entry : describeFutures.entrySet()) {
-                    try {
-                        ConsumerGroupDescription group = entry.getValue().get();
-                        String groupId = group.groupId();
-                        for (MemberDescription member : group.members()) {
-                            for (TopicPartition tp : member.assignment().topicPartitions()) {
-                                if (topicToGroups.containsKey(tp.topic())) {
-                                    topicToGroups.get(tp.topic()).add(groupId);
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        // Ignore authorization errors or other failures for specific groups
-                    }
-                }
+        // 5. Consumer group counts (active members or committed offsets) from the topic -> group index
+        Map<String, Integer> topicGroupCounts = topicGroupIndex.groupCounts(clusterId, pageNames);
 
-                // 2. Check Committed Offsets for groups not yet counted or just check all
-                // We need to check offsets for ALL groups for the topics in the page.
-                // To optimize, we batch requests.
-                
-                // Prepare all partitions for topics in the current page
-                List<TopicPartition> allPagePartitions = new ArrayList<>();
-                for (String name : pageNames) {
-                    TopicDescription td = descriptions.get(name);
-                    for (org.apache.kafka.common.TopicPartitionInfo tpi : td.partitions()) {
-                        allPagePartitions.add(new TopicPartition(name, tpi.partition()));
-                    }
-                }
-
-                if (!allPagePartitions.isEmpty()) {
-                    Map<String, KafkaFuture<Map<TopicPartition, OffsetAndMetadata>>> futures = new HashMap<>();
-                    ListConsumerGroupOffsetsOptions options = new ListConsumerGroupOffsetsOptions()
-                            .topicPartitions(allPagePartitions);
-
-                    for (String groupId : allGroupIds) {
-                        futures.put(groupId, admin.listConsumerGroupOffsets(groupId, options).partitionsToOffsetAndMetadata());
-                    }
-                    
-                    for (Map.Entry<String, KafkaFuture<Map<TopicPartition, OffsetAndMetadata>>> entry : futures.entrySet()) {
-                        try {
-                            String groupId = entry.getKey();
-                            Map<TopicPartition, OffsetAndMetadata> offsets = entry.getValue().get();
-                            
-                            for (Map.Entry<TopicPartition, OffsetAndMetadata> offsetEntry : offsets.entrySet()) {
-                                if (offsetEntry.getValue() != null) {
-                                    String topic = offsetEntry.getKey().topic();
-                                    if (topicToGroups.containsKey(topic)) {
-                                        topicToGroups.get(topic).add(groupId);
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            // Ignore errors for specific groups
-                        }
-                    }
-                }
-                
-                // Summarize
-                for (Map.Entry<String, Set<String>> entry : topicToGroups.entrySet()) {
-                    topicGroupCounts.put(entry.getKey(), entry.getValue().size());
-                }
-            }
-        } catch (Exception e) {
-            log.warn("Failed to fetch consumer group counts", e);
-        }
-
-        // 7. 组装结果
+        // 6. 组装结果
         List<TopicInfo> topicInfos = new ArrayList<>();
         for (String name : pageNames) {
             TopicDescription td = descriptions.get(name);
@@ -328,6 +265,7 @@ public class TopicService {
             long maxOff = 0; // 同上
             
             Set<Integer> brokerIds = new HashSet<>();
+            int underReplicated = 0;
             
             for (org.apache.kafka.common.TopicPartitionInfo tpi : td.partitions()) {
                 TopicPartition tp = new TopicPartition(name, tpi.partition());
@@ -346,12 +284,14 @@ public class TopicService {
                 maxOff += endOffset;
                 
                 tpi.replicas().forEach(node -> brokerIds.add(node.id()));
+                if (tpi.isr().size() < tpi.replicas().size()) underReplicated++;
             }
             
             topicInfos.add(TopicInfo.builder()
                     .name(name)
                     .partitionCount(td.partitions().size())
                     .replicationFactor(td.partitions().get(0).replicas().size())
+                    .underReplicatedPartitions(underReplicated)
                     .messageCount(totalMsg)
                     .minOffset(minOff)
                     .maxOffset(maxOff)
@@ -360,7 +300,7 @@ public class TopicService {
                     .build());
         }
         
-        return new PageResult<>(topicInfos, total, page, pageSize);
+        return new PageResult<>(topicInfos, total, page, pageSize, partial);
     }
 
     // Expose topic volume helper
@@ -380,11 +320,18 @@ public class TopicService {
         AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
         NewTopic newTopic = new NewTopic(request.getName(), request.getPartitions(), request.getReplicationFactor());
         admin.createTopics(Collections.singleton(newTopic)).all().get();
+        topicMetadataCache.refreshTopics(clusterId, Collections.singleton(request.getName()));
     }
 
     public void deleteTopic(Long clusterId, String topicName) throws ExecutionException, InterruptedException {
         AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
         admin.deleteTopics(Collections.singleton(topicName)).all().get();
+        topicMetadataCache.evictTopic(clusterId, topicName);
+        timeIndexService.evictTopic(clusterId, topicName);
+        recordRangeCache.evictTopic(clusterId, topicName);
+        keyIndexService.disable(clusterId, topicName);
+        payloadDecoderService.deleteTopic(clusterId, topicName);
+        topicProfileService.deleteTopic(clusterId, topicName);
     }
 
     public void sendMessage(Long clusterId, String topicName, Integer partition, String key, String value, Integer count) throws ExecutionException, InterruptedException {
@@ -446,296 +393,79 @@ public class TopicService {
                 .build();
     }
 
-    public MessageSearchResult searchMessages(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, int limit, int page, int pageSize, String sortField, String sortOrder, String scanDirection, int timeout, int retryCount) {
-        Properties props = kafkaAdminService.getClusterProperties(clusterId);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "kafka-view-search-" + UUID.randomUUID());
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        // Optimized for faster scanning
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
-        props.put(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, 50 * 1024 * 1024);
-        props.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 10 * 1024 * 1024);
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
-        
-        // Enforce limit constraints
-        if (limit > 1000) limit = 1000;
-        if (limit < 1) limit = 1;
-        
-        List<TopicMessage> allMatches = new ArrayList<>();
-        Map<Integer, PartitionOffsetRange> partitionBounds = new HashMap<>();
-        
-        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(props)) {
-            List<TopicPartition> tps = new ArrayList<>();
-            if (partitionIds != null && !partitionIds.isEmpty()) {
-                for (Integer pid : partitionIds) {
-                    tps.add(new TopicPartition(topicName, pid));
-                }
-            } else {
-                consumer.partitionsFor(topicName).forEach(p -> tps.add(new TopicPartition(topicName, p.partition())));
-            }
-            consumer.assign(tps);
+    public CompletableFuture<MessageSearchResult> searchMessages(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, int limit, int page, int pageSize, String sortField, String sortOrder, String scanDirection, int timeout, int retryCount, String cursorId, boolean resume, String searchId, Long maxDurationMs) {
+        return messageSearchService.searchMessages(clusterId, topicName, partitionIds, startTime, endTime, startOffset, endOffset, key, keyword, query, limit, page, pageSize, sortField, sortOrder, scanDirection, timeout, retryCount, cursorId, resume, searchId, maxDurationMs);
+    }
 
-            // Fetch Partition Bounds (Min/Max) for UI
-            Map<TopicPartition, Long> logStartOffsets = consumer.beginningOffsets(tps);
-            Map<TopicPartition, Long> logEndOffsets = consumer.endOffsets(tps);
-            
-            for (TopicPartition tp : tps) {
-                partitionBounds.put(tp.partition(), PartitionOffsetRange.builder()
-                        .partition(tp.partition())
-                        .minOffset(logStartOffsets.getOrDefault(tp, 0L))
-                        .maxOffset(logEndOffsets.getOrDefault(tp, 0L))
-                        .build());
-            }
+    public CompletableFuture<MessageSearchResult> searchTopics(Long clusterId, List<String> topics, String topicPattern, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, int limit, String scanDirection, int timeout, int retryCount, String searchId, Long maxDurationMs) {
+        return messageSearchService.searchTopics(clusterId, topics, topicPattern, startTime, endTime, startOffset, endOffset, key, keyword, query, limit, scanDirection, timeout, retryCount, searchId, maxDurationMs);
+    }
 
-            Map<TopicPartition, Long> startOffsets = new HashMap<>();
-            Map<TopicPartition, Long> endOffsets = new HashMap<>();
+    public CompletableFuture<MatchEstimate> estimateMatches(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, Integer budget, Integer windowSize, int hitLimit, int timeout, int retryCount, String searchId, Long maxDurationMs) {
+        return messageSearchService.estimateMatches(clusterId, topicName, partitionIds, startTime, endTime, startOffset, endOffset, key, keyword, query, budget, windowSize, hitLimit, timeout, retryCount, searchId, maxDurationMs);
+    }
 
-            // Initialize with Log Bounds
-            for (TopicPartition tp : tps) {
-                startOffsets.put(tp, logStartOffsets.getOrDefault(tp, 0L));
-                endOffsets.put(tp, logEndOffsets.getOrDefault(tp, 0L));
-            }
+    public SseEmitter streamMessages(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, int limit, String scanDirection, int timeout, int retryCount, String searchId) {
+        return messageSearchService.streamMessages(clusterId, topicName, partitionIds, startTime, endTime, startOffset, endOffset, key, keyword, query, limit, scanDirection, timeout, retryCount, searchId);
+    }
 
-            boolean hasTimeConstraint = startTime != null || endTime != null;
-            boolean hasOffsetConstraint = startOffset != null || endOffset != null;
-
-            if (!hasTimeConstraint && !hasOffsetConstraint) {
-                // Default behavior
-                if ("desc".equalsIgnoreCase(scanDirection)) {
-                    // Newest First: Last limit messages
-                    for (TopicPartition tp : tps) {
-                        long end = logEndOffsets.get(tp);
-                        startOffsets.put(tp, Math.max(0, end - limit));
-                        endOffsets.put(tp, end);
-                    }
-                } else {
-                    // Oldest First: From Beginning (Log Start Offset)
-                    // startOffsets are already initialized to logStartOffsets
-                    // endOffsets are already initialized to logEndOffsets
-                }
-            } else {
-                // Apply Time Constraints
-                if (startTime != null) {
-                    Map<TopicPartition, Long> timestampsToSearch = new HashMap<>();
-                    for (TopicPartition tp : tps) timestampsToSearch.put(tp, startTime);
-                    Map<TopicPartition, OffsetAndTimestamp> offsets = consumer.offsetsForTimes(timestampsToSearch);
-                    for (Map.Entry<TopicPartition, OffsetAndTimestamp> entry : offsets.entrySet()) {
-                        TopicPartition tp = entry.getKey();
-                        if (entry.getValue() != null) {
-                            startOffsets.put(tp, Math.max(startOffsets.get(tp), entry.getValue().offset()));
-                        } else {
-                            startOffsets.put(tp, endOffsets.get(tp)); // Time is future
-                        }
-                    }
-                }
-                if (endTime != null) {
-                    Map<TopicPartition, Long> timestampsToSearch = new HashMap<>();
-                    for (TopicPartition tp : tps) timestampsToSearch.put(tp, endTime);
-                    Map<TopicPartition, OffsetAndTimestamp> offsets = consumer.offsetsForTimes(timestampsToSearch);
-                    for (Map.Entry<TopicPartition, OffsetAndTimestamp> entry : offsets.entrySet()) {
-                        TopicPartition tp = entry.getKey();
-                        if (entry.getValue() != null) {
-                            endOffsets.put(tp, Math.min(endOffsets.get(tp), entry.getValue().offset()));
-                        }
-                        // If null, time is future, so keep Log End Offset
-                    }
-                }
+    public WebAsyncTask<Void> exportMessages(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, String format, int timeout, String searchId, HttpServletResponse response) {
+        return messageExportService.export(clusterId, topicName, partitionIds, startTime, endTime, startOffset, endOffset, key, keyword, query, format, timeout, searchId, response);
+    }
 
-                // Apply Offset Constraints
-                if (startOffset != null) {
-                    for (TopicPartition tp : tps) {
-                        startOffsets.put(tp, Math.max(startOffsets.get(tp), startOffset));
-                    }
-                }
-                if (endOffset != null) {
-                    for (TopicPartition tp : tps) {
-                        endOffsets.put(tp, Math.min(endOffsets.get(tp), endOffset));
-                    }
-                }
-            }
+    public SseEmitter tailMessages(Long clusterId, String topicName, List<Integer> partitionIds, String key, String keyword, String query) {
+        return liveTailService.subscribe(clusterId, topicName, partitionIds, key, keyword, query);
+    }
 
-            if ("desc".equalsIgnoreCase(scanDirection)) {
-                // Reverse Scan Strategy (Newest First)
-                // We scan backwards in chunks from endOffsets to startOffsets
-                int chunkSize = 20000;
-                Map<TopicPartition, Long> currentEnds = new HashMap<>(endOffsets);
-                boolean anyPartitionHasData = true;
-                
-                while (allMatches.size() < limit && anyPartitionHasData) {
-                    anyPartitionHasData = false;
-                    List<TopicPartition> activePartitions = new ArrayList<>();
-                    Map<TopicPartition, Long> chunkTargetEnds = new HashMap<>();
-
-                    for (TopicPartition tp : tps) {
-                        long absStart = startOffsets.get(tp);
-                        long currentEnd = currentEnds.get(tp);
-                        
-                        if (currentEnd > absStart) {
-                            long chunkStart = Math.max(absStart, currentEnd - chunkSize);
-                            consumer.seek(tp, chunkStart);
-                            activePartitions.add(tp);
-                            chunkTargetEnds.put(tp, currentEnd);
-                            anyPartitionHasData = true;
-                            
-                            // Update cursor for next iteration
-                            currentEnds.put(tp, chunkStart);
-                        } else {
-                            consumer.pause(Collections.singleton(tp));
-                        }
-                    }
-                    
-                    if (!anyPartitionHasData) break;
-                    
-                    consumer.resume(activePartitions);
-
-                    // Poll this chunk
-                    boolean chunkComplete = false;
-                    int emptyPolls = 0;
-                    
-                    while (!chunkComplete && emptyPolls < retryCount) {
-                        ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(timeout));
-                        if (records.isEmpty()) {
-                            emptyPolls++;
-                        } else {
-                            emptyPolls = 0;
-                            for (ConsumerRecord<String, String> record : records) {
-                                TopicPartition tp = new TopicPartition(record.topic(), record.partition());
-                                if (!chunkTargetEnds.containsKey(tp)) continue;
-                                if (record.offset() >= chunkTargetEnds.get(tp)) continue;
-
-                                boolean match = true;
-                                if (StringUtils.hasText(key) && (record.key() == null || !record.key().contains(key))) match = false;
-                                if (StringUtils.hasText(keyword) && (record.value() == null || !record.value().contains(keyword))) match = false;
-
-                                if (match) {
-                                    allMatches.add(TopicMessage.builder()
-                                            .partition(record.partition())
-                                            .offset(record.offset())
-                                            .timestamp(record.timestamp())
-                                            .timestampType(record.timestampType().name())
-                                            .key(record.key())
-                                            .value(record.value())
-                                            .build());
-                                }
-                            }
-                        }
-                        
-                        // Check if all active partitions reached their target
-                        boolean allReached = true;
-                        for (TopicPartition tp : activePartitions) {
-                            if (consumer.position(tp) < chunkTargetEnds.get(tp)) {
-                                allReached = false;
-                                break;
-                            }
-                        }
-                        if (allReached) chunkComplete = true;
-                        if (allMatches.size() >= limit) chunkComplete = true;
-                    }
-                }
-            } else {
-                // Forward Scan (ASC) - Oldest First
-                for (TopicPartition tp : tps) {
-                    Long start = startOffsets.get(tp);
-                    if (start != null && start != -1L) {
-                        consumer.seek(tp, start);
-                    } else {
-                        consumer.seek(tp, endOffsets.get(tp));
-                    }
-                }
+    public TopicFormat getTopicFormat(Long clusterId, String topicName) {
+        return payloadDecoderService.getFormat(clusterId, topicName);
+    }
 
-                int maxScanned = 500000;
-                int scanned = 0;
-                boolean allDone = false;
-
-                while (scanned < maxScanned && !allDone) {
-                    ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(timeout));
-                    if (records.isEmpty()) {
-                        boolean anyRemaining = false;
-                        for (TopicPartition tp : tps) {
-                            if (consumer.position(tp) < endOffsets.get(tp)) {
-                                anyRemaining = true;
-                                break;
-                            }
-                        }
-                        if (!anyRemaining) break;
-                        continue;
-                    }
-
-                    for (ConsumerRecord<String, String> record : records) {
-                        scanned++;
-                        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
-                        if (record.offset() >= endOffsets.get(tp)) {
-                            continue;
-                        }
-
-                        boolean match = true;
-                        if (StringUtils.hasText(key) && (record.key() == null || !record.key().contains(key))) match = false;
-                        if (StringUtils.hasText(keyword) && (record.value() == null || !record.value().contains(keyword))) match = false;
-
-                        if (match) {
-                            allMatches.add(TopicMessage.builder()
-                                    .partition(record.partition())
-                                    .offset(record.offset())
-                                    .timestamp(record.timestamp())
-                                    .timestampType(record.timestampType().name())
-                                    .key(record.key())
-                                    .value(record.value())
-                                    .build());
-                            if (allMatches.size() >= limit) {
-                                allDone = true;
-                                break;
-                            }
-                        }
-                    }
-                    
-                    boolean anyRemaining = false;
-                    for (TopicPartition tp : tps) {
-                        if (consumer.position(tp) < endOffsets.get(tp)) {
-                            anyRemaining = true;
-                            break;
-                        }
-                    }
-                    if (!anyRemaining) allDone = true;
-                }
-            }
-        }
-        
-        // Sort
-        Comparator<TopicMessage> comparator;
-        if ("offset".equalsIgnoreCase(sortField)) {
-            comparator = Comparator.comparingLong(TopicMessage::getOffset);
-        } else if ("partition".equalsIgnoreCase(sortField)) {
-            comparator = Comparator.comparingInt(TopicMessage::getPartition);
-        } else {
-            // Default to timestamp
-            comparator = Comparator.comparingLong(TopicMessage::getTimestamp);
-        }
+    public void updateTopicFormat(Long clusterId, String topicName, TopicFormat format) {
+        format.setClusterId(clusterId);
+        format.setTopicName(topicName);
+        payloadDecoderService.setFormat(format);
+    }
 
-        if ("asc".equalsIgnoreCase(sortOrder)) {
-            allMatches.sort(comparator);
-        } else {
-            allMatches.sort(comparator.reversed());
-        }
+    public TopicProfile startProfile(Long clusterId, String topicName, List<Integer> partitionIds, Long startTime, Long endTime, Long startOffset, Long endOffset, String key, String keyword, String query, int timeout, String searchId) {
+        return topicProfileService.start(clusterId, topicName, partitionIds, startTime, endTime, startOffset, endOffset, key, keyword, query, timeout, searchId);
+    }
 
-        int total = allMatches.size();
-        int start = (page - 1) * pageSize;
-        if (start >= total) {
-            return MessageSearchResult.builder()
-                    .list(Collections.emptyList())
-                    .total(total)
-                    .page(page)
-                    .pageSize(pageSize)
-                    .partitionOffsets(partitionBounds)
-                    .build();
-        }
-        int end = Math.min(start + pageSize, total);
-        return MessageSearchResult.builder()
-                .list(allMatches.subList(start, end))
-                .total(total)
-                .page(page)
-                .pageSize(pageSize)
-                .partitionOffsets(partitionBounds)
-                .build();
+    public TopicProfile getProfile(Long clusterId, String topicName) {
+        return topicProfileService.get(clusterId, topicName);
+    }
+
+    public boolean cancelProfile(Long clusterId, String topicName) {
+        return topicProfileService.cancel(clusterId, topicName);
+    }
+
+    public TopicMessage getMessage(Long clusterId, String topicName, int partition, long offset) {
+        return messageSearchService.getMessage(clusterId, topicName, partition, offset);
+    }
+
+    public TopicMessage getMessageByKey(Long clusterId, String topicName, String key) {
+        return keyIndexService.getByKey(clusterId, topicName, key);
+    }
+
+    public List<KeyIndexStatus> listKeyIndexes(Long clusterId) {
+        return keyIndexService.list(clusterId);
+    }
+
+    public KeyIndexStatus getKeyIndex(Long clusterId, String topicName) {
+        return keyIndexService.status(clusterId, topicName);
+    }
+
+    public void enableKeyIndex(Long clusterId, String topicName) throws ExecutionException, InterruptedException {
+        // Fails for unknown topics instead of indexing nothing forever
+        topicMetadataCache.topic(clusterId, topicName);
+        keyIndexService.enable(clusterId, topicName);
+    }
+
+    public void disableKeyIndex(Long clusterId, String topicName) {
+        keyIndexService.disable(clusterId, topicName);
+    }
+
+    public boolean cancelSearch(Long clusterId, String searchId) {
+        return messageSearchService.cancelSearch(clusterId, searchId);
     }
 }
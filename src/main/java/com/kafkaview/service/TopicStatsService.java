@@ -0,0 +1,247 @@
+package com.kafkaview.service;
+
+import com.kafkaview.config.MetadataProperties;
+import com.kafkaview.event.ClusterChangedEvent;
+import com.kafkaview.model.TopicFilter;
+import com.kafkaview.model.TopicStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Per-cluster table of topic stats (message count, partitions, replication factor, under-replicated
+// partitions, consumer groups) for every topic, so the topic list can be sorted and filtered by them
+// across the cluster instead of only within a page. Rebuilt in the background from the metadata
+// cache, the topic -> group index and batched ListOffsets requests while the cluster is in use.
+// Topics created since the last rebuild are ranked from metadata with an unknown (0) message count.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TopicStatsService {
+
+    public static final List<String> SORT_FIELDS = List.of("name", "messageCount", "partitionCount",
+            "replicationFactor", "underReplicatedPartitions", "consumerGroupCount");
+
+    private final KafkaAdminService kafkaAdminService;
+    private final TopicMetadataCache topicMetadataCache;
+    private final TopicGroupIndex topicGroupIndex;
+    private final MetadataProperties metadataProperties;
+
+    private final Map<Long, ClusterStats> clusters = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        int threads = Math.max(1, metadataProperties.getRefreshThreads());
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "kafka-view-topic-stats-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // The candidate topics whose stats pass the filter, ordered by sortField (name as tie-break)
+    // Group counts are partial until the first group sweep of the cluster ends, so ranking by them is refused
+    // until then; afterwards they are read live from the index rather than from the last table rebuild.
+    public List<String> rank(Long clusterId, Collection<String> candidates, TopicFilter filter, String sortField, String sortOrder) throws ExecutionException, InterruptedException {
+        Comparator<TopicStats> order = order(sortField, sortOrder);
+        boolean byGroups = "consumerGroupCount".equals(sortField)
+                || (filter != null && (filter.getMinGroups() != null || filter.getMaxGroups() != null));
+        if (byGroups && !topicGroupIndex.isComplete(clusterId)) {
+            throw new IllegalStateException("Consumer groups of this cluster are still being indexed, try sorting or filtering by them again shortly");
+        }
+        Map<String, TopicStats> table = load(clusterId);
+        Map<String, TopicDescription> topics = topicMetadataCache.topics(clusterId);
+        Map<String, Integer> groupCounts = byGroups ? topicGroupIndex.groupCounts(clusterId, candidates) : null;
+        List<TopicStats> rows = new ArrayList<>();
+        for (String name : candidates) {
+            TopicDescription td = topics.get(name);
+            if (td == null) continue;
+            TopicStats stats = table.get(name);
+            if (stats == null) {
+                stats = stats(td, 0, topicGroupIndex.groupCounts(clusterId, List.of(td.name())).get(td.name()));
+            } else if (groupCounts != null) {
+                stats = new TopicStats(stats.getName(), stats.getPartitionCount(), stats.getReplicationFactor(),
+                        stats.getUnderReplicatedPartitions(), stats.getMessageCount(), groupCounts.getOrDefault(name, 0));
+            }
+            if (filter == null || filter.accepts(stats)) rows.add(stats);
+        }
+        rows.sort(order);
+        List<String> names = new ArrayList<>(rows.size());
+        rows.forEach(stats -> names.add(stats.getName()));
+        return names;
+    }
+
+    @EventListener
+    public void onClusterChanged(ClusterChangedEvent event) {
+        evictCluster(event.getClusterId());
+    }
+
+    public void evictCluster(Long clusterId) {
+        if (clusterId == null) return;
+        clusters.remove(clusterId);
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void refreshDue() {
+        long now = System.currentTimeMillis();
+        for (ClusterStats cluster : clusters.values()) {
+            if (cluster.table == null || now < cluster.nextRefreshAt) continue;
+            if (now - cluster.lastRead > metadataProperties.getIdleTimeoutMs()) continue;
+            if (!cluster.refreshing.compareAndSet(false, true)) continue;
+            try {
+                executor.execute(() -> {
+                    try {
+                        synchronized (cluster) {
+                            refresh(cluster);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        log.warn("Failed to refresh topic stats of cluster {}: {}", cluster.clusterId, e.getMessage());
+                    } finally {
+                        cluster.refreshing.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                cluster.refreshing.set(false);
+            }
+        }
+    }
+
+    private static Comparator<TopicStats> order(String sortField, String sortOrder) {
+        String field = StringUtils.hasText(sortField) ? sortField : "name";
+        Comparator<TopicStats> order = switch (field) {
+            case "name" -> Comparator.comparing(TopicStats::getName);
+            case "messageCount" -> Comparator.comparingLong(TopicStats::getMessageCount);
+            case "partitionCount" -> Comparator.comparingInt(TopicStats::getPartitionCount);
+            case "replicationFactor" -> Comparator.comparingInt(TopicStats::getReplicationFactor);
+            case "underReplicatedPartitions" -> Comparator.comparingInt(TopicStats::getUnderReplicatedPartitions);
+            case "consumerGroupCount" -> Comparator.comparingInt(TopicStats::getConsumerGroupCount);
+            default -> throw new IllegalArgumentException("Unknown sort field " + field + ", expected one of " + SORT_FIELDS);
+        };
+        if ("desc".equalsIgnoreCase(sortOrder)) order = order.reversed();
+        return order.thenComparing(TopicStats::getName);
+    }
+
+    // The first use of a cluster, or one idle long enough to stop refreshing, waits for a rebuild
+    private Map<String, TopicStats> load(Long clusterId) throws ExecutionException, InterruptedException {
+        ClusterStats cluster = clusters.computeIfAbsent(clusterId, ClusterStats::new);
+        long now = System.currentTimeMillis();
+        cluster.lastRead = now;
+        Map<String, TopicStats> table = cluster.table;
+        if (table != null && now - cluster.refreshedAt <= 3 * interval()) return table;
+        synchronized (cluster) {
+            if (cluster.table == null || System.currentTimeMillis() - cluster.refreshedAt > 3 * interval()) {
+                refresh(cluster);
+            }
+            return cluster.table;
+        }
+    }
+
+    // Must hold the cluster lock
+    private void refresh(ClusterStats cluster) throws ExecutionException, InterruptedException {
+        long start = System.currentTimeMillis();
+        cluster.nextRefreshAt = start + interval();
+        AdminClient admin = kafkaAdminService.getAdminClient(cluster.clusterId);
+        List<TopicDescription> topics = new ArrayList<>();
+        List<TopicPartition> tps = new ArrayList<>();
+        for (TopicDescription td : topicMetadataCache.topics(cluster.clusterId).values()) {
+            if (td.isInternal()) continue;
+            topics.add(td);
+            td.partitions().forEach(p -> tps.add(new TopicPartition(td.name(), p.partition())));
+        }
+        Map<TopicPartition, Long> startOffsets = offsets(admin, tps, OffsetSpec.earliest());
+        Map<TopicPartition, Long> endOffsets = offsets(admin, tps, OffsetSpec.latest());
+        Map<String, Integer> groupCounts = topicGroupIndex.groupCounts(cluster.clusterId, topics.stream().map(TopicDescription::name).toList());
+
+        Map<String, TopicStats> table = new HashMap<>();
+        for (TopicDescription td : topics) {
+            long messages = 0;
+            for (TopicPartitionInfo p : td.partitions()) {
+                TopicPartition tp = new TopicPartition(td.name(), p.partition());
+                Long from = startOffsets.get(tp);
+                Long to = endOffsets.get(tp);
+                if (from != null && to != null) messages += Math.max(0, to - from);
+            }
+            table.put(td.name(), stats(td, messages, groupCounts.getOrDefault(td.name(), 0)));
+        }
+        cluster.table = table;
+        cluster.refreshedAt = System.currentTimeMillis();
+        log.debug("Refreshed stats of {} topics ({} partitions) of cluster {} in {} ms",
+                table.size(), tps.size(), cluster.clusterId, cluster.refreshedAt - start);
+    }
+
+    // Offsets in batches; partitions that fail (e.g. no leader right now) are left out
+    private Map<TopicPartition, Long> offsets(AdminClient admin, List<TopicPartition> tps, OffsetSpec spec) throws InterruptedException {
+        Map<TopicPartition, Long> result = new HashMap<>();
+        int batchSize = Math.max(1, metadataProperties.getStatsOffsetsBatchSize());
+        for (int from = 0; from < tps.size(); from += batchSize) {
+            List<TopicPartition> batch = tps.subList(from, Math.min(from + batchSize, tps.size()));
+            Map<TopicPartition, OffsetSpec> specs = new HashMap<>();
+            batch.forEach(tp -> specs.put(tp, spec));
+            ListOffsetsResult offsets = admin.listOffsets(specs);
+            for (TopicPartition tp : batch) {
+                try {
+                    result.put(tp, offsets.partitionResult(tp).get().offset());
+                } catch (ExecutionException e) {
+                    log.debug("Failed to list offsets of {}: {}", tp, e.getMessage());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static TopicStats stats(TopicDescription td, long messages, int groups) {
+        int underReplicated = 0;
+        for (TopicPartitionInfo p : td.partitions()) {
+            if (p.isr().size() < p.replicas().size()) underReplicated++;
+        }
+        return TopicStats.builder()
+                .name(td.name())
+                .partitionCount(td.partitions().size())
+                .replicationFactor(td.partitions().isEmpty() ? 0 : td.partitions().get(0).replicas().size())
+                .underReplicatedPartitions(underReplicated)
+                .messageCount(messages)
+                .consumerGroupCount(groups)
+                .build();
+    }
+
+    private long interval() {
+        return Math.max(1000, metadataProperties.getStatsRefreshIntervalMs());
+    }
+
+    private static final class ClusterStats {
+        final Long clusterId;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        volatile Map<String, TopicStats> table;
+        volatile long refreshedAt;
+        volatile long lastRead;
+        volatile long nextRefreshAt;
+
+        ClusterStats(Long clusterId) {
+            this.clusterId = clusterId;
+        }
+    }
+}
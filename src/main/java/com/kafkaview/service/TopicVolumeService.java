@@ -4,9 +4,6 @@ import com.kafkaview.mapper.TopicVolumeMapper;
 import com.kafkaview.model.TopicVolume;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.clients.admin.AdminClient;
-import org.apache.kafka.clients.admin.ListOffsetsResult;
-import org.apache.kafka.clients.admin.OffsetSpec;
 import org.apache.kafka.common.TopicPartition;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -26,6 +23,9 @@ public class TopicVolumeService {
     private final KafkaAdminService kafkaAdminService;
     private final TopicVolumeMapper topicVolumeMapper;
     private final ClusterService clusterService;
+    private final TimeIndexService timeIndexService;
+    private final TopicMetadataCache topicMetadataCache;
+    private final AdminCallCoalescer adminCallCoalescer;
 
     private static final DateTimeFormatter DF = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
@@ -83,40 +83,36 @@ public class TopicVolumeService {
 
     // Helper to get total cumulative offset of a topic at a specific timestamp
     private long getTotalOffsetAtTime(Long clusterId, String topicName, long timestamp) throws ExecutionException, InterruptedException {
-        AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
-        var describe = admin.describeTopics(Collections.singleton(topicName)).all().get();
-        var td = describe.get(topicName);
+        var td = topicMetadataCache.topics(clusterId).get(topicName);
         if (td == null) return 0L;
 
         List<TopicPartition> tps = td.partitions().stream()
                 .map(p -> new TopicPartition(topicName, p.partition()))
                 .collect(Collectors.toList());
 
-        // 1. Try to get offsets by timestamp
-        Map<TopicPartition, OffsetSpec> specs = new HashMap<>();
-        for (TopicPartition tp : tps) {
-            specs.put(tp, OffsetSpec.forTimestamp(timestamp));
-        }
-        
-        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> timeOffsets = admin.listOffsets(specs).all().get();
-        
+        return sumOffsetsAtTime(clusterId, tps, timestamp);
+    }
+
+    // Sum over partitions of the first offset at or after timestamp, or the log end offset if there is none
+    private long sumOffsetsAtTime(Long clusterId, List<TopicPartition> tps, long timestamp) throws ExecutionException, InterruptedException {
+        // 1. Try to get offsets by timestamp (answered from the time index where possible)
+        Map<TopicPartition, Long> timeOffsets = timeIndexService.offsetsForTime(clusterId, tps, timestamp);
+
         // 2. If any partition returns null (meaning timestamp is future relative to log end), fetch Latest
         List<TopicPartition> missingTps = new ArrayList<>();
         long total = 0L;
 
         for (TopicPartition tp : tps) {
-            var info = timeOffsets.get(tp);
-            if (info == null || info.offset() == -1L) {
+            Long offset = timeOffsets.get(tp);
+            if (offset == null) {
                 missingTps.add(tp);
             } else {
-                total += info.offset();
+                total += offset;
             }
         }
 
         if (!missingTps.isEmpty()) {
-            Map<TopicPartition, OffsetSpec> latestSpecs = new HashMap<>();
-            for (TopicPartition tp : missingTps) latestSpecs.put(tp, OffsetSpec.latest());
-            var latestOffsets = admin.listOffsets(latestSpecs).all().get();
+            var latestOffsets = adminCallCoalescer.latestOffsets(clusterId, missingTps).get();
             for (TopicPartition tp : missingTps) {
                 var info = latestOffsets.get(tp);
                 if (info != null) {
@@ -158,9 +154,7 @@ public class TopicVolumeService {
         if (days <= 0) return;
         
         try {
-            AdminClient admin = kafkaAdminService.getAdminClient(clusterId);
-            var describe = admin.describeTopics(Collections.singleton(topicName)).all().get();
-            var td = describe.get(topicName);
+            var td = topicMetadataCache.topics(clusterId).get(topicName);
             if (td == null) return;
 
             List<TopicPartition> tps = td.partitions().stream()
@@ -191,38 +185,7 @@ public class TopicVolumeService {
             Map<Long, Long> timestampToTotalOffset = new HashMap<>();
             
             for (Long ts : timestamps) {
-                // 1. Try to get offsets by timestamp
-                Map<TopicPartition, OffsetSpec> specs = new HashMap<>();
-                for (TopicPartition tp : tps) {
-                    specs.put(tp, OffsetSpec.forTimestamp(ts));
-                }
-                
-                Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> timeOffsets = admin.listOffsets(specs).all().get();
-                
-                List<TopicPartition> missingTps = new ArrayList<>();
-                long total = 0L;
-
-                for (TopicPartition tp : tps) {
-                    var info = timeOffsets.get(tp);
-                    if (info == null || info.offset() == -1L) {
-                        missingTps.add(tp);
-                    } else {
-                        total += info.offset();
-                    }
-                }
-
-                if (!missingTps.isEmpty()) {
-                    Map<TopicPartition, OffsetSpec> latestSpecs = new HashMap<>();
-                    for (TopicPartition tp : missingTps) latestSpecs.put(tp, OffsetSpec.latest());
-                    var latestOffsets = admin.listOffsets(latestSpecs).all().get();
-                    for (TopicPartition tp : missingTps) {
-                        var info = latestOffsets.get(tp);
-                        if (info != null) {
-                            total += info.offset();
-                        }
-                    }
-                }
-                timestampToTotalOffset.put(ts, total);
+                timestampToTotalOffset.put(ts, sumOffsetsAtTime(clusterId, tps, ts));
             }
             
             // Calculate and Upsert
@@ -35,3 +35,24 @@ CREATE TABLE IF NOT EXISTS topic_volume (
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
     UNIQUE(cluster_id, topic_name, day)
 );
+
+-- Topics with a background key -> (partition, offset) index
+CREATE TABLE IF NOT EXISTS key_index_topic (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    cluster_id INTEGER NOT NULL,
+    topic_name TEXT NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE(cluster_id, topic_name)
+);
+
+-- Per-topic payload formats (string, json, hex, avro, protobuf) used to decode returned records
+CREATE TABLE IF NOT EXISTS topic_format (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    cluster_id INTEGER NOT NULL,
+    topic_name TEXT NOT NULL,
+    key_format TEXT DEFAULT 'string',
+    value_format TEXT DEFAULT 'string',
+    schema_registry_url TEXT,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE(cluster_id, topic_name)
+);